@@ -0,0 +1,61 @@
+package com.revature.get_books.benchmarks;
+
+import com.revature.get_books.*;
+import com.revature.get_books.benchmarks.stubs.NoopLogger;
+import com.revature.get_books.local.LocalPresigner;
+import com.revature.get_books.local.SyntheticCatalog;
+import org.openjdk.jmh.annotations.*;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the CPU cost of gzipping and base64 encoding a serialized catalog response at several deflate
+ * levels. The byte counts for each level are printed once per trial, so the run output shows the CPU/bytes
+ * trade-off side by side.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 2, jvmArgsAppend = { "-Xmx1g" })
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class CompressionBenchmark {
+
+    @Param({ "100", "10000" })
+    public int bookCount;
+
+    @Param({ "1", "6", "9" })
+    public int level;
+
+    private String body;
+    private ResponseCompression compression;
+
+    @Setup
+    public void setUp() {
+
+        S3Presigner presigner = LocalPresigner.create();
+        BookResponseWriter writer = new BookResponseWriter(false);
+        new BookService(presigner).mapResponse(SyntheticCatalog.pages(SyntheticCatalog.books(bookCount), 1000), writer, new NoopLogger());
+        presigner.close();
+
+        body = writer.finish();
+        compression = new ResponseCompression(0, level);
+
+        int encodedLength = compression.encode(body).length();
+        System.out.printf("%n%d books: %d chars uncompressed, %d base64 chars at gzip level %d (%.1f%%)%n",
+                          bookCount, body.length(), encodedLength, level, 100.0 * encodedLength / body.length());
+
+    }
+
+    @Benchmark
+    public byte[] gzip() {
+        return compression.gzip(body);
+    }
+
+    @Benchmark
+    public String gzipAndBase64() {
+        return compression.encode(body);
+    }
+
+}
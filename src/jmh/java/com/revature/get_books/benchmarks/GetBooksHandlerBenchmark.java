@@ -0,0 +1,61 @@
+package com.revature.get_books.benchmarks;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.revature.get_books.BookRepository;
+import com.revature.get_books.BookService;
+import com.revature.get_books.GetBooksHandler;
+import com.revature.get_books.benchmarks.stubs.*;
+import com.revature.get_books.local.LocalPresigner;
+import com.revature.get_books.local.SyntheticCatalog;
+import org.openjdk.jmh.annotations.*;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a full catalog request through GetBooksHandler, from the scan pages to the serialized body,
+ * with the response cache disabled so every invocation does the full work.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 2, jvmArgsAppend = { "-Xmx1g" })
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class GetBooksHandlerBenchmark {
+
+    @Param({ "10000", "100000" })
+    public int bookCount;
+
+    private S3Presigner presigner;
+    private GetBooksHandler handler;
+    private Context context;
+    private APIGatewayProxyRequestEvent requestEvent;
+
+    @Setup
+    public void setUp() {
+
+        presigner = LocalPresigner.create();
+        StubBookTable bookTable = new StubBookTable(SyntheticCatalog.pages(SyntheticCatalog.books(bookCount), 1000));
+        handler = new GetBooksHandler(new BookRepository(bookTable), new BookService(presigner));
+        context = new StubContext(new NoopLogger());
+
+        requestEvent = new APIGatewayProxyRequestEvent();
+        requestEvent.withPath("/books");
+        requestEvent.withHttpMethod("GET");
+
+    }
+
+    @TearDown
+    public void tearDown() {
+        presigner.close();
+    }
+
+    @Benchmark
+    public APIGatewayProxyResponseEvent getAllBooks() {
+        return handler.handleRequest(requestEvent, context);
+    }
+
+}
@@ -0,0 +1,62 @@
+package com.revature.get_books.benchmarks;
+
+import com.revature.get_books.*;
+import com.revature.get_books.benchmarks.stubs.NoopLogger;
+import com.revature.get_books.local.LocalPresigner;
+import com.revature.get_books.local.SyntheticCatalog;
+import org.openjdk.jmh.annotations.*;
+import software.amazon.awssdk.enhanced.dynamodb.model.PageIterable;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures mapping a synthetic scan result into responses, both into a list and streamed through
+ * {@link BookResponseWriter}, with and without the presigned URL cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 2, jvmArgsAppend = { "-Xmx1g" })
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class MapResponseBenchmark {
+
+    @Param({ "10000", "100000" })
+    public int bookCount;
+
+    @Param({ "false", "true" })
+    public boolean presignCache;
+
+    private NoopLogger logger;
+    private S3Presigner presigner;
+    private BookService bookService;
+    private PageIterable<Book> books;
+
+    @Setup
+    public void setUp() {
+        logger = new NoopLogger();
+        presigner = LocalPresigner.create();
+        bookService = new BookService(presigner, new ExpiringLruCache<>(presignCache ? bookCount : 0));
+        books = SyntheticCatalog.pages(SyntheticCatalog.books(bookCount), 1000);
+    }
+
+    @TearDown
+    public void tearDown() {
+        presigner.close();
+    }
+
+    @Benchmark
+    public List<BookResponse> mapToList() {
+        return bookService.mapResponse(books, logger);
+    }
+
+    @Benchmark
+    public String mapToStreamingWriter() {
+        BookResponseWriter writer = new BookResponseWriter(false);
+        bookService.mapResponse(books, writer, logger);
+        return writer.finish();
+    }
+
+}
@@ -0,0 +1,53 @@
+package com.revature.get_books.benchmarks;
+
+import com.revature.get_books.local.LocalPresigner;
+import org.openjdk.jmh.annotations.*;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of a single SigV4 presign, the per-item work BookService does for every cover image.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(2)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class PresignBenchmark {
+
+    private S3Presigner presigner;
+    private GetObjectPresignRequest presignRequest;
+
+    @Setup
+    public void setUp() {
+
+        presigner = LocalPresigner.create();
+
+        GetObjectRequest getObjectRequest = GetObjectRequest.builder()
+                                                            .bucket("bookstore-images-bucket")
+                                                            .key("covers/book-00000001.jpg")
+                                                            .build();
+
+        presignRequest = GetObjectPresignRequest.builder()
+                                                .signatureDuration(Duration.ofMinutes(10))
+                                                .getObjectRequest(getObjectRequest)
+                                                .build();
+
+    }
+
+    @TearDown
+    public void tearDown() {
+        presigner.close();
+    }
+
+    @Benchmark
+    public String presignGetObject() {
+        return presigner.presignGetObject(presignRequest).url().toString();
+    }
+
+}
@@ -0,0 +1,72 @@
+package com.revature.get_books.benchmarks;
+
+import com.revature.get_books.Book;
+import com.revature.get_books.BookRepository;
+import com.revature.get_books.FilterExpressionCompiler;
+import com.revature.get_books.benchmarks.stubs.NoopLogger;
+import com.revature.get_books.benchmarks.stubs.StubBookTable;
+import com.revature.get_books.local.SyntheticCatalog;
+import org.openjdk.jmh.annotations.*;
+import software.amazon.awssdk.enhanced.dynamodb.Expression;
+import software.amazon.awssdk.enhanced.dynamodb.model.PageIterable;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures search planning and filter-expression building. The stub table returns no pages, so nothing
+ * past the request construction is timed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(2)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SearchBooksBenchmark {
+
+    @Param({ "isbn", "title", "title+authors", "genres+authors+publisher" })
+    public String shape;
+
+    private NoopLogger logger;
+    private BookRepository bookRepo;
+    private FilterExpressionCompiler filterCompiler;
+    private Map<String, String> queryParams;
+
+    @Setup
+    public void setUp() {
+
+        logger = new NoopLogger();
+        PageIterable<Book> noPages = SyntheticCatalog.pages(Collections.emptyList(), 1);
+        bookRepo = new BookRepository(new StubBookTable(noPages));
+        filterCompiler = new FilterExpressionCompiler();
+
+        queryParams = new HashMap<>();
+        for (String field : shape.split("\\+")) {
+            switch (field) {
+                case "authors":
+                    queryParams.put(field, "Author 12,Author 345,Author 678");
+                    break;
+                case "genres":
+                    queryParams.put(field, "Fantasy,Mystery");
+                    break;
+                default:
+                    queryParams.put(field, "Synthetic " + field);
+            }
+        }
+
+    }
+
+    @Benchmark
+    public PageIterable<Book> searchBooks() {
+        return bookRepo.searchBooks(queryParams, logger);
+    }
+
+    @Benchmark
+    public Expression compileFilterExpression() {
+        return filterCompiler.compile(queryParams, logger);
+    }
+
+}
@@ -0,0 +1,13 @@
+package com.revature.get_books.benchmarks.stubs;
+
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+
+public class NoopLogger implements LambdaLogger {
+
+    @Override
+    public void log(String s) { }
+
+    @Override
+    public void log(byte[] bytes) { }
+
+}
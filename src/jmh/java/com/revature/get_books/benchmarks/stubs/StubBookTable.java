@@ -0,0 +1,93 @@
+package com.revature.get_books.benchmarks.stubs;
+
+import com.revature.get_books.Book;
+import com.revature.get_books.BookSchema;
+import software.amazon.awssdk.core.pagination.sync.SdkIterable;
+import software.amazon.awssdk.enhanced.dynamodb.*;
+import software.amazon.awssdk.enhanced.dynamodb.model.Page;
+import software.amazon.awssdk.enhanced.dynamodb.model.PageIterable;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryEnhancedRequest;
+import software.amazon.awssdk.enhanced.dynamodb.model.ScanEnhancedRequest;
+
+/**
+ * A DynamoDbTable that answers every scan or index query with a fixed, pre-built set of pages and never
+ * touches the network.
+ */
+public class StubBookTable implements DynamoDbTable<Book> {
+
+    private static final TableSchema<Book> TABLE_SCHEMA = BookSchema.TABLE_SCHEMA;
+
+    private final PageIterable<Book> pages;
+
+    public StubBookTable(PageIterable<Book> pages) {
+        this.pages = pages;
+    }
+
+    @Override
+    public PageIterable<Book> scan() {
+        return pages;
+    }
+
+    @Override
+    public PageIterable<Book> scan(ScanEnhancedRequest request) {
+        return pages;
+    }
+
+    @Override
+    public DynamoDbIndex<Book> index(String indexName) {
+        return new DynamoDbIndex<Book>() {
+
+            @Override
+            public SdkIterable<Page<Book>> query(QueryEnhancedRequest request) {
+                return pages;
+            }
+
+            @Override
+            public DynamoDbEnhancedClientExtension mapperExtension() {
+                return null;
+            }
+
+            @Override
+            public TableSchema<Book> tableSchema() {
+                return TABLE_SCHEMA;
+            }
+
+            @Override
+            public String tableName() {
+                return "books";
+            }
+
+            @Override
+            public String indexName() {
+                return indexName;
+            }
+
+            @Override
+            public Key keyFrom(Book item) {
+                return Key.builder().partitionValue(item.getId()).build();
+            }
+
+        };
+    }
+
+    @Override
+    public DynamoDbEnhancedClientExtension mapperExtension() {
+        return null;
+    }
+
+    @Override
+    public TableSchema<Book> tableSchema() {
+        return TABLE_SCHEMA;
+    }
+
+    @Override
+    public String tableName() {
+        return "books";
+    }
+
+    @Override
+    public Key keyFrom(Book item) {
+        return Key.builder().partitionValue(item.getId()).build();
+    }
+
+}
@@ -0,0 +1,71 @@
+package com.revature.get_books.benchmarks.stubs;
+
+import com.amazonaws.services.lambda.runtime.ClientContext;
+import com.amazonaws.services.lambda.runtime.CognitoIdentity;
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+
+public class StubContext implements Context {
+
+    private final LambdaLogger logger;
+
+    public StubContext(LambdaLogger logger) {
+        this.logger = logger;
+    }
+
+    @Override
+    public String getAwsRequestId() {
+        return "benchmark-request";
+    }
+
+    @Override
+    public String getLogGroupName() {
+        return "/aws/lambda/get-books-fx";
+    }
+
+    @Override
+    public String getLogStreamName() {
+        return "benchmark";
+    }
+
+    @Override
+    public String getFunctionName() {
+        return "get-books-fx";
+    }
+
+    @Override
+    public String getFunctionVersion() {
+        return "$LATEST";
+    }
+
+    @Override
+    public String getInvokedFunctionArn() {
+        return "arn:aws:lambda:us-west-1:000000000000:function:get-books-fx";
+    }
+
+    @Override
+    public CognitoIdentity getIdentity() {
+        return null;
+    }
+
+    @Override
+    public ClientContext getClientContext() {
+        return null;
+    }
+
+    @Override
+    public int getRemainingTimeInMillis() {
+        return 30_000;
+    }
+
+    @Override
+    public int getMemoryLimitInMB() {
+        return 256;
+    }
+
+    @Override
+    public LambdaLogger getLogger() {
+        return logger;
+    }
+
+}
@@ -0,0 +1,102 @@
+package com.revature.get_books.local;
+
+import com.revature.get_books.Book;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Copies books the way the enhanced client would unmarshal them, so callers never share the stored items.
+ */
+class BookCopier {
+
+    private BookCopier() { }
+
+    /**
+     * @param attributes the attributes to copy, or null for all of them
+     */
+    static Book copy(Book book, List<String> attributes) {
+
+        Book copy = new Book();
+
+        if (attributes == null) {
+            copy.setId(book.getId());
+            copy.setIsbn(book.getIsbn());
+            copy.setTitle(book.getTitle());
+            copy.setPublisher(book.getPublisher());
+            copy.setAuthors(copyList(book.getAuthors()));
+            copy.setGenres(copyList(book.getGenres()));
+            copy.setImageKey(book.getImageKey());
+            return copy;
+        }
+
+        for (String attribute : attributes) {
+            switch (attribute) {
+                case "id":
+                    copy.setId(book.getId());
+                    break;
+                case "isbn":
+                    copy.setIsbn(book.getIsbn());
+                    break;
+                case "title":
+                    copy.setTitle(book.getTitle());
+                    break;
+                case "publisher":
+                    copy.setPublisher(book.getPublisher());
+                    break;
+                case "authors":
+                    copy.setAuthors(copyList(book.getAuthors()));
+                    break;
+                case "genres":
+                    copy.setGenres(copyList(book.getGenres()));
+                    break;
+                case "imageKey":
+                    copy.setImageKey(book.getImageKey());
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        return copy;
+
+    }
+
+    /**
+     * @return roughly what DynamoDB counts toward the 1 MB page limit: attribute names plus UTF-8 values,
+     *         taking one byte per character
+     */
+    static int estimateSize(Book book) {
+        return 2 + length(book.getId())
+               + 4 + length(book.getIsbn())
+               + 5 + length(book.getTitle())
+               + 9 + length(book.getPublisher())
+               + 7 + length(book.getAuthors())
+               + 6 + length(book.getGenres())
+               + 8 + length(book.getImageKey());
+    }
+
+    private static List<String> copyList(List<String> values) {
+        return values == null ? null : new ArrayList<>(values);
+    }
+
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
+
+    private static int length(List<String> values) {
+
+        if (values == null) {
+            return 0;
+        }
+
+        int length = 0;
+        for (String value : values) {
+            length += 1 + length(value);
+        }
+
+        return length;
+
+    }
+
+}
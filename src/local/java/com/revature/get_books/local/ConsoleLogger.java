@@ -0,0 +1,32 @@
+package com.revature.get_books.local;
+
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes handler log lines to standard out, or drops them when disabled so logging does not skew a load test.
+ */
+public class ConsoleLogger implements LambdaLogger {
+
+    private final boolean enabled;
+
+    public ConsoleLogger(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Override
+    public void log(String message) {
+        if (enabled) {
+            System.out.println(message);
+        }
+    }
+
+    @Override
+    public void log(byte[] message) {
+        if (enabled) {
+            System.out.println(new String(message, StandardCharsets.UTF_8));
+        }
+    }
+
+}
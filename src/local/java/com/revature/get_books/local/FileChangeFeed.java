@@ -0,0 +1,137 @@
+package com.revature.get_books.local;
+
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import com.revature.get_books.Book;
+import com.revature.get_books.BookChange;
+import com.revature.get_books.ChangeFeed;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * A change feed that tails a file of JSON lines, standing in for DynamoDB Streams in local runs. Append a
+ * line per change while the server runs:
+ *
+ * <pre>
+ *     {"type": "INSERT", "book": {"id": "book-x", "title": "A New Book", "genres": ["Fantasy"]}}
+ *     {"type": "MODIFY", "book": {"id": "book-00000001", "title": "Renamed"}}
+ *     {"type": "REMOVE", "id": "book-00000002"}
+ * </pre>
+ *
+ * <p>A change is stamped with the time it was read. Lines that are not valid changes are logged and skipped,
+ * and a line without its newline yet is left for the next poll.</p>
+ */
+public class FileChangeFeed implements ChangeFeed {
+
+    private static final Gson mapper = new Gson();
+
+    private final Path changePath;
+    private final LongSupplier clock;
+
+    private long position;
+
+    public FileChangeFeed(Path changePath) {
+        this(changePath, System::currentTimeMillis);
+    }
+
+    public FileChangeFeed(Path changePath, LongSupplier clock) {
+        this.changePath = changePath;
+        this.clock = clock;
+    }
+
+    @Override
+    public synchronized List<BookChange> poll(LambdaLogger logger) {
+
+        List<BookChange> changes = new ArrayList<>();
+
+        if (!Files.exists(changePath)) {
+            return changes;
+        }
+
+        byte[] appended;
+
+        try (RandomAccessFile file = new RandomAccessFile(changePath.toFile(), "r")) {
+
+            if (file.length() < position) {
+                // Truncated or replaced; start over from the top.
+                position = 0;
+            }
+
+            appended = new byte[(int) (file.length() - position)];
+            file.seek(position);
+            file.readFully(appended);
+
+        } catch (IOException e) {
+            logger.log("Could not read the change file " + changePath + ": " + e);
+            return changes;
+        }
+
+        int lineStart = 0;
+
+        for (int i = 0; i < appended.length; i++) {
+            if (appended[i] == '\n') {
+                String line = new String(appended, lineStart, i - lineStart, StandardCharsets.UTF_8).trim();
+                if (!line.isEmpty()) {
+                    BookChange change = parse(line, logger);
+                    if (change != null) {
+                        changes.add(change);
+                    }
+                }
+                lineStart = i + 1;
+            }
+        }
+
+        position += lineStart;
+
+        return changes;
+
+    }
+
+    private BookChange parse(String line, LambdaLogger logger) {
+
+        ChangeLine changeLine;
+
+        try {
+            changeLine = mapper.fromJson(line, ChangeLine.class);
+        } catch (JsonSyntaxException e) {
+            changeLine = null;
+        }
+
+        if (changeLine == null || changeLine.type == null) {
+            logger.log("Skipping an unreadable change: " + line);
+            return null;
+        }
+
+        if (changeLine.type == BookChange.Type.REMOVE) {
+            String id = changeLine.id != null ? changeLine.id : changeLine.book == null ? null : changeLine.book.getId();
+            if (id == null) {
+                logger.log("Skipping a removal without an id: " + line);
+                return null;
+            }
+            return BookChange.removal(id, clock.getAsLong());
+        }
+
+        if (changeLine.book == null || changeLine.book.getId() == null) {
+            logger.log("Skipping a change without a book id: " + line);
+            return null;
+        }
+
+        return BookChange.upsert(changeLine.type, changeLine.book, clock.getAsLong());
+
+    }
+
+    private static class ChangeLine {
+        private BookChange.Type type;
+        private String id;
+        private Book book;
+    }
+
+}
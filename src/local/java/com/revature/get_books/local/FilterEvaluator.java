@@ -0,0 +1,220 @@
+package com.revature.get_books.local;
+
+import com.revature.get_books.Book;
+import software.amazon.awssdk.enhanced.dynamodb.Expression;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Evaluates DynamoDB filter expressions against books in memory. Only the grammar the repository generates
+ * is understood: <code>attr = :value</code> and <code>contains(attr, :value)</code> comparisons joined by
+ * <code>and</code>/<code>or</code> and grouped with parentheses, with <code>#name</code> placeholders
+ * allowed for attributes. Anything else is rejected rather than guessed at. Parsed expressions are cached
+ * by their text, since values are only bound at evaluation.
+ */
+class FilterEvaluator {
+
+    private static final int MAX_CACHED_EXPRESSIONS = 256;
+
+    private static final Map<String, Condition> conditionsByExpression = new ConcurrentHashMap<>();
+
+    private FilterEvaluator() { }
+
+    static Predicate<Book> compile(Expression filterExpression) {
+
+        String text = filterExpression.expression();
+        Condition condition = conditionsByExpression.get(text);
+
+        if (condition == null) {
+            condition = new Parser(text).parse();
+            if (conditionsByExpression.size() < MAX_CACHED_EXPRESSIONS) {
+                conditionsByExpression.put(text, condition);
+            }
+        }
+
+        Condition parsed = condition;
+        return book -> parsed.test(book, filterExpression);
+
+    }
+
+    static Object attribute(Book book, String attributeName) {
+        switch (attributeName) {
+            case "id":
+                return book.getId();
+            case "isbn":
+                return book.getIsbn();
+            case "title":
+                return book.getTitle();
+            case "publisher":
+                return book.getPublisher();
+            case "authors":
+                return book.getAuthors();
+            case "genres":
+                return book.getGenres();
+            case "imageKey":
+                return book.getImageKey();
+            default:
+                return null;
+        }
+    }
+
+    private interface Condition {
+        boolean test(Book book, Expression expression);
+    }
+
+    private static String resolveName(String name, Expression expression) {
+        if (name.startsWith("#")) {
+            String resolved = expression.expressionNames() == null ? null : expression.expressionNames().get(name);
+            if (resolved == null) {
+                throw new IllegalArgumentException("Unbound attribute name placeholder " + name);
+            }
+            return resolved;
+        }
+        return name;
+    }
+
+    private static String resolveValue(String placeholder, Expression expression) {
+        AttributeValue value = expression.expressionValues() == null ? null : expression.expressionValues().get(placeholder);
+        if (value == null) {
+            throw new IllegalArgumentException("Unbound attribute value placeholder " + placeholder);
+        }
+        return value.s();
+    }
+
+    private static class Parser {
+
+        private final String text;
+        private int position;
+
+        private Parser(String text) {
+            this.text = text;
+        }
+
+        private Condition parse() {
+            Condition condition = parseOr();
+            skipWhitespace();
+            if (position != text.length()) {
+                throw error();
+            }
+            return condition;
+        }
+
+        private Condition parseOr() {
+            List<Condition> alternatives = new ArrayList<>();
+            alternatives.add(parseAnd());
+            while (consumeKeyword("or")) {
+                alternatives.add(parseAnd());
+            }
+            return alternatives.size() == 1 ? alternatives.get(0) : (book, expression) -> {
+                for (Condition alternative : alternatives) {
+                    if (alternative.test(book, expression)) {
+                        return true;
+                    }
+                }
+                return false;
+            };
+        }
+
+        private Condition parseAnd() {
+            List<Condition> conjuncts = new ArrayList<>();
+            conjuncts.add(parseComparison());
+            while (consumeKeyword("and")) {
+                conjuncts.add(parseComparison());
+            }
+            return conjuncts.size() == 1 ? conjuncts.get(0) : (book, expression) -> {
+                for (Condition conjunct : conjuncts) {
+                    if (!conjunct.test(book, expression)) {
+                        return false;
+                    }
+                }
+                return true;
+            };
+        }
+
+        private Condition parseComparison() {
+
+            if (consume("(")) {
+                Condition grouped = parseOr();
+                expect(")");
+                return grouped;
+            }
+
+            if (consumeKeyword("contains")) {
+                expect("(");
+                String name = token();
+                expect(",");
+                String placeholder = token();
+                expect(")");
+                return (book, expression) -> contains(attribute(book, resolveName(name, expression)), resolveValue(placeholder, expression));
+            }
+
+            String name = token();
+            expect("=");
+            String placeholder = token();
+            return (book, expression) -> resolveValue(placeholder, expression).equals(attribute(book, resolveName(name, expression)));
+
+        }
+
+        private static boolean contains(Object attribute, String value) {
+            if (attribute instanceof List) {
+                return ((List<?>) attribute).contains(value);
+            }
+            return attribute instanceof String && ((String) attribute).contains(value);
+        }
+
+        private String token() {
+            skipWhitespace();
+            int start = position;
+            while (position < text.length() && (Character.isLetterOrDigit(text.charAt(position)) || "#:_-.".indexOf(text.charAt(position)) >= 0)) {
+                position++;
+            }
+            if (start == position) {
+                throw error();
+            }
+            return text.substring(start, position);
+        }
+
+        private boolean consumeKeyword(String keyword) {
+            skipWhitespace();
+            int end = position + keyword.length();
+            if (text.regionMatches(true, position, keyword, 0, keyword.length())
+                    && (end == text.length() || !Character.isLetterOrDigit(text.charAt(end)))) {
+                position = end;
+                return true;
+            }
+            return false;
+        }
+
+        private boolean consume(String symbol) {
+            skipWhitespace();
+            if (text.startsWith(symbol, position)) {
+                position += symbol.length();
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(String symbol) {
+            if (!consume(symbol)) {
+                throw error();
+            }
+        }
+
+        private void skipWhitespace() {
+            while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+                position++;
+            }
+        }
+
+        private IllegalArgumentException error() {
+            return new IllegalArgumentException("Unsupported filter expression at position " + position + ": " + text);
+        }
+
+    }
+
+}
@@ -0,0 +1,338 @@
+package com.revature.get_books.local;
+
+import com.revature.get_books.Book;
+import com.revature.get_books.BookChange;
+import com.revature.get_books.BookSchema;
+import com.revature.get_books.Metric;
+import com.revature.get_books.Metrics;
+import software.amazon.awssdk.core.pagination.sync.SdkIterable;
+import software.amazon.awssdk.enhanced.dynamodb.*;
+import software.amazon.awssdk.enhanced.dynamodb.model.Page;
+import software.amazon.awssdk.enhanced.dynamodb.model.PageIterable;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryEnhancedRequest;
+import software.amazon.awssdk.enhanced.dynamodb.model.ScanEnhancedRequest;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * An in-memory stand-in for the books table and its two indexes, close enough to DynamoDB for the
+ * repository's access paths to behave as they do in production:
+ *
+ * <ul>
+ *     <li>items, and each index partition, are kept in key order and every read returns fresh copies;</li>
+ *     <li>a page stops after <code>limit</code> items are evaluated or about 1 MB has been read, and
+ *         <code>lastEvaluatedKey</code> names the last item evaluated;</li>
+ *     <li>filter expressions are applied after items are read, so they shrink pages rather than fill them;</li>
+ *     <li>parallel scans split the items into segments by key hash;</li>
+ *     <li>every call may wait a fixed latency, to stand in for the network round trip.</li>
+ * </ul>
+ *
+ * <p>Calls are recorded in the current invocation's {@link Metrics} the way the DynamoDB interceptor
+ * records real ones, minus consumed capacity.</p>
+ */
+public class InMemoryBookTable implements DynamoDbTable<Book> {
+
+    static final int MAX_PAGE_BYTES = 1024 * 1024;
+
+    private static final Map<String, Function<Book, String>> INDEX_KEYS;
+
+    static {
+        Map<String, Function<Book, String>> indexKeys = new HashMap<>();
+        indexKeys.put(Book.ISBN_INDEX, Book::getIsbn);
+        indexKeys.put(Book.PUBLISHER_INDEX, Book::getPublisher);
+        INDEX_KEYS = Collections.unmodifiableMap(indexKeys);
+    }
+
+    private final ConcurrentSkipListMap<String, Book> booksById = new ConcurrentSkipListMap<>();
+    private final Map<String, ConcurrentHashMap<String, ConcurrentSkipListMap<String, Book>>> partitionsByIndex = new HashMap<>();
+    private final long callLatencyMillis;
+
+    public InMemoryBookTable() {
+        this(0);
+    }
+
+    public InMemoryBookTable(long callLatencyMillis) {
+        this.callLatencyMillis = callLatencyMillis;
+        INDEX_KEYS.keySet().forEach(indexName -> partitionsByIndex.put(indexName, new ConcurrentHashMap<>()));
+    }
+
+    public void putItem(Book book) {
+        Book previous = booksById.put(book.getId(), book);
+        if (previous != null) {
+            unindex(previous);
+        }
+        INDEX_KEYS.forEach((indexName, indexKey) -> {
+            String keyValue = indexKey.apply(book);
+            if (keyValue != null) {
+                partitionsByIndex.get(indexName).computeIfAbsent(keyValue, value -> new ConcurrentSkipListMap<>()).put(book.getId(), book);
+            }
+        });
+    }
+
+    public void putItems(Collection<Book> books) {
+        books.forEach(this::putItem);
+    }
+
+    public void deleteItem(String id) {
+        Book previous = booksById.remove(id);
+        if (previous != null) {
+            unindex(previous);
+        }
+    }
+
+    /**
+     * Applies a change as DynamoDB would have, before it showed up in the table's stream.
+     */
+    public void apply(BookChange change) {
+        if (change.isRemoval()) {
+            deleteItem(change.getId());
+        } else {
+            putItem(BookCopier.copy(change.getBook(), null));
+        }
+    }
+
+    public int size() {
+        return booksById.size();
+    }
+
+    @Override
+    public Book getItem(Key key) {
+
+        long start = System.nanoTime();
+        simulateLatency();
+
+        Book book = booksById.get(key.partitionKeyValue().s());
+
+        record(start, 0, book == null ? 0 : 1, false);
+
+        return book == null ? null : BookCopier.copy(book, null);
+
+    }
+
+    @Override
+    public PageIterable<Book> scan() {
+        return scan(ScanEnhancedRequest.builder().build());
+    }
+
+    @Override
+    public PageIterable<Book> scan(ScanEnhancedRequest request) {
+
+        Predicate<Book> segment = null;
+
+        if (request.segment() != null && request.totalSegments() != null) {
+            int segmentIndex = request.segment();
+            int totalSegments = request.totalSegments();
+            segment = book -> Math.floorMod(book.getId().hashCode(), totalSegments) == segmentIndex;
+        }
+
+        return read(booksById, segment, request.filterExpression(), request.limit(), request.exclusiveStartKey(), request.attributesToProject(), null, null);
+
+    }
+
+    @Override
+    public DynamoDbIndex<Book> index(String indexName) {
+
+        if (!INDEX_KEYS.containsKey(indexName)) {
+            throw new IllegalArgumentException("The books table has no index named " + indexName);
+        }
+
+        return new InMemoryIndex(indexName);
+
+    }
+
+    @Override
+    public DynamoDbEnhancedClientExtension mapperExtension() {
+        return null;
+    }
+
+    @Override
+    public TableSchema<Book> tableSchema() {
+        return BookSchema.TABLE_SCHEMA;
+    }
+
+    @Override
+    public String tableName() {
+        return "books";
+    }
+
+    @Override
+    public Key keyFrom(Book item) {
+        return Key.builder().partitionValue(item.getId()).build();
+    }
+
+    private void unindex(Book book) {
+        INDEX_KEYS.forEach((indexName, indexKey) -> {
+            String keyValue = indexKey.apply(book);
+            Map<String, Book> partition = keyValue == null ? null : partitionsByIndex.get(indexName).get(keyValue);
+            if (partition != null) {
+                partition.remove(book.getId(), book);
+            }
+        });
+    }
+
+    /**
+     * @param segment limits a parallel scan to its share of the items; null reads every item
+     */
+    private PageIterable<Book> read(NavigableMap<String, Book> items, Predicate<Book> segment, Expression filterExpression, Integer limit,
+                                    Map<String, AttributeValue> exclusiveStartKey, List<String> attributes, String indexAttribute, String indexValue) {
+
+        Predicate<Book> filter = filterExpression == null ? book -> true : FilterEvaluator.compile(filterExpression);
+        String startId = exclusiveStartKey == null || !exclusiveStartKey.containsKey("id") ? null : exclusiveStartKey.get("id").s();
+        int pageLimit = limit == null ? Integer.MAX_VALUE : limit;
+
+        return () -> new Iterator<Page<Book>>() {
+
+            private String lastId = startId;
+            private boolean done;
+
+            @Override
+            public boolean hasNext() {
+                return !done;
+            }
+
+            @Override
+            public Page<Book> next() {
+
+                if (done) {
+                    throw new NoSuchElementException();
+                }
+
+                long start = System.nanoTime();
+                simulateLatency();
+
+                Iterator<Book> remaining = (lastId == null ? items : items.tailMap(lastId, false)).values().iterator();
+                List<Book> pageItems = new ArrayList<>();
+                int evaluated = 0;
+                int pageBytes = 0;
+
+                while (evaluated < pageLimit && pageBytes < MAX_PAGE_BYTES && remaining.hasNext()) {
+
+                    Book book = remaining.next();
+                    if (segment != null && !segment.test(book)) {
+                        continue;
+                    }
+
+                    evaluated++;
+                    pageBytes += BookCopier.estimateSize(book);
+                    lastId = book.getId();
+
+                    if (filter.test(book)) {
+                        pageItems.add(BookCopier.copy(book, attributes));
+                    }
+
+                }
+
+                done = !hasMore(remaining, segment);
+                record(start, evaluated, pageItems.size(), true);
+
+                return Page.create(pageItems, done ? null : lastEvaluatedKey(lastId, indexAttribute, indexValue));
+
+            }
+
+        };
+
+    }
+
+    // DynamoDB can return a last key on the final page; the stand-in looks ahead so the last page never carries one.
+    private static boolean hasMore(Iterator<Book> remaining, Predicate<Book> segment) {
+        while (remaining.hasNext()) {
+            if (segment == null || segment.test(remaining.next())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Map<String, AttributeValue> lastEvaluatedKey(String id, String indexAttribute, String indexValue) {
+
+        Map<String, AttributeValue> key = new HashMap<>();
+        key.put("id", AttributeValue.builder().s(id).build());
+
+        if (indexAttribute != null) {
+            key.put(indexAttribute, AttributeValue.builder().s(indexValue).build());
+        }
+
+        return key;
+
+    }
+
+    private void simulateLatency() {
+
+        if (callLatencyMillis <= 0) {
+            return;
+        }
+
+        try {
+            TimeUnit.MILLISECONDS.sleep(callLatencyMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+    }
+
+    private static void record(long startNanos, int scanned, int read, boolean page) {
+        Metrics.count(Metric.DYNAMO_DB_TIME, System.nanoTime() - startNanos);
+        Metrics.count(Metric.DYNAMO_DB_CALLS, 1);
+        Metrics.count(Metric.ITEMS_READ, read);
+        if (page) {
+            Metrics.count(Metric.PAGES, 1);
+            Metrics.count(Metric.ITEMS_SCANNED, scanned);
+        }
+    }
+
+    private class InMemoryIndex implements DynamoDbIndex<Book> {
+
+        private final String indexName;
+
+        private InMemoryIndex(String indexName) {
+            this.indexName = indexName;
+        }
+
+        @Override
+        public SdkIterable<Page<Book>> query(QueryEnhancedRequest request) {
+
+            Expression keyExpression = request.queryConditional().expression(BookSchema.TABLE_SCHEMA, indexName);
+            String keyAttribute = BookSchema.TABLE_SCHEMA.tableMetadata().indexPartitionKey(indexName);
+            String keyValue = keyExpression.expressionValues().values().iterator().next().s();
+
+            NavigableMap<String, Book> partition = partitionsByIndex.get(indexName).get(keyValue);
+
+            return read(partition == null ? Collections.emptyNavigableMap() : partition, null, request.filterExpression(), request.limit(),
+                        request.exclusiveStartKey(), request.attributesToProject(), keyAttribute, keyValue);
+
+        }
+
+        @Override
+        public DynamoDbEnhancedClientExtension mapperExtension() {
+            return null;
+        }
+
+        @Override
+        public TableSchema<Book> tableSchema() {
+            return BookSchema.TABLE_SCHEMA;
+        }
+
+        @Override
+        public String tableName() {
+            return "books";
+        }
+
+        @Override
+        public String indexName() {
+            return indexName;
+        }
+
+        @Override
+        public Key keyFrom(Book item) {
+            return Key.builder().partitionValue(INDEX_KEYS.get(indexName).apply(item)).build();
+        }
+
+    }
+
+}
@@ -0,0 +1,332 @@
+package com.revature.get_books.local;
+
+import com.revature.get_books.Env;
+import com.revature.get_books.LatencyHistogram;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A closed-loop load generator: each worker sends its next request as soon as the previous response has
+ * been read, cycling through a fixed list of request paths. After a warm-up it reports throughput, p50 and
+ * p99 latency, and, when it runs the server in the same JVM, the allocation rate of the server's threads
+ * along with peak heap and GC activity.
+ *
+ * <p>By default it starts a {@link LocalServer} in-process. Set <code>BOOKS_LOAD_TARGET</code> to a base URL,
+ * such as <code>http://localhost:8080</code>, to drive a server that is already running; heap and allocation
+ * figures then describe this JVM only and are left out. The response cache serves repeated paths, so set
+ * <code>BOOKS_CACHE_TTL_SECONDS=0</code> to measure the full request path. Other settings:</p>
+ *
+ * <ul>
+ *     <li><code>BOOKS_LOAD_CONCURRENCY</code>: concurrent requests, 16 by default;</li>
+ *     <li><code>BOOKS_LOAD_WARMUP_SECONDS</code> and <code>BOOKS_LOAD_DURATION_SECONDS</code>: 10 and 30 by default;</li>
+ *     <li><code>BOOKS_LOAD_PATHS</code>: request paths separated by <code>|</code>;</li>
+ *     <li><code>BOOKS_LOAD_ACCEPT_ENCODING</code>: sent as <code>Accept-Encoding</code> when set.</li>
+ * </ul>
+ *
+ * <p>Run with:</p>
+ * <pre>
+ *     mvn -P local package
+ *     BOOKS_LOCAL_BOOKS=1000000 java -Xmx2g -cp target/get-books-fx-1.0-SNAPSHOT-local.jar com.revature.get_books.local.LoadGenerator
+ * </pre>
+ */
+public class LoadGenerator {
+
+    private static final String DEFAULT_PATHS = "/books?limit=100"
+                                                + "|/books?genres=Fantasy&limit=50"
+                                                + "|/books?publisher=Manning&limit=50"
+                                                + "|/books?publisher=Penguin&genres=Horror,Mystery&limit=50"
+                                                + "|/books?fields=id,title&limit=500"
+                                                + "|/books?sort=title&limit=20";
+
+    private static final long HEAP_SAMPLE_INTERVAL_MILLIS = 10;
+
+    private final String baseUrl;
+    private final List<String> paths;
+    private final int concurrency;
+    private final String acceptEncoding;
+
+    public LoadGenerator(String baseUrl, List<String> paths, int concurrency, String acceptEncoding) {
+        this.baseUrl = baseUrl;
+        this.paths = paths;
+        this.concurrency = concurrency;
+        this.acceptEncoding = acceptEncoding;
+    }
+
+    public static void main(String[] args) throws Exception {
+
+        String target = Env.getString("BOOKS_LOAD_TARGET", null);
+        LocalServer server = null;
+
+        if (target == null) {
+            server = new LocalServer(LocalServer.createHandler(LocalServer.createTable(Env.getInt("BOOKS_LOCAL_BOOKS", 10_000))),
+                                     new ConsoleLogger(Boolean.parseBoolean(Env.getString("BOOKS_LOCAL_LOG", "false"))),
+                                     0,
+                                     Env.getInt("BOOKS_LOCAL_THREADS", 16));
+            server.start();
+            target = "http://localhost:" + server.port();
+        }
+
+        LoadGenerator generator = new LoadGenerator(target,
+                                                    Arrays.asList(Env.getString("BOOKS_LOAD_PATHS", DEFAULT_PATHS).split("\\|")),
+                                                    Env.getInt("BOOKS_LOAD_CONCURRENCY", 16),
+                                                    Env.getString("BOOKS_LOAD_ACCEPT_ENCODING", null));
+
+        try {
+            Report report = generator.run(TimeUnit.SECONDS.toMillis(Env.getInt("BOOKS_LOAD_WARMUP_SECONDS", 10)),
+                                          TimeUnit.SECONDS.toMillis(Env.getInt("BOOKS_LOAD_DURATION_SECONDS", 30)),
+                                          server != null);
+            System.out.println(report);
+        } finally {
+            if (server != null) {
+                server.stop();
+            }
+        }
+
+    }
+
+    /**
+     * @param serverInProcess whether the server runs in this JVM, so that heap and allocation describe it
+     */
+    public Report run(long warmupMillis, long durationMillis, boolean serverInProcess) throws InterruptedException {
+
+        System.out.println("Driving " + baseUrl + " with " + concurrency + " concurrent requests over " + paths.size() + " paths: "
+                           + warmupMillis / 1000 + " s warm-up, " + durationMillis / 1000 + " s measured");
+
+        LatencyHistogram latencyMicros = new LatencyHistogram();
+        AtomicLong errors = new AtomicLong();
+        AtomicLong responseBytes = new AtomicLong();
+
+        long measureFrom = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(warmupMillis);
+        long measureUntil = measureFrom + TimeUnit.MILLISECONDS.toNanos(durationMillis);
+
+        // The load threads, and this one, are left out of the allocation figures.
+        Set<Long> loadThreadIds = ConcurrentHashMap.newKeySet();
+        loadThreadIds.add(Thread.currentThread().getId());
+
+        AtomicInteger workerCount = new AtomicInteger();
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency, runnable -> {
+            Thread worker = new Thread(runnable, "books-load-" + workerCount.incrementAndGet());
+            worker.setDaemon(true);
+            loadThreadIds.add(worker.getId());
+            return worker;
+        });
+
+        for (int worker = 0; worker < concurrency; worker++) {
+            int firstPath = worker;
+            workers.execute(() -> {
+                byte[] buffer = new byte[64 * 1024];
+                for (int request = firstPath; System.nanoTime() < measureUntil; request++) {
+                    long start = System.nanoTime();
+                    long bytes = send(paths.get(request % paths.size()), buffer);
+                    long end = System.nanoTime();
+                    if (start >= measureFrom && end <= measureUntil) {
+                        if (bytes < 0) {
+                            errors.incrementAndGet();
+                        } else {
+                            latencyMicros.record((end - start) / 1000);
+                            responseBytes.addAndGet(bytes);
+                        }
+                    }
+                }
+            });
+        }
+
+        TimeUnit.NANOSECONDS.sleep(Math.max(0, measureFrom - System.nanoTime()));
+
+        HeapActivity heap = null;
+
+        if (serverInProcess) {
+
+            HeapSample before = HeapSample.take(loadThreadIds);
+            MemoryMXBean memoryBean = ManagementFactory.getMemoryMXBean();
+            long peakHeapBytes = 0;
+
+            for (long remaining = measureUntil - System.nanoTime(); remaining > 0; remaining = measureUntil - System.nanoTime()) {
+                peakHeapBytes = Math.max(peakHeapBytes, memoryBean.getHeapMemoryUsage().getUsed());
+                TimeUnit.NANOSECONDS.sleep(Math.min(remaining, TimeUnit.MILLISECONDS.toNanos(HEAP_SAMPLE_INTERVAL_MILLIS)));
+            }
+
+            heap = new HeapActivity(before, HeapSample.take(loadThreadIds), peakHeapBytes);
+
+        } else {
+            TimeUnit.NANOSECONDS.sleep(Math.max(0, measureUntil - System.nanoTime()));
+        }
+
+        workers.shutdown();
+        workers.awaitTermination(30, TimeUnit.SECONDS);
+
+        return new Report(latencyMicros, errors.get(), responseBytes.get(), durationMillis, heap);
+
+    }
+
+    /**
+     * @return the size of the response body, or -1 when the request failed or was answered with an error
+     */
+    private long send(String path, byte[] buffer) {
+
+        HttpURLConnection connection = null;
+
+        try {
+
+            connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+            if (acceptEncoding != null) {
+                connection.setRequestProperty("Accept-Encoding", acceptEncoding);
+            }
+
+            int status = connection.getResponseCode();
+            long bytes = 0;
+
+            // Reading the body to the end, even of an error, lets the connection be reused.
+            try (InputStream body = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+                if (body != null) {
+                    for (int read = body.read(buffer); read >= 0; read = body.read(buffer)) {
+                        bytes += read;
+                    }
+                }
+            }
+
+            return status < 400 ? bytes : -1;
+
+        } catch (IOException e) {
+            if (connection != null) {
+                connection.disconnect();
+            }
+            return -1;
+        }
+
+    }
+
+    /**
+     * Per-thread allocation and GC totals at one point in time.
+     */
+    private static class HeapSample {
+
+        private final Map<Long, Long> allocatedBytesByThread;
+        private final long gcCount;
+        private final long gcMillis;
+
+        private HeapSample(Map<Long, Long> allocatedBytesByThread, long gcCount, long gcMillis) {
+            this.allocatedBytesByThread = allocatedBytesByThread;
+            this.gcCount = gcCount;
+            this.gcMillis = gcMillis;
+        }
+
+        private static HeapSample take(Set<Long> excludedThreadIds) {
+
+            com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+            long[] threadIds = threadBean.getAllThreadIds();
+            long[] allocatedBytes = threadBean.getThreadAllocatedBytes(threadIds);
+
+            Map<Long, Long> allocatedBytesByThread = new HashMap<>();
+            for (int i = 0; i < threadIds.length; i++) {
+                if (allocatedBytes[i] >= 0 && !excludedThreadIds.contains(threadIds[i])) {
+                    allocatedBytesByThread.put(threadIds[i], allocatedBytes[i]);
+                }
+            }
+
+            long gcCount = 0;
+            long gcMillis = 0;
+            for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+                gcCount += Math.max(0, collector.getCollectionCount());
+                gcMillis += Math.max(0, collector.getCollectionTime());
+            }
+
+            return new HeapSample(allocatedBytesByThread, gcCount, gcMillis);
+
+        }
+
+    }
+
+    /**
+     * Heap activity over the measured window. Allocation counts every thread in the JVM except the load
+     * generator's, so it covers the server's request threads and the pools they hand work to; a thread that
+     * exits before the window ends drops out. Peak heap is the highest heap use seen by sampling every
+     * {@value #HEAP_SAMPLE_INTERVAL_MILLIS} ms, so it can miss a spike between samples. GC covers the whole JVM.
+     */
+    private static class HeapActivity {
+
+        private final long allocatedBytes;
+        private final long peakHeapBytes;
+        private final long gcCount;
+        private final long gcMillis;
+
+        private HeapActivity(HeapSample before, HeapSample after, long peakHeapBytes) {
+
+            long allocatedBytes = 0;
+            for (Map.Entry<Long, Long> thread : after.allocatedBytesByThread.entrySet()) {
+                allocatedBytes += Math.max(0, thread.getValue() - before.allocatedBytesByThread.getOrDefault(thread.getKey(), 0L));
+            }
+
+            this.allocatedBytes = allocatedBytes;
+            this.peakHeapBytes = peakHeapBytes;
+            this.gcCount = after.gcCount - before.gcCount;
+            this.gcMillis = after.gcMillis - before.gcMillis;
+
+        }
+
+    }
+
+    public static class Report {
+
+        private final LatencyHistogram latencyMicros;
+        private final long errors;
+        private final long responseBytes;
+        private final long durationMillis;
+        private final HeapActivity heap;
+
+        private Report(LatencyHistogram latencyMicros, long errors, long responseBytes, long durationMillis, HeapActivity heap) {
+            this.latencyMicros = latencyMicros;
+            this.errors = errors;
+            this.responseBytes = responseBytes;
+            this.durationMillis = durationMillis;
+            this.heap = heap;
+        }
+
+        public double throughput() {
+            return latencyMicros.count() * 1000.0 / durationMillis;
+        }
+
+        public long p50Micros() {
+            return latencyMicros.percentile(50);
+        }
+
+        public long p99Micros() {
+            return latencyMicros.percentile(99);
+        }
+
+        @Override
+        public String toString() {
+
+            long requests = latencyMicros.count();
+            StringBuilder report = new StringBuilder();
+
+            report.append(String.format("requests         %d ok, %d failed%n", requests, errors));
+            report.append(String.format("throughput       %.1f req/s%n", throughput()));
+            report.append(String.format("latency          p50 %.2f ms, p99 %.2f ms, max %.2f ms%n", p50Micros() / 1000.0, p99Micros() / 1000.0, latencyMicros.percentile(100) / 1000.0));
+            report.append(String.format("response bytes   %.1f KB/request%n", requests == 0 ? 0 : responseBytes / 1024.0 / requests));
+
+            if (heap != null) {
+                double megabytes = heap.allocatedBytes / (1024.0 * 1024.0);
+                report.append(String.format("allocation       %.1f MB/s, %.1f KB/request (all but the load threads)%n",
+                                            megabytes * 1000 / durationMillis, requests == 0 ? 0 : heap.allocatedBytes / 1024.0 / requests));
+                report.append(String.format("peak heap        %.1f MB (sampled every %d ms)%n", heap.peakHeapBytes / (1024.0 * 1024.0), HEAP_SAMPLE_INTERVAL_MILLIS));
+                report.append(String.format("gc               %d collections, %d ms%n", heap.gcCount, heap.gcMillis));
+            }
+
+            return report.toString();
+
+        }
+
+    }
+
+}
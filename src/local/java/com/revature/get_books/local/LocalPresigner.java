@@ -0,0 +1,23 @@
+package com.revature.get_books.local;
+
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+/**
+ * A real S3Presigner with fixed credentials. Presigning is pure local SigV4 computation, so this measures
+ * the actual signing cost without any AWS account or network access.
+ */
+public class LocalPresigner {
+
+    private LocalPresigner() { }
+
+    public static S3Presigner create() {
+        return S3Presigner.builder()
+                          .region(Region.US_WEST_1)
+                          .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create("AKIABENCHMARK", "benchmark-secret")))
+                          .build();
+    }
+
+}
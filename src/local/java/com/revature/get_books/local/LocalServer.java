@@ -0,0 +1,256 @@
+package com.revature.get_books.local;
+
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.revature.get_books.*;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Serves GetBooksHandler over plain HTTP, translating each request into the API Gateway proxy event the
+ * function receives in production and the proxy response back into HTTP. The handler is backed by an
+ * {@link InMemoryBookTable} seeded with a {@link SyntheticCatalog} and a {@link LocalPresigner}, so no AWS
+ * account or network access is needed.
+ *
+ * <p>Unlike Lambda, one handler instance serves many requests at once here, one per worker thread.
+ * Everything else reads the function's usual environment variables (response cache, compression,
+ * coalescing, search index and catalog snapshot paths, read budget, hedging), plus these local-only ones:</p>
+ *
+ * <ul>
+ *     <li><code>BOOKS_LOCAL_PORT</code>: port to listen on, 8080 by default;</li>
+ *     <li><code>BOOKS_LOCAL_BOOKS</code>: size of the synthetic catalog, 10,000 by default;</li>
+ *     <li><code>BOOKS_LOCAL_THREADS</code>: request worker threads, 16 by default;</li>
+ *     <li><code>BOOKS_LOCAL_DYNAMO_DB_LATENCY_MILLIS</code>: simulated latency of each table call, 0 by default;</li>
+ *     <li><code>BOOKS_LOCAL_CHANGE_FILE</code>: a {@link FileChangeFeed} file whose changes are applied to the
+ *         table and fed to the handler's change overlay, in place of a DynamoDB stream;</li>
+ *     <li><code>BOOKS_LOCAL_LOG</code>: set to true to print handler logs and metric lines.</li>
+ * </ul>
+ *
+ * <p>Run with:</p>
+ * <pre>
+ *     mvn -P local package
+ *     java -jar target/get-books-fx-1.0-SNAPSHOT-local.jar
+ *     curl 'http://localhost:8080/books?genres=Fantasy&amp;limit=10'
+ * </pre>
+ */
+public class LocalServer {
+
+    // The body API Gateway returns when the function throws instead of returning a response.
+    private static final String INTERNAL_ERROR_BODY = "{\"message\": \"Internal server error\"}";
+
+    private final GetBooksHandler handler;
+    private final LambdaLogger logger;
+    private final HttpServer server;
+    private final ExecutorService workers;
+
+    public LocalServer(GetBooksHandler handler, LambdaLogger logger, int port, int threads) throws IOException {
+
+        this.handler = handler;
+        this.logger = logger;
+        this.server = HttpServer.create(new InetSocketAddress(port), 0);
+
+        AtomicInteger workerCount = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread worker = new Thread(runnable, "books-local-http-" + workerCount.incrementAndGet());
+            worker.setDaemon(true);
+            return worker;
+        });
+
+        server.createContext("/", this::handle);
+        server.setExecutor(workers);
+
+    }
+
+    public static void main(String[] args) throws IOException {
+
+        int bookCount = Env.getInt("BOOKS_LOCAL_BOOKS", 10_000);
+        LocalServer server = new LocalServer(createHandler(createTable(bookCount)),
+                                             new ConsoleLogger(Boolean.parseBoolean(Env.getString("BOOKS_LOCAL_LOG", "false"))),
+                                             Env.getInt("BOOKS_LOCAL_PORT", 8080),
+                                             Env.getInt("BOOKS_LOCAL_THREADS", 16));
+
+        server.start();
+        System.out.println("Serving " + bookCount + " synthetic books at http://localhost:" + server.port() + "/books");
+
+    }
+
+    public static InMemoryBookTable createTable(int bookCount) {
+
+        long start = System.nanoTime();
+
+        InMemoryBookTable bookTable = new InMemoryBookTable(Env.getInt("BOOKS_LOCAL_DYNAMO_DB_LATENCY_MILLIS", 0));
+        bookTable.putItems(SyntheticCatalog.books(bookCount));
+
+        System.out.println("Seeded " + bookCount + " books in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+
+        return bookTable;
+
+    }
+
+    /**
+     * Wires the handler the way its default constructor does, with the in-memory table and local presigner
+     * in place of the AWS clients. Lookups by id use one <code>GetItem</code> per id, as the batch loader
+     * needs the low-level DynamoDB client, and ETags are off since there is no catalog version table.
+     */
+    public static GetBooksHandler createHandler(InMemoryBookTable bookTable) {
+
+        BookRepository bookRepo = new BookRepository(bookTable,
+                                                     new BookQueryPlanner(),
+                                                     Env.getInt("BOOKS_SCAN_SEGMENTS", 1),
+                                                     null,
+                                                     SearchIndex.fromEnv(),
+                                                     ReadBudget.fromEnv(),
+                                                     CatalogSnapshot.fromEnv(),
+                                                     createChanges(bookTable),
+                                                     HedgedRequests.fromEnv());
+
+        S3Presigner presigner = LocalPresigner.create();
+        BookService bookService = new BookService(presigner,
+                                                  new ExpiringLruCache<>(Env.getInt("BOOKS_PRESIGN_CACHE_MAX_ENTRIES", 10_000)),
+                                                  Env.getInt("BOOKS_MAP_PARALLELISM", Runtime.getRuntime().availableProcessors()));
+
+        return new GetBooksHandler(bookRepo,
+                                   bookService,
+                                   new ExpiringLruCache<>(Env.getInt("BOOKS_CACHE_MAX_ENTRIES", 64)),
+                                   Env.getInt("BOOKS_CACHE_TTL_SECONDS", 60) * 1000L,
+                                   null,
+                                   new ResponseCompression(),
+                                   new SingleFlight<>(Env.getInt("BOOKS_COALESCE_MAX_WAITERS", 64), Env.getInt("BOOKS_COALESCE_TIMEOUT_MILLIS", 5_000)));
+
+    }
+
+    /**
+     * @return changes read from <code>BOOKS_LOCAL_CHANGE_FILE</code>, each applied to the table as it is read,
+     *         or null when no file is configured
+     */
+    public static CatalogChanges createChanges(InMemoryBookTable bookTable) {
+
+        String changeFile = Env.getString("BOOKS_LOCAL_CHANGE_FILE", null);
+
+        if (changeFile == null) {
+            return null;
+        }
+
+        FileChangeFeed fileFeed = new FileChangeFeed(Paths.get(changeFile));
+        ChangeFeed feed = logger -> {
+            List<BookChange> changes = fileFeed.poll(logger);
+            changes.forEach(bookTable::apply);
+            return changes;
+        };
+
+        // Every change since startup is in the file, so the overlay is complete from the epoch on.
+        return new CatalogChanges(feed,
+                                  Env.getInt("BOOKS_CHANGE_FEED_POLL_MILLIS", 1000),
+                                  Env.getInt("BOOKS_CHANGE_OVERLAY_MAX_ENTRIES", 50_000),
+                                  0,
+                                  System::currentTimeMillis);
+
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+        workers.shutdownNow();
+    }
+
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+
+        try {
+
+            APIGatewayProxyResponseEvent responseEvent;
+
+            try {
+                responseEvent = handler.handleRequest(toRequestEvent(exchange), new LocalContext(logger));
+            } catch (RuntimeException e) {
+                logger.log("Handler failed: " + e);
+                responseEvent = new APIGatewayProxyResponseEvent().withStatusCode(502).withBody(INTERNAL_ERROR_BODY);
+            }
+
+            writeResponse(exchange, responseEvent);
+
+        } finally {
+            exchange.close();
+        }
+
+    }
+
+    private static APIGatewayProxyRequestEvent toRequestEvent(HttpExchange exchange) throws UnsupportedEncodingException {
+
+        APIGatewayProxyRequestEvent requestEvent = new APIGatewayProxyRequestEvent();
+        requestEvent.setHttpMethod(exchange.getRequestMethod());
+        requestEvent.setPath(exchange.getRequestURI().getPath());
+
+        // API Gateway passes a null map, not an empty one, when there is no query string.
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query != null && !query.isEmpty()) {
+            Map<String, String> queryParams = new LinkedHashMap<>();
+            for (String pair : query.split("&")) {
+                int separator = pair.indexOf('=');
+                String name = separator < 0 ? pair : pair.substring(0, separator);
+                String value = separator < 0 ? "" : pair.substring(separator + 1);
+                queryParams.put(URLDecoder.decode(name, "UTF-8"), URLDecoder.decode(value, "UTF-8"));
+            }
+            requestEvent.setQueryStringParameters(queryParams);
+        }
+
+        Map<String, String> headers = new HashMap<>();
+        exchange.getRequestHeaders().forEach((name, values) -> headers.put(name, String.join(",", values)));
+        requestEvent.setHeaders(headers);
+
+        return requestEvent;
+
+    }
+
+    private static void writeResponse(HttpExchange exchange, APIGatewayProxyResponseEvent responseEvent) throws IOException {
+
+        if (responseEvent.getHeaders() != null) {
+            responseEvent.getHeaders().forEach((name, value) -> exchange.getResponseHeaders().set(name, value));
+        }
+
+        if (!exchange.getResponseHeaders().containsKey("Content-Type")) {
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+        }
+
+        String body = responseEvent.getBody();
+
+        if (body == null) {
+            exchange.sendResponseHeaders(responseEvent.getStatusCode(), -1);
+            return;
+        }
+
+        byte[] bodyBytes = Boolean.TRUE.equals(responseEvent.getIsBase64Encoded())
+                           ? Base64.getDecoder().decode(body)
+                           : body.getBytes(StandardCharsets.UTF_8);
+
+        // A length of zero would mean a chunked body of unknown length; -1 means no body at all.
+        exchange.sendResponseHeaders(responseEvent.getStatusCode(), bodyBytes.length == 0 ? -1 : bodyBytes.length);
+
+        try (OutputStream responseBody = exchange.getResponseBody()) {
+            responseBody.write(bodyBytes);
+        }
+
+    }
+
+}
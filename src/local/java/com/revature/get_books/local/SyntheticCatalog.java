@@ -0,0 +1,57 @@
+package com.revature.get_books.local;
+
+import com.revature.get_books.Book;
+import software.amazon.awssdk.enhanced.dynamodb.model.Page;
+import software.amazon.awssdk.enhanced.dynamodb.model.PageIterable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates a deterministic catalog of books so that benchmark and load-test runs are comparable across builds.
+ */
+public class SyntheticCatalog {
+
+    public static final long SEED = 20210726L;
+
+    private static final String[] PUBLISHERS = { "Revature", "Penguin", "O'Reilly", "Manning", "No Starch", "Apress" };
+    private static final String[] GENRES = { "Fiction", "Fantasy", "Mystery", "Science", "History", "Programming", "Biography", "Horror" };
+
+    private SyntheticCatalog() { }
+
+    public static List<Book> books(int count) {
+
+        Random random = new Random(SEED);
+        List<Book> books = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            Book book = new Book();
+            book.setId(String.format("book-%08d", i));
+            book.setIsbn(String.format("978-%010d", random.nextInt(Integer.MAX_VALUE)));
+            book.setTitle("Synthetic Title " + Integer.toString(random.nextInt(1_000_000), 36) + " " + i);
+            book.setPublisher(PUBLISHERS[random.nextInt(PUBLISHERS.length)]);
+            book.setAuthors(Arrays.asList("Author " + random.nextInt(5_000), "Author " + random.nextInt(5_000)));
+            book.setGenres(Arrays.asList(GENRES[random.nextInt(GENRES.length)], GENRES[random.nextInt(GENRES.length)]));
+            book.setImageKey("covers/" + book.getId() + ".jpg");
+            books.add(book);
+        }
+
+        return books;
+
+    }
+
+    public static PageIterable<Book> pages(List<Book> books, int pageSize) {
+
+        List<Page<Book>> pages = new ArrayList<>();
+
+        for (int from = 0; from < books.size(); from += pageSize) {
+            pages.add(Page.create(books.subList(from, Math.min(from + pageSize, books.size()))));
+        }
+
+        return pages::iterator;
+
+    }
+
+}
@@ -0,0 +1,120 @@
+package com.revature.get_books.local;
+
+import com.revature.get_books.Book;
+import com.revature.get_books.FilterExpressionCompiler;
+import com.revature.get_books.stubs.TestLogger;
+import org.junit.jupiter.api.*;
+import software.amazon.awssdk.enhanced.dynamodb.Expression;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FilterEvaluatorTestSuite {
+
+    static TestLogger testLogger;
+
+    FilterExpressionCompiler compiler;
+
+    @BeforeAll
+    public static void suiteSetUp() {
+        testLogger = new TestLogger();
+    }
+
+    @BeforeEach
+    public void caseSetUp() {
+        compiler = new FilterExpressionCompiler();
+    }
+
+    @AfterEach
+    public void caseTearDown() {
+        compiler = null;
+    }
+
+    @AfterAll
+    public static void suiteCleanUp() {
+        testLogger.close();
+    }
+
+    @Test
+    public void given_compiledQueryParams_compile_matchesTheBooksTheyDescribe() {
+
+        // Arrange
+        Map<String, String> stubbedQueryParams = new HashMap<>();
+        stubbedQueryParams.put("title", "Test Book");
+        stubbedQueryParams.put("authors", "Test Author 1,Test Author 2");
+        Expression filterExpression = compiler.compile(stubbedQueryParams, testLogger);
+
+        // Act
+        Predicate<Book> actualFilter = FilterEvaluator.compile(filterExpression);
+
+        // Assert
+        assertTrue(actualFilter.test(book("Test Book", "Test Author 2")));
+        assertFalse(actualFilter.test(book("Test Book", "Test Author 3")));
+        assertFalse(actualFilter.test(book("Other Book", "Test Author 1")));
+
+    }
+
+    @Test
+    public void given_namePlaceholdersAndGroups_compile_resolvesThemAtEvaluation() {
+
+        // Arrange
+        Map<String, String> names = Collections.singletonMap("#t", "title");
+        Map<String, AttributeValue> values = new HashMap<>();
+        values.put(":t", AttributeValue.builder().s("Test Book").build());
+        values.put(":a", AttributeValue.builder().s("Test Author 1").build());
+        Expression filterExpression = Expression.builder()
+                                                .expression("(#t = :t or contains(authors, :a)) AND contains(title, :t)")
+                                                .expressionNames(names)
+                                                .expressionValues(values)
+                                                .build();
+
+        // Act
+        Predicate<Book> actualFilter = FilterEvaluator.compile(filterExpression);
+
+        // Assert
+        assertTrue(actualFilter.test(book("Test Book", "Test Author 9")));
+        assertFalse(actualFilter.test(book("Other Book", "Test Author 1")));
+
+    }
+
+    @Test
+    public void given_unsupportedGrammar_compile_rejectsTheExpression() {
+
+        // Arrange
+        Expression filterExpression = Expression.builder()
+                                                .expression("title <> :t")
+                                                .expressionValues(Collections.singletonMap(":t", AttributeValue.builder().s("Test Book").build()))
+                                                .build();
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> FilterEvaluator.compile(filterExpression));
+
+    }
+
+    @Test
+    public void given_unboundPlaceholder_test_rejectsTheExpression() {
+
+        // Arrange
+        Expression filterExpression = Expression.builder().expression("title = :missing").build();
+        Predicate<Book> filter = FilterEvaluator.compile(filterExpression);
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> filter.test(book("Test Book", "Test Author 1")));
+
+    }
+
+    private static Book book(String title, String... authors) {
+        Book book = new Book();
+        book.setId(title + "-" + authors[0]);
+        book.setTitle(title);
+        book.setAuthors(Arrays.asList(authors));
+        return book;
+    }
+
+}
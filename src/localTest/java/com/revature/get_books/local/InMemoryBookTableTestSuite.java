@@ -0,0 +1,118 @@
+package com.revature.get_books.local;
+
+import com.revature.get_books.Book;
+import org.junit.jupiter.api.*;
+import software.amazon.awssdk.enhanced.dynamodb.Expression;
+import software.amazon.awssdk.enhanced.dynamodb.Key;
+import software.amazon.awssdk.enhanced.dynamodb.model.Page;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryConditional;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryEnhancedRequest;
+import software.amazon.awssdk.enhanced.dynamodb.model.ScanEnhancedRequest;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InMemoryBookTableTestSuite {
+
+    InMemoryBookTable sut;
+
+    @BeforeEach
+    public void caseSetUp() {
+        sut = new InMemoryBookTable();
+        sut.putItems(Arrays.asList(book("a", "Manning"), book("b", "Penguin"), book("c", "Manning"), book("d", "Manning")));
+    }
+
+    @AfterEach
+    public void caseTearDown() {
+        sut = null;
+    }
+
+    @Test
+    public void given_limitAndFilter_scan_evaluatesLimitItemsPerPageAndFiltersAfterwards() {
+
+        // Arrange
+        Expression filterExpression = Expression.builder()
+                                                .expression("publisher = :publisher")
+                                                .expressionValues(Collections.singletonMap(":publisher", AttributeValue.builder().s("Manning").build()))
+                                                .build();
+
+        // Act
+        List<Page<Book>> actualPages = new ArrayList<>();
+        sut.scan(ScanEnhancedRequest.builder().limit(2).filterExpression(filterExpression).build()).forEach(actualPages::add);
+
+        // Assert
+        assertEquals(2, actualPages.size());
+        assertEquals(Collections.singletonList("a"), ids(actualPages.get(0)));
+        assertEquals("b", actualPages.get(0).lastEvaluatedKey().get("id").s());
+        assertEquals(Arrays.asList("c", "d"), ids(actualPages.get(1)));
+        assertNull(actualPages.get(1).lastEvaluatedKey());
+
+    }
+
+    @Test
+    public void given_startKeyAndProjection_scan_resumesAfterTheKeyWithOnlyTheProjectedAttributes() {
+
+        // Act
+        List<Book> actualBooks = new ArrayList<>();
+        sut.scan(ScanEnhancedRequest.builder()
+                                    .exclusiveStartKey(Collections.singletonMap("id", AttributeValue.builder().s("b").build()))
+                                    .attributesToProject("id")
+                                    .build())
+           .items()
+           .forEach(actualBooks::add);
+
+        // Assert
+        assertEquals(Arrays.asList("c", "d"), actualBooks.stream().map(Book::getId).collect(Collectors.toList()));
+        assertNull(actualBooks.get(0).getPublisher());
+
+    }
+
+    @Test
+    public void given_publisherIndex_query_readsOnlyThatPartitionInIdOrder() {
+
+        // Act
+        List<String> actualIds = new ArrayList<>();
+        sut.index(Book.PUBLISHER_INDEX)
+           .query(QueryEnhancedRequest.builder().queryConditional(QueryConditional.keyEqualTo(Key.builder().partitionValue("Manning").build())).build())
+           .forEach(page -> actualIds.addAll(ids(page)));
+
+        // Assert
+        assertEquals(Arrays.asList("a", "c", "d"), actualIds);
+
+    }
+
+    @Test
+    public void given_replacedAndDeletedBooks_getItem_returnsCopiesOfTheCurrentItems() {
+
+        // Arrange
+        sut.putItem(book("a", "Penguin"));
+        sut.deleteItem("c");
+
+        // Act
+        Book actualReplaced = sut.getItem(Key.builder().partitionValue("a").build());
+        actualReplaced.setPublisher("Changed");
+        Book actualDeleted = sut.getItem(Key.builder().partitionValue("c").build());
+
+        // Assert
+        assertEquals("Penguin", sut.getItem(Key.builder().partitionValue("a").build()).getPublisher());
+        assertNull(actualDeleted);
+        assertEquals(3, sut.size());
+
+    }
+
+    private static Book book(String id, String publisher) {
+        Book book = new Book();
+        book.setId(id);
+        book.setTitle("Title " + id);
+        book.setPublisher(publisher);
+        return book;
+    }
+
+    private static List<String> ids(Page<Book> page) {
+        return page.items().stream().map(Book::getId).collect(Collectors.toList());
+    }
+
+}
@@ -0,0 +1,36 @@
+package com.revature.get_books;
+
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbAsyncTable;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedAsyncClient;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+
+/**
+ * Container-wide asynchronous DynamoDB clients for the async read engine. Kept apart from {@link AwsClients}
+ * so that the Netty event loop is only started in containers configured with <code>BOOKS_ENGINE=async</code>.
+ */
+public class AsyncAwsClients {
+
+    public static final DynamoDbAsyncClient DYNAMO_DB;
+    public static final DynamoDbAsyncTable<Book> BOOK_TABLE;
+
+    static {
+
+        DYNAMO_DB = StartupTimings.time("dynamoDbAsyncClient", () -> DynamoDbAsyncClient.builder()
+                                                                                          .httpClientBuilder(NettyNioAsyncHttpClient.builder()
+                                                                                                                                    .maxConcurrency(Env.getInt("BOOKS_ASYNC_MAX_CONCURRENCY", 16)))
+                                                                                          .region(AwsClients.DYNAMO_DB_REGION)
+                                                                                          .credentialsProvider(AwsClients.CREDENTIALS)
+                                                                                          .overrideConfiguration(AwsClients.dynamoDbConfiguration())
+                                                                                          .build());
+
+        BOOK_TABLE = StartupTimings.time("asyncBookTable", () -> DynamoDbEnhancedAsyncClient.builder()
+                                                                                            .dynamoDbClient(new MetricsCapturingDynamoDbAsyncClient(DYNAMO_DB))
+                                                                                            .build()
+                                                                                            .table(AwsClients.BOOKS_TABLE, BookSchema.TABLE_SCHEMA));
+
+    }
+
+    private AsyncAwsClients() { }
+
+}
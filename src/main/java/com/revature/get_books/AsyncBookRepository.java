@@ -0,0 +1,60 @@
+package com.revature.get_books;
+
+import software.amazon.awssdk.core.async.SdkPublisher;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbAsyncTable;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.enhanced.dynamodb.model.*;
+
+/**
+ * A {@link BookRepository} whose multi-page reads (the full catalog, each scan segment, and searches) go
+ * through the asynchronous enhanced client. Pages are consumed through a {@link PrefetchingPageIterable}, so
+ * DynamoDB is already fetching the next page while the caller maps the current one. Requests are built and
+ * planned by the base repository; only their execution differs. Single-page reads are inherited unchanged,
+ * as there is nothing for them to overlap with.
+ */
+public class AsyncBookRepository extends BookRepository {
+
+    private final DynamoDbAsyncTable<Book> asyncBookTable;
+    private final int prefetch;
+    private final long pageTimeoutMillis;
+
+    public AsyncBookRepository() {
+        this(AwsClients.BOOK_TABLE, AsyncAwsClients.BOOK_TABLE, Env.getInt("BOOKS_ASYNC_PREFETCH_PAGES", 2), Env.getInt("BOOKS_ASYNC_PAGE_TIMEOUT_MILLIS", 10_000),
+             Env.getInt("BOOKS_SCAN_SEGMENTS", 1), new BookBatchLoader(), SearchIndex.fromEnv(), ReadBudget.fromEnv(), CatalogSnapshot.fromEnv(), CatalogChanges.fromEnv());
+    }
+
+    public AsyncBookRepository(DynamoDbTable<Book> bookTable, DynamoDbAsyncTable<Book> asyncBookTable, int prefetch, long pageTimeoutMillis) {
+        this(bookTable, asyncBookTable, prefetch, pageTimeoutMillis, null, null, ReadBudget.UNLIMITED, null);
+    }
+
+    public AsyncBookRepository(DynamoDbTable<Book> bookTable, DynamoDbAsyncTable<Book> asyncBookTable, int prefetch, long pageTimeoutMillis,
+                               BookBatchLoader batchLoader, SearchIndex searchIndex, ReadBudget readBudget, CatalogSnapshot catalogSnapshot) {
+        this(bookTable, asyncBookTable, prefetch, pageTimeoutMillis, 1, batchLoader, searchIndex, readBudget, catalogSnapshot, null);
+    }
+
+    /**
+     * @param scanSegments how many segments a full-catalog scan is split into, each prefetched on its own
+     */
+    public AsyncBookRepository(DynamoDbTable<Book> bookTable, DynamoDbAsyncTable<Book> asyncBookTable, int prefetch, long pageTimeoutMillis, int scanSegments,
+                               BookBatchLoader batchLoader, SearchIndex searchIndex, ReadBudget readBudget, CatalogSnapshot catalogSnapshot, CatalogChanges catalogChanges) {
+        super(bookTable, new BookQueryPlanner(), scanSegments, batchLoader, searchIndex, readBudget, catalogSnapshot, catalogChanges);
+        this.asyncBookTable = asyncBookTable;
+        this.prefetch = prefetch;
+        this.pageTimeoutMillis = pageTimeoutMillis;
+    }
+
+    @Override
+    protected PageIterable<Book> scanAll(ScanEnhancedRequest request) {
+        return prefetching(asyncBookTable.scan(request));
+    }
+
+    @Override
+    protected PageIterable<Book> queryAll(String indexName, QueryEnhancedRequest request) {
+        return prefetching(asyncBookTable.index(indexName).query(request));
+    }
+
+    private PageIterable<Book> prefetching(SdkPublisher<Page<Book>> pages) {
+        return new PrefetchingPageIterable<>(pages, prefetch, pageTimeoutMillis);
+    }
+
+}
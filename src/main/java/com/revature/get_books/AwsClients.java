@@ -0,0 +1,107 @@
+package com.revature.get_books;
+
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.EnvironmentVariableCredentialsProvider;
+import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
+import software.amazon.awssdk.core.retry.RetryMode;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.enhanced.dynamodb.Key;
+import software.amazon.awssdk.http.apache.ApacheHttpClient;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
+
+import java.util.Collections;
+import java.util.function.Supplier;
+
+/**
+ * Container-wide AWS clients, built during static initialization so that the cost lands in the Lambda init
+ * phase rather than on the first request. Region and credentials are pinned from the variables the Lambda
+ * runtime sets to skip the SDK's discovery chains, and when running inside Lambda the DynamoDB connection,
+ * the presigner and the JSON writer are exercised once so their lazy setup is done before traffic arrives.
+ */
+public class AwsClients {
+
+    public static final String BOOKS_TABLE = "books";
+    public static final Region IMAGE_BUCKET_REGION = Region.US_WEST_1;
+
+    static final Region DYNAMO_DB_REGION = Region.of(Env.getString("AWS_REGION", IMAGE_BUCKET_REGION.id()));
+    static final AwsCredentialsProvider CREDENTIALS = StartupTimings.time("credentialsProvider", AwsClients::credentialsProvider);
+
+    public static final DynamoDbClient DYNAMO_DB;
+    public static final DynamoDbTable<Book> BOOK_TABLE;
+    public static final S3Presigner PRESIGNER;
+
+    static {
+
+        long start = System.nanoTime();
+
+        DYNAMO_DB = StartupTimings.time("dynamoDbClient", () -> DynamoDbClient.builder()
+                                                                                .httpClient(ApacheHttpClient.create())
+                                                                                .region(DYNAMO_DB_REGION)
+                                                                                .credentialsProvider(CREDENTIALS)
+                                                                                .overrideConfiguration(dynamoDbConfiguration())
+                                                                                .build());
+
+        BOOK_TABLE = StartupTimings.time("bookTable", () -> DynamoDbEnhancedClient.builder()
+                                                                                  .dynamoDbClient(DYNAMO_DB)
+                                                                                  .build()
+                                                                                  .table(BOOKS_TABLE, BookSchema.TABLE_SCHEMA));
+
+        PRESIGNER = StartupTimings.time("s3Presigner", () -> S3Presigner.builder()
+                                                                        .region(IMAGE_BUCKET_REGION)
+                                                                        .credentialsProvider(CREDENTIALS)
+                                                                        .build());
+
+        boolean inLambda = System.getenv("AWS_LAMBDA_FUNCTION_NAME") != null;
+        if (inLambda && Boolean.parseBoolean(Env.getString("BOOKS_STARTUP_PRIMING", "true"))) {
+            prime("primeDynamoDb", () -> BOOK_TABLE.getItem(Key.builder().partitionValue("__startup-priming__").build()));
+            prime("primePresigner", () -> PRESIGNER.presignGetObject(GetObjectPresignRequest.builder()
+                                                                                            .signatureDuration(BookService.SIGNATURE_DURATION)
+                                                                                            .getObjectRequest(GetObjectRequest.builder()
+                                                                                                                              .bucket(BookService.IMAGE_BUCKET)
+                                                                                                                              .key("__startup-priming__")
+                                                                                                                              .build())
+                                                                                            .build()));
+            prime("primeSerialization", () -> {
+                BookResponseWriter writer = new BookResponseWriter(false);
+                writer.accept(BookResponse.builder().id("").authors(Collections.emptyList()).build());
+                return writer.finish();
+            });
+        }
+
+        StartupTimings.record("staticInitTotal", (System.nanoTime() - start) / 1_000_000);
+
+    }
+
+    private AwsClients() { }
+
+    private static AwsCredentialsProvider credentialsProvider() {
+        if (System.getenv("AWS_ACCESS_KEY_ID") != null) {
+            return EnvironmentVariableCredentialsProvider.create();
+        }
+        return DefaultCredentialsProvider.create();
+    }
+
+    // Adaptive retries back off further, and rate-limit the client, while DynamoDB keeps throttling it.
+    static ClientOverrideConfiguration dynamoDbConfiguration() {
+        return ClientOverrideConfiguration.builder()
+                                          .addExecutionInterceptor(new DynamoDbMetricsInterceptor())
+                                          .retryPolicy(RetryMode.valueOf(Env.getString("BOOKS_DYNAMO_DB_RETRY_MODE", "ADAPTIVE")))
+                                          .build();
+    }
+
+    // Priming is best effort: a failure here only means the first request pays the setup cost after all.
+    private static void prime(String stage, Supplier<?> step) {
+        try {
+            StartupTimings.time(stage, step);
+        } catch (Exception e) {
+            StartupTimings.record(stage + "Failed", 0);
+        }
+    }
+
+}
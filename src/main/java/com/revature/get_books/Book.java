@@ -3,15 +3,26 @@ package com.revature.get_books;
 import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbAttribute;
 import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbBean;
 import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbPartitionKey;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbSecondaryPartitionKey;
 
 import java.lang.reflect.Field;
-import java.util.List;
+import java.lang.reflect.Modifier;
+import java.util.*;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 @DynamoDbBean
 public class Book {
 
+    public static final String ISBN_INDEX = "isbn-index";
+    public static final String PUBLISHER_INDEX = "publisher-index";
+
+    // Resolved once at class load so searches never reflect over Book on the request path.
+    private static final Map<String, Class<?>> FIELD_TYPES = Collections.unmodifiableMap(
+            Stream.of(Book.class.getDeclaredFields())
+                  .filter(field -> !Modifier.isStatic(field.getModifiers()))
+                  .collect(Collectors.toMap(Field::getName, Field::getType, (first, second) -> first, LinkedHashMap::new)));
+
     private String id;
     private String isbn;
     private String title;
@@ -30,6 +41,7 @@ public class Book {
     }
 
     @DynamoDbAttribute("isbn")
+    @DynamoDbSecondaryPartitionKey(indexNames = ISBN_INDEX)
     public String getIsbn() {
         return isbn;
     }
@@ -48,6 +60,7 @@ public class Book {
     }
 
     @DynamoDbAttribute("publisher")
+    @DynamoDbSecondaryPartitionKey(indexNames = PUBLISHER_INDEX)
     public String getPublisher() {
         return publisher;
     }
@@ -84,7 +97,11 @@ public class Book {
     }
 
     public static List<String> getFieldNameStrings() {
-        return Stream.of(Book.class.getDeclaredFields()).map(Field::getName).collect(Collectors.toList());
+        return new ArrayList<>(FIELD_TYPES.keySet());
+    }
+
+    public static Class<?> getFieldType(String fieldName) {
+        return FIELD_TYPES.get(fieldName);
     }
 
 }
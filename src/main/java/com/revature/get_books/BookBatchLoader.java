@@ -0,0 +1,211 @@
+package com.revature.get_books;
+
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.KeysAndAttributes;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fetches books by primary key through <code>BatchGetItem</code>. The ids are split into chunks of at most
+ * {@link #MAX_BATCH_KEYS} keys, the chunks are requested concurrently, and any keys DynamoDB returns as
+ * unprocessed (throttling, or the 16 MB response cap) are re-requested with capped exponential backoff and
+ * full jitter. A single id is a plain <code>GetItem</code>. Both read only the projected attributes, which the
+ * enhanced client's <code>getItem</code> cannot do.
+ */
+public class BookBatchLoader {
+
+    static final int MAX_BATCH_KEYS = 100;
+
+    private static final long BASE_BACKOFF_MILLIS = 25;
+    private static final long MAX_BACKOFF_MILLIS = 1000;
+
+    private final DynamoDbClient dynamoDb;
+    private final String tableName;
+    private final TableSchema<Book> tableSchema;
+    private final int maxAttempts;
+    private final ExecutorService batchExecutor;
+
+    public BookBatchLoader() {
+        this(AwsClients.DYNAMO_DB, AwsClients.BOOKS_TABLE, BookSchema.TABLE_SCHEMA, Env.getInt("BOOKS_BATCH_MAX_ATTEMPTS", 5), Env.getInt("BOOKS_BATCH_CONCURRENCY", 4));
+    }
+
+    public BookBatchLoader(DynamoDbClient dynamoDb, String tableName, TableSchema<Book> tableSchema, int maxAttempts, int concurrency) {
+
+        if (maxAttempts < 1 || concurrency < 1) {
+            throw new IllegalStateException("Batch attempts and concurrency must be positive, found: " + maxAttempts + ", " + concurrency);
+        }
+
+        this.dynamoDb = dynamoDb;
+        this.tableName = tableName;
+        this.tableSchema = tableSchema;
+        this.maxAttempts = maxAttempts;
+
+        AtomicInteger workerCount = new AtomicInteger();
+
+        this.batchExecutor = Executors.newFixedThreadPool(concurrency, runnable -> {
+            Thread worker = new Thread(runnable, "book-batch-get-" + workerCount.incrementAndGet());
+            worker.setDaemon(true);
+            return worker;
+        });
+
+    }
+
+    /**
+     * Returns the books found for the given (distinct) ids, keyed by id. Ids with no matching item are absent.
+     */
+    public Map<String, Book> load(List<String> ids, Projection projection, LambdaLogger logger) {
+
+        List<CompletableFuture<List<Map<String, AttributeValue>>>> batches = new ArrayList<>();
+
+        for (int from = 0; from < ids.size(); from += MAX_BATCH_KEYS) {
+            KeysAndAttributes chunk = keysAndAttributes(ids.subList(from, Math.min(from + MAX_BATCH_KEYS, ids.size())), projection);
+            batches.add(CompletableFuture.supplyAsync(Metrics.propagate(() -> loadChunk(chunk, logger)), batchExecutor));
+        }
+
+        Map<String, Book> booksById = new HashMap<>();
+
+        try {
+            for (CompletableFuture<List<Map<String, AttributeValue>>> batch : batches) {
+                for (Map<String, AttributeValue> item : batch.join()) {
+                    Book book = tableSchema.mapToItem(item);
+                    booksById.put(book.getId(), book);
+                }
+            }
+        } catch (CompletionException e) {
+            batches.forEach(batch -> batch.cancel(true));
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+
+        Log.info(logger, () -> "Batch lookup of " + ids.size() + " ids in " + batches.size() + " requests found " + booksById.size() + " books.");
+
+        return booksById;
+
+    }
+
+    /**
+     * @return the book with the given id, or null when there is none
+     */
+    public Book get(String id, Projection projection) {
+
+        GetItemRequest.Builder request = GetItemRequest.builder().tableName(tableName).key(key(id));
+
+        Map<String, String> names = projectedNames(projection);
+        if (names != null) {
+            request.projectionExpression(String.join(",", names.keySet())).expressionAttributeNames(names);
+        }
+
+        GetItemResponse response = dynamoDb.getItem(request.build());
+
+        return response.hasItem() && !response.item().isEmpty() ? tableSchema.mapToItem(response.item()) : null;
+
+    }
+
+    private List<Map<String, AttributeValue>> loadChunk(KeysAndAttributes chunk, LambdaLogger logger) {
+
+        List<Map<String, AttributeValue>> items = new ArrayList<>();
+        Map<String, KeysAndAttributes> pending = Collections.singletonMap(tableName, chunk);
+
+        for (int attempt = 1; ; attempt++) {
+
+            BatchGetItemResponse response = dynamoDb.batchGetItem(BatchGetItemRequest.builder().requestItems(pending).build());
+
+            if (response.hasResponses()) {
+                items.addAll(response.responses().getOrDefault(tableName, Collections.emptyList()));
+            }
+
+            if (!response.hasUnprocessedKeys() || response.unprocessedKeys().isEmpty()) {
+                return items;
+            }
+
+            pending = response.unprocessedKeys();
+            int unprocessed = pending.get(tableName).keys().size();
+
+            if (attempt == maxAttempts) {
+                String msg = "Batch lookup gave up with " + unprocessed + " unprocessed keys after " + attempt + " attempts.";
+                Log.error(logger, msg);
+                throw new RuntimeException(msg);
+            }
+
+            Log.warn(logger, "Retrying " + unprocessed + " unprocessed keys, attempt " + (attempt + 1) + " of " + maxAttempts + ".");
+            backOff(attempt);
+
+        }
+
+    }
+
+    private KeysAndAttributes keysAndAttributes(List<String> ids, Projection projection) {
+
+        List<Map<String, AttributeValue>> keys = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            keys.add(key(id));
+        }
+
+        KeysAndAttributes.Builder keysAndAttributes = KeysAndAttributes.builder().keys(keys);
+
+        Map<String, String> names = projectedNames(projection);
+        if (names != null) {
+            keysAndAttributes.projectionExpression(String.join(",", names.keySet())).expressionAttributeNames(names);
+        }
+
+        return keysAndAttributes.build();
+
+    }
+
+    private static Map<String, AttributeValue> key(String id) {
+        return Collections.singletonMap("id", AttributeValue.builder().s(id).build());
+    }
+
+    /**
+     * @return the projected attributes keyed by placeholder, or null when whole items should be read
+     */
+    private static Map<String, String> projectedNames(Projection projection) {
+
+        if (projection.getAttributes() == null) {
+            return null;
+        }
+
+        // The key is always read so results can be matched to the requested ids. Attribute names go through
+        // placeholders so that a projected name can never collide with a reserved word.
+        Set<String> attributes = new LinkedHashSet<>();
+        attributes.add("id");
+        attributes.addAll(projection.getAttributes());
+
+        Map<String, String> names = new LinkedHashMap<>();
+        for (String attribute : attributes) {
+            names.put("#p" + names.size(), attribute);
+        }
+
+        return names;
+
+    }
+
+    private static void backOff(int attempt) {
+
+        long ceiling = Math.min(MAX_BACKOFF_MILLIS, BASE_BACKOFF_MILLIS << Math.min(attempt, 16));
+
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while backing off a batch lookup retry.", e);
+        }
+
+    }
+
+}
@@ -0,0 +1,31 @@
+package com.revature.get_books;
+
+import lombok.Value;
+
+/**
+ * One change to a book in the table, as read from a {@link ChangeFeed}. Inserts and modifications carry the
+ * book as it is after the change; removals only carry its id.
+ */
+@Value
+public class BookChange {
+
+    public enum Type { INSERT, MODIFY, REMOVE }
+
+    Type type;
+    String id;
+    Book book;
+    long changedAtMillis;
+
+    public static BookChange upsert(Type type, Book book, long changedAtMillis) {
+        return new BookChange(type, book.getId(), book, changedAtMillis);
+    }
+
+    public static BookChange removal(String id, long changedAtMillis) {
+        return new BookChange(Type.REMOVE, id, null, changedAtMillis);
+    }
+
+    public boolean isRemoval() {
+        return type == Type.REMOVE;
+    }
+
+}
@@ -0,0 +1,78 @@
+package com.revature.get_books;
+
+import java.util.*;
+
+/**
+ * Chooses between a global secondary index query and a filtered table scan for a search. Indexes are
+ * listed in order of selectivity; the first one whose key attribute appears in the search parameters
+ * serves the request and every other parameter becomes a filter on the query. List attributes
+ * (authors, genres) cannot be index keys, so searches on only those still scan.
+ *
+ * <p>The indexes are not created with the table, so none is used unless its key attribute is listed in
+ * <code>BOOKS_QUERY_INDEXES</code>, e.g. <code>isbn,publisher</code>, once the index exists and the
+ * function's role may query it.</p>
+ */
+public class BookQueryPlanner {
+
+    static final Map<String, String> INDEXES;
+
+    static {
+        Map<String, String> indexes = new LinkedHashMap<>();
+        indexes.put("isbn", Book.ISBN_INDEX);
+        indexes.put("publisher", Book.PUBLISHER_INDEX);
+        INDEXES = Collections.unmodifiableMap(indexes);
+    }
+
+    private final Map<String, String> indexesByAttribute;
+
+    public BookQueryPlanner() {
+        this(indexes(Env.getString("BOOKS_QUERY_INDEXES", "")));
+    }
+
+    public BookQueryPlanner(Map<String, String> indexesByAttribute) {
+        this.indexesByAttribute = indexesByAttribute;
+    }
+
+    /**
+     * @param keyAttributes a comma-separated list of the attributes whose indexes may be queried
+     * @return the named indexes, in order of selectivity
+     */
+    static Map<String, String> indexes(String keyAttributes) {
+
+        Set<String> named = new HashSet<>();
+
+        for (String keyAttribute : keyAttributes.split(",")) {
+            String trimmed = keyAttribute.trim();
+            if (!trimmed.isEmpty() && !INDEXES.containsKey(trimmed)) {
+                throw new IllegalStateException("BOOKS_QUERY_INDEXES may only list " + String.join(", ", INDEXES.keySet()) + ", found: " + trimmed);
+            }
+            named.add(trimmed);
+        }
+
+        Map<String, String> indexes = new LinkedHashMap<>(INDEXES);
+        indexes.keySet().retainAll(named);
+
+        return Collections.unmodifiableMap(indexes);
+
+    }
+
+    public QueryPlan plan(Map<String, String> queryParams) {
+
+        for (Map.Entry<String, String> index : indexesByAttribute.entrySet()) {
+
+            String keyAttribute = index.getKey();
+            String keyValue = queryParams.get(keyAttribute);
+
+            if (keyValue != null && !keyValue.isEmpty()) {
+                Map<String, String> filterParams = new HashMap<>(queryParams);
+                filterParams.remove(keyAttribute);
+                return QueryPlan.indexQuery(index.getValue(), keyAttribute, keyValue, filterParams);
+            }
+
+        }
+
+        return QueryPlan.scan(queryParams);
+
+    }
+
+}
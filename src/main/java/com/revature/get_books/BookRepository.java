@@ -1,132 +1,646 @@
 package com.revature.get_books;
 
 import com.amazonaws.services.lambda.runtime.LambdaLogger;
-import lombok.SneakyThrows;
-import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
 import software.amazon.awssdk.enhanced.dynamodb.Expression;
-import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.enhanced.dynamodb.Key;
+import software.amazon.awssdk.enhanced.dynamodb.model.Page;
 import software.amazon.awssdk.enhanced.dynamodb.model.PageIterable;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryConditional;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryEnhancedRequest;
 import software.amazon.awssdk.enhanced.dynamodb.model.ScanEnhancedRequest;
-import software.amazon.awssdk.http.apache.ApacheHttpClient;
-import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
 
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
 public class BookRepository {
 
+    private static final int MAX_SCAN_SEGMENTS = 64;
+
+    // Pages read ahead per scan segment while the caller maps earlier ones, each up to 1 MB.
+    private static final int SEGMENT_BUFFER_PAGES = 2;
+
+    // Longer than a Lambda invocation may run: a caller that stops taking pages for this long has abandoned the scan.
+    private static final long SEGMENT_HANDOFF_TIMEOUT_MILLIS = 60_000;
+
+    // Items evaluated per request when a filter is applied, so that the read budget can be checked between pages.
+    static final int FILTERED_PAGE_SIZE = 500;
+
     private final DynamoDbTable<Book> bookTable;
+    private final BookQueryPlanner queryPlanner;
+    private final FilterExpressionCompiler filterCompiler = new FilterExpressionCompiler();
+    private final int scanSegments;
+    private final ExecutorService scanExecutor;
+    private final BookBatchLoader batchLoader;
+    private final SearchIndex searchIndex;
+    private final ReadBudget readBudget;
+    private final CatalogSnapshot catalogSnapshot;
+    private final CatalogChanges catalogChanges;
+    private final HedgedRequests hedging;
 
     public BookRepository() {
-        DynamoDbClient db = DynamoDbClient.builder().httpClient(ApacheHttpClient.create()).build();
-        DynamoDbEnhancedClient dbClient = DynamoDbEnhancedClient.builder().dynamoDbClient(db).build();
-        bookTable = dbClient.table("books", TableSchema.fromBean(Book.class));
+        this(AwsClients.BOOK_TABLE, new BookQueryPlanner(), Env.getInt("BOOKS_SCAN_SEGMENTS", 1), new BookBatchLoader(), SearchIndex.fromEnv(), ReadBudget.fromEnv(), CatalogSnapshot.fromEnv(),
+             CatalogChanges.fromEnv(), HedgedRequests.fromEnv());
     }
 
     public BookRepository(DynamoDbTable<Book> bookTable) {
+        this(bookTable, new BookQueryPlanner());
+    }
+
+    public BookRepository(DynamoDbTable<Book> bookTable, BookQueryPlanner queryPlanner) {
+        this(bookTable, queryPlanner, 1);
+    }
+
+    public BookRepository(DynamoDbTable<Book> bookTable, BookQueryPlanner queryPlanner, int scanSegments) {
+        this(bookTable, queryPlanner, scanSegments, null);
+    }
+
+    /**
+     * @param batchLoader used for lookups by id, which it reads projected; when null, lookups fall back to one
+     *                    whole-item <code>GetItem</code> per id
+     */
+    public BookRepository(DynamoDbTable<Book> bookTable, BookQueryPlanner queryPlanner, int scanSegments, BookBatchLoader batchLoader) {
+        this(bookTable, queryPlanner, scanSegments, batchLoader, null);
+    }
+
+    /**
+     * @param searchIndex resolves searches it covers to book ids, which are then fetched by key; may be null
+     */
+    public BookRepository(DynamoDbTable<Book> bookTable, BookQueryPlanner queryPlanner, int scanSegments, BookBatchLoader batchLoader, SearchIndex searchIndex) {
+        this(bookTable, queryPlanner, scanSegments, batchLoader, searchIndex, ReadBudget.UNLIMITED);
+    }
+
+    /**
+     * @param readBudget bounds how much a paged, filtered search reads before returning partial results
+     */
+    public BookRepository(DynamoDbTable<Book> bookTable, BookQueryPlanner queryPlanner, int scanSegments, BookBatchLoader batchLoader, SearchIndex searchIndex, ReadBudget readBudget) {
+        this(bookTable, queryPlanner, scanSegments, batchLoader, searchIndex, readBudget, null);
+    }
+
+    /**
+     * @param catalogSnapshot serves full-catalog reads while it is fresh; may be null to always scan
+     */
+    public BookRepository(DynamoDbTable<Book> bookTable, BookQueryPlanner queryPlanner, int scanSegments, BookBatchLoader batchLoader, SearchIndex searchIndex, ReadBudget readBudget, CatalogSnapshot catalogSnapshot) {
+        this(bookTable, queryPlanner, scanSegments, batchLoader, searchIndex, readBudget, catalogSnapshot, null);
+    }
+
+    /**
+     * @param catalogChanges keeps the snapshot and search index current between rebuilds; may be null to
+     *                       serve them as built
+     */
+    public BookRepository(DynamoDbTable<Book> bookTable, BookQueryPlanner queryPlanner, int scanSegments, BookBatchLoader batchLoader, SearchIndex searchIndex, ReadBudget readBudget, CatalogSnapshot catalogSnapshot,
+                          CatalogChanges catalogChanges) {
+        this(bookTable, queryPlanner, scanSegments, batchLoader, searchIndex, readBudget, catalogSnapshot, catalogChanges, null);
+    }
+
+    /**
+     * @param hedging duplicates scan and query page requests that run slow; may be null to never hedge
+     */
+    public BookRepository(DynamoDbTable<Book> bookTable, BookQueryPlanner queryPlanner, int scanSegments, BookBatchLoader batchLoader, SearchIndex searchIndex, ReadBudget readBudget, CatalogSnapshot catalogSnapshot,
+                          CatalogChanges catalogChanges, HedgedRequests hedging) {
         this.bookTable = bookTable;
+        this.queryPlanner = queryPlanner;
+        this.scanSegments = validateScanSegments(scanSegments);
+        this.scanExecutor = createScanExecutor(this.scanSegments);
+        this.batchLoader = batchLoader;
+        this.searchIndex = searchIndex;
+        this.readBudget = readBudget;
+        this.catalogSnapshot = catalogSnapshot;
+        this.catalogChanges = catalogChanges;
+        this.hedging = hedging;
     }
 
     public PageIterable<Book> getAllBooks() {
-        return bookTable.scan();
+        return getAllBooks(Projection.ALL);
     }
 
-    @SneakyThrows
-    public PageIterable<Book> searchBooks(Map<String, String> queryParams, LambdaLogger logger) {
+    public PageIterable<Book> getAllBooks(Projection projection) {
 
+        PageIterable<Book> snapshotBooks = snapshotBooks(projection);
+        if (snapshotBooks != null) {
+            return snapshotBooks;
+        }
 
+        if (scanSegments == 1) {
+            return scanAll(scanRequest(projection).build());
+        }
 
-        StringBuilder filterExprBuilder = new StringBuilder();
-        Map<String, AttributeValue> attributeValues = new HashMap<>();
-        List<String> paramKeys = new ArrayList<>(queryParams.keySet());
+        return scanInParallel(projection);
 
-        List<String> bookFieldNames = Book.getFieldNameStrings();
+    }
 
-        for (int i = 0; i < paramKeys.size(); i++){
+    public Page<Book> getBookPage(int limit, Map<String, AttributeValue> exclusiveStartKey) {
+        return getBookPage(limit, exclusiveStartKey, Projection.ALL);
+    }
 
-            filterExprBuilder.append("(");
-            if (i != 0) filterExprBuilder.append(" and ");
+    public Page<Book> getBookPage(int limit, Map<String, AttributeValue> exclusiveStartKey, Projection projection) {
 
+        ScanEnhancedRequest scanRequest = scanRequest(projection).limit(limit)
+                                                                 .exclusiveStartKey(exclusiveStartKey)
+                                                                 .build();
 
-            String paramKey = paramKeys.get(i);
+        return firstPage(scan(scanRequest));
 
-            if (!bookFieldNames.contains(paramKey)) {
-                String msg = "The field, " + paramKey + ", was not found on resource type: Book";
-                logger.log(msg);
-                throw new RuntimeException(msg);
-            }
+    }
 
-            String fieldType = Book.class.getDeclaredField(paramKey).getType().getSimpleName();
-            String paramVal = Optional.ofNullable(queryParams.get(paramKey))
-                                      .orElseThrow(() -> {
-                                          String msg = "Unexpected null value found in parameter map.";
-                                          logger.log(msg);
-                                          return new RuntimeException(msg);
-                                      });
+    public PageIterable<Book> searchBooks(Map<String, String> queryParams, LambdaLogger logger) {
+        return searchBooks(queryParams, Projection.ALL, logger);
+    }
 
+    public PageIterable<Book> searchBooks(Map<String, String> queryParams, Projection projection, LambdaLogger logger) {
 
-            switch (fieldType) {
-                case "String":
+        PageIterable<Book> books;
 
-                    String attributeKeyVar = ":" + paramKey;
-                    filterExprBuilder.append(paramKey).append(" = ").append(attributeKeyVar);
-                    attributeValues.put(attributeKeyVar, AttributeValue.builder().s(paramVal).build());
+        try {
+            List<String> matchingIds = searchIndex(queryParams, logger);
+            books = matchingIds != null
+                    ? indexedBooks(matchingIds, projection, logger)
+                    : budgetedSearch(queryPlanner.plan(queryParams), projection, logger);
+        } catch (Exception e) {
+            Log.error(logger, e.getMessage());
+            throw e;
+        }
 
-                    break;
+        Log.debug(logger, () -> "Table search prepared, result: " + books);
 
-                case "List":
+        return books;
 
-                    // If there is only one provided query value
-                    if (!paramVal.contains(",")) {
+    }
 
-                        String attrKey = ":" + paramKey;
-                        filterExprBuilder.append("contains(").append(paramKey).append(",").append(attrKey).append(")");
-                        attributeValues.put(attrKey, AttributeValue.builder().s(paramVal).build());
+    public Page<Book> searchBookPage(Map<String, String> queryParams, int limit, Map<String, AttributeValue> exclusiveStartKey, LambdaLogger logger) {
+        return searchBookPage(queryParams, limit, exclusiveStartKey, Projection.ALL, logger);
+    }
 
-                    } else {
+    public Page<Book> searchBookPage(Map<String, String> queryParams, int limit, Map<String, AttributeValue> exclusiveStartKey, Projection projection, LambdaLogger logger) {
 
-                        String[] listVals = paramVal.split(",");
+        Page<Book> page;
 
-                        for (int j = 0; j < listVals.length; j++) {
-                            String key = ":" + paramKey + j;
-                            filterExprBuilder.append("contains(").append(paramKey).append(",").append(key).append(")");
-                            if (j != listVals.length - 1) filterExprBuilder.append(" or ");
-                            attributeValues.put(key, AttributeValue.builder().s(listVals[j]).build());
-                        }
-                    }
+        try {
+            List<String> matchingIds = searchIndex(queryParams, logger);
+            page = matchingIds != null
+                   ? indexedPage(matchingIds, limit, exclusiveStartKey, projection, logger)
+                   : collectMatches(queryPlanner.plan(queryParams), projection, limit, exclusiveStartKey, logger);
+        } catch (Exception e) {
+            Log.error(logger, e.getMessage());
+            throw e;
+        }
 
-                    break;
+        Log.info(logger, () -> "Table page search complete, returned " + page.items().size() + " items.");
+
+        return page;
+
+    }
+
+    /**
+     * Looks books up by primary key, returning them in the order their ids were first requested. Ids with no
+     * matching book are skipped. Without a batch loader each id is read whole, and {@link Projection#filter}
+     * drops what was not asked for.
+     */
+    public List<Book> getBooksById(List<String> ids, Projection projection, LambdaLogger logger) {
+
+        List<String> distinctIds = new ArrayList<>(new LinkedHashSet<>(ids));
+        List<Book> books = new ArrayList<>(distinctIds.size());
+
+        try {
+
+            if (batchLoader == null) {
+                for (String id : distinctIds) {
+                    Optional.ofNullable(bookTable.getItem(Key.builder().partitionValue(id).build())).ifPresent(books::add);
+                }
+            } else if (distinctIds.size() == 1) {
+                Optional.ofNullable(batchLoader.get(distinctIds.get(0), projection)).ifPresent(books::add);
+            } else if (!distinctIds.isEmpty()) {
+                Map<String, Book> booksById = batchLoader.load(distinctIds, projection, logger);
+                for (String id : distinctIds) {
+                    Optional.ofNullable(booksById.get(id)).ifPresent(books::add);
+                }
             }
 
-            filterExprBuilder.append(")");
+        } catch (Exception e) {
+            Log.error(logger, e.getMessage());
+            throw e;
+        }
+
+        Log.info(logger, () -> "Lookup by id complete, found " + books.size() + " of " + distinctIds.size() + " books.");
+
+        return books;
+
+    }
+
+    /**
+     * Applies the changes made to the table since the last call, then drops those the snapshot and search
+     * index already include.
+     *
+     * @return true when the catalog changed, so responses built before now are out of date
+     */
+    public boolean refreshChanges(LambdaLogger logger) {
+
+        if (catalogChanges == null) {
+            return false;
+        }
+
+        boolean changed = catalogChanges.refresh(logger);
 
+        // With neither a snapshot nor an index, the changes only matter for invalidating responses.
+        long builtAtMillis = Long.MAX_VALUE;
+        if (catalogSnapshot != null) {
+            builtAtMillis = catalogSnapshot.writtenAtMillis();
         }
+        if (searchIndex != null) {
+            builtAtMillis = Math.min(builtAtMillis, searchIndex.builtAtMillis());
+        }
+
+        catalogChanges.pruneThrough(builtAtMillis);
 
-        logger.log("Assembled filter expression with attribute values:\n{\n" +
-                "\t\"filterExpression\": \"" + filterExprBuilder + "\"," +
-                "\t\"attributeValues\": \"" + attributeValues + "\"" +
-                "\n}");
+        return changed;
 
-        Expression filterExpr = Expression.builder().expression(filterExprBuilder.toString()).expressionValues(attributeValues).build();
+    }
 
-        ScanEnhancedRequest scanExpr = ScanEnhancedRequest.builder()
-                                                          .filterExpression(filterExpr)
-                                                          .build();
+    /**
+     * @return the whole catalog from the snapshot, or null when there is no fresh snapshot to read
+     */
+    protected PageIterable<Book> snapshotBooks(Projection projection) {
+
+        if (catalogSnapshot == null) {
+            return null;
+        }
 
         PageIterable<Book> books;
 
-        try {
-            books = bookTable.scan(scanExpr);
-        } catch (Exception e) {
-            logger.log(e.getMessage());
-            throw e;
+        if (catalogChanges == null) {
+            books = catalogSnapshot.books(projection);
+        } else if (catalogChanges.covers(catalogSnapshot.writtenAtMillis())) {
+            books = catalogSnapshot.books(projection, catalogChanges.caughtUpAtMillis());
+            books = books == null ? null : catalogChanges.overlay(books, projection);
+        } else {
+            books = null;
         }
 
-        logger.log("Table scan complete, result: " + books);
+        if (books != null) {
+            Metrics.count(Metric.SNAPSHOT_READS, 1);
+        }
 
         return books;
 
     }
 
+    /**
+     * @return the ids of the matching books, in ascending id order, or null when the search index is absent
+     *         or does not cover every query parameter
+     */
+    protected List<String> searchIndex(Map<String, String> queryParams, LambdaLogger logger) {
+
+        if (searchIndex == null || !searchIndex.supports(queryParams)) {
+            return searchTableInstead(queryParams, null, logger);
+        }
+
+        if (catalogChanges != null && !catalogChanges.covers(searchIndex.builtAtMillis())) {
+            return searchTableInstead(queryParams, "Search index is older than the change overlay", logger);
+        }
+
+        if (catalogChanges == null && !searchIndex.isFresh()) {
+            return searchTableInstead(queryParams, "Search index is past its max age", logger);
+        }
+
+        long start = System.nanoTime();
+        List<String> indexedIds = searchIndex.search(queryParams);
+        List<String> matchingIds = catalogChanges == null ? indexedIds : catalogChanges.overlaySearch(indexedIds, queryParams);
+        Log.info(logger, () -> "Search index matched " + matchingIds.size() + " books in " + (System.nanoTime() - start) / 1000 + " us.");
+
+        return matchingIds;
+
+    }
+
+    // The table has no equivalent of a title prefix search, so one the index can't serve is refused.
+    private static List<String> searchTableInstead(Map<String, String> queryParams, String reason, LambdaLogger logger) {
+
+        if (queryParams.containsKey(SearchIndex.TITLE_PREFIX_PARAM)) {
+            String msg = "The " + SearchIndex.TITLE_PREFIX_PARAM + " parameter needs a current search index covering every parameter of the search"
+                         + (reason == null ? "." : "; " + reason + ".");
+            Log.warn(logger, msg);
+            throw new RuntimeException(msg);
+        }
+
+        if (reason != null) {
+            Log.info(logger, () -> reason + ", searching the table instead.");
+        }
+
+        return null;
+
+    }
+
+    // Index results are sorted by id, so the id of the last book returned is all a cursor needs to resume from.
+    private Page<Book> indexedPage(List<String> matchingIds, int limit, Map<String, AttributeValue> exclusiveStartKey, Projection projection, LambdaLogger logger) {
+
+        int from = 0;
+
+        if (exclusiveStartKey != null && exclusiveStartKey.containsKey("id")) {
+            int position = Collections.binarySearch(matchingIds, exclusiveStartKey.get("id").s());
+            from = position >= 0 ? position + 1 : -position - 1;
+        }
+
+        int to = Math.min(from + limit, matchingIds.size());
+        List<String> pageIds = matchingIds.subList(from, to);
+
+        Map<String, AttributeValue> lastEvaluatedKey = null;
+        if (to < matchingIds.size()) {
+            lastEvaluatedKey = Collections.singletonMap("id", AttributeValue.builder().s(pageIds.get(pageIds.size() - 1)).build());
+        }
+
+        return Page.create(getBooksById(pageIds, projection, logger), lastEvaluatedKey);
+
+    }
+
+    // Index hits are fetched one batch per page as the caller reads, so a broad search holds a page of books rather than every match.
+    private PageIterable<Book> indexedBooks(List<String> matchingIds, Projection projection, LambdaLogger logger) {
+        return () -> new Iterator<Page<Book>>() {
+
+            private int from;
+
+            @Override
+            public boolean hasNext() {
+                return from < matchingIds.size();
+            }
+
+            @Override
+            public Page<Book> next() {
+
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+
+                int to = Math.min(from + BookBatchLoader.MAX_BATCH_KEYS, matchingIds.size());
+                List<String> pageIds = matchingIds.subList(from, to);
+                from = to;
+
+                return Page.create(getBooksById(pageIds, projection, logger));
+
+            }
+
+        };
+    }
+
+    /**
+     * Reads pages until <code>limit</code> books have matched, the plan is exhausted, or the read budget runs
+     * out. Filters are applied after DynamoDB reads an item, so a single page of <code>limit</code> items could
+     * come back with few or no matches; here the returned page is only short when the search really is done
+     * or the budget stopped it. The cursor resumes right after the last book returned, or after the last
+     * item read when the budget ran out between matches.
+     */
+    private Page<Book> collectMatches(QueryPlan plan, Projection projection, int limit, Map<String, AttributeValue> exclusiveStartKey, LambdaLogger logger) {
+
+        boolean filtered = !plan.getFilterParams().isEmpty();
+        int pageSize = filtered ? Math.max(limit, FILTERED_PAGE_SIZE) : limit;
+
+        List<Book> matches = new ArrayList<>(limit);
+        Map<String, AttributeValue> startKey = exclusiveStartKey;
+        int itemsScanned = 0;
+        long start = System.nanoTime();
+
+        while (true) {
+
+            int requestSize = readBudget.nextPageSize(pageSize, itemsScanned);
+            Page<Book> page = firstPage(executePlan(plan, projection, requestSize, false, startKey, logger));
+            itemsScanned += requestSize;
+
+            List<Book> items = page.items();
+            for (int i = 0; i < items.size(); i++) {
+                matches.add(items.get(i));
+                if (matches.size() == limit) {
+                    boolean lastOfPlan = i == items.size() - 1 && page.lastEvaluatedKey() == null;
+                    return Page.create(matches, lastOfPlan ? null : keyOf(items.get(i), plan));
+                }
+            }
+
+            startKey = page.lastEvaluatedKey();
+            if (startKey == null || startKey.isEmpty()) {
+                return Page.create(matches, null);
+            }
+
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+            if (readBudget.isExhausted(itemsScanned, elapsedMillis)) {
+                int evaluated = itemsScanned;
+                Log.info(logger, () -> "Search read budget " + readBudget + " exhausted after evaluating up to " + evaluated + " items in " + elapsedMillis + " ms, returning " + matches.size() + " partial matches.");
+                return Page.create(matches, startKey);
+            }
+
+        }
+
+    }
+
+    // A start key for the table needs the primary key; one for an index also needs the index partition key.
+    private static Map<String, AttributeValue> keyOf(Book book, QueryPlan plan) {
+
+        Map<String, AttributeValue> key = new HashMap<>();
+        key.put("id", AttributeValue.builder().s(book.getId()).build());
+
+        if (plan.isIndexQuery()) {
+            key.put(plan.getKeyAttribute(), AttributeValue.builder().s(plan.getKeyValue()).build());
+        }
+
+        return key;
+
+    }
+
+    /**
+     * Streams every match of a plan. A filter may discard most of what DynamoDB reads, so a filtered plan stops
+     * at the read budget like a paged search does; the caller finds where through
+     * {@link BudgetedPageIterable#resumeKey}.
+     */
+    private PageIterable<Book> budgetedSearch(QueryPlan plan, Projection projection, LambdaLogger logger) {
+
+        if (plan.getFilterParams().isEmpty() || readBudget.isUnlimited()) {
+            return executePlan(plan, projection, null, true, null, logger);
+        }
+
+        return new BudgetedPageIterable<>(executePlan(plan, projection, FILTERED_PAGE_SIZE, true, null, logger), readBudget, FILTERED_PAGE_SIZE, logger);
+
+    }
+
+    /**
+     * @param limit the most items each request evaluates, or null for DynamoDB's 1 MB pages
+     * @param allPages whether to read on to the end of the plan, or only the first page
+     */
+    private PageIterable<Book> executePlan(QueryPlan plan, Projection projection, Integer limit, boolean allPages, Map<String, AttributeValue> exclusiveStartKey, LambdaLogger logger) {
+
+        Log.info(logger, () -> "Executing query plan: " + plan + " projecting " + projection);
+
+        Expression filterExpr = plan.getFilterParams().isEmpty() ? null : filterCompiler.compile(plan.getFilterParams(), logger);
+
+        if (plan.isIndexQuery()) {
+
+            QueryEnhancedRequest.Builder queryRequest = QueryEnhancedRequest.builder()
+                                                                            .queryConditional(QueryConditional.keyEqualTo(Key.builder().partitionValue(plan.getKeyValue()).build()))
+                                                                            .filterExpression(filterExpr)
+                                                                            .limit(limit)
+                                                                            .exclusiveStartKey(exclusiveStartKey);
+
+            if (projection.getAttributes() != null) {
+                queryRequest.attributesToProject(withKey(projection.getAttributes()));
+            }
+
+            return allPages ? queryAll(plan.getIndexName(), queryRequest.build()) : query(plan.getIndexName(), queryRequest.build());
+
+        }
+
+        ScanEnhancedRequest scanRequest = scanRequest(projection).filterExpression(filterExpr)
+                                                                 .limit(limit)
+                                                                 .exclusiveStartKey(exclusiveStartKey)
+                                                                 .build();
+
+        return allPages ? scanAll(scanRequest) : scan(scanRequest);
+
+    }
+
+    /**
+     * Runs a scan the caller reads to the end, unlike the single pages read for cursors and limits. Override
+     * this and {@link #queryAll} to change how pages are fetched; the requests themselves are built here.
+     */
+    protected PageIterable<Book> scanAll(ScanEnhancedRequest request) {
+        return scan(request);
+    }
+
+    /**
+     * Runs an index query the caller reads to the end; see {@link #scanAll}.
+     */
+    protected PageIterable<Book> queryAll(String indexName, QueryEnhancedRequest request) {
+        return query(indexName, request);
+    }
+
+    private PageIterable<Book> scan(ScanEnhancedRequest request) {
+
+        if (hedging == null) {
+            return bookTable.scan(request);
+        }
+
+        return hedgedPages(startKey -> firstPage(bookTable.scan(request.toBuilder().exclusiveStartKey(startKey).build())), request.exclusiveStartKey());
+
+    }
+
+    private PageIterable<Book> query(String indexName, QueryEnhancedRequest request) {
+
+        if (hedging == null) {
+            return PageIterable.create(bookTable.index(indexName).query(request));
+        }
+
+        return hedgedPages(startKey -> firstPage(PageIterable.create(bookTable.index(indexName).query(request.toBuilder().exclusiveStartKey(startKey).build()))),
+                           request.exclusiveStartKey());
+
+    }
+
+    // Each page is requested on its own, so a slow page can be hedged without reading the pages before it again.
+    private PageIterable<Book> hedgedPages(Function<Map<String, AttributeValue>, Page<Book>> fetchPage, Map<String, AttributeValue> exclusiveStartKey) {
+
+        return () -> new Iterator<Page<Book>>() {
+
+            private Map<String, AttributeValue> startKey = exclusiveStartKey;
+            private boolean done;
+
+            @Override
+            public boolean hasNext() {
+                return !done;
+            }
+
+            @Override
+            public Page<Book> next() {
+
+                if (done) {
+                    throw new NoSuchElementException();
+                }
+
+                Map<String, AttributeValue> pageStartKey = startKey;
+                Page<Book> page = hedging.execute(() -> fetchPage.apply(pageStartKey));
+
+                startKey = page.lastEvaluatedKey();
+                done = startKey == null || startKey.isEmpty();
+
+                return page;
+
+            }
+
+        };
+
+    }
+
+    // Each segment is drained by its own worker and pages are passed on as they arrive: a full-catalog read has no order to keep.
+    private PageIterable<Book> scanInParallel(Projection projection) {
+
+        List<PageIterable<Book>> segmentScans = new ArrayList<>(scanSegments);
+
+        for (int segment = 0; segment < scanSegments; segment++) {
+
+            ScanEnhancedRequest segmentRequest = scanRequest(projection).segment(segment)
+                                                                        .totalSegments(scanSegments)
+                                                                        .build();
+
+            // Nothing is read until the caller iterates, and each iteration scans afresh.
+            segmentScans.add(() -> scanAll(segmentRequest).iterator());
+
+        }
+
+        return new InterleavedPageIterable<>(segmentScans, scanExecutor, scanSegments * SEGMENT_BUFFER_PAGES, SEGMENT_HANDOFF_TIMEOUT_MILLIS);
+
+    }
+
+    private static ScanEnhancedRequest.Builder scanRequest(Projection projection) {
+
+        ScanEnhancedRequest.Builder scanRequest = ScanEnhancedRequest.builder();
+
+        if (projection.getAttributes() != null) {
+            scanRequest.attributesToProject(withKey(projection.getAttributes()));
+        }
+
+        return scanRequest;
+
+    }
+
+    // The key is always read so that a cursor can be built from any returned book; Projection.filter drops it again if unrequested.
+    private static List<String> withKey(List<String> attributes) {
+
+        if (attributes.contains("id")) {
+            return attributes;
+        }
+
+        List<String> keyedAttributes = new ArrayList<>(attributes.size() + 1);
+        keyedAttributes.add("id");
+        keyedAttributes.addAll(attributes);
+
+        return keyedAttributes;
+
+    }
+
+    // A scan or query with a limit evaluates at most that many items per page, so only the first page is ever requested.
+    private Page<Book> firstPage(PageIterable<Book> pages) {
+        Iterator<Page<Book>> pageIterator = pages.iterator();
+        return pageIterator.hasNext() ? pageIterator.next() : Page.create(Collections.emptyList());
+    }
+
+    private static int validateScanSegments(int scanSegments) {
+        if (scanSegments < 1 || scanSegments > MAX_SCAN_SEGMENTS) {
+            throw new IllegalStateException("Scan segment count must be between 1 and " + MAX_SCAN_SEGMENTS + ", found: " + scanSegments);
+        }
+        return scanSegments;
+    }
+
+    private static ExecutorService createScanExecutor(int scanSegments) {
+
+        if (scanSegments == 1) {
+            return null;
+        }
+
+        AtomicInteger workerCount = new AtomicInteger();
+
+        // Not a fixed pool: a scan whose caller is slow to take pages must not hold up the segments of another.
+        return Executors.newCachedThreadPool(runnable -> {
+            Thread worker = new Thread(runnable, "book-scan-segment-" + workerCount.incrementAndGet());
+            worker.setDaemon(true);
+            return worker;
+        });
+
+    }
+
 }
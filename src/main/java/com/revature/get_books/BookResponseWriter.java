@@ -0,0 +1,54 @@
+package com.revature.get_books;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonWriter;
+import lombok.SneakyThrows;
+
+import java.io.StringWriter;
+import java.util.function.Consumer;
+
+/**
+ * Serializes book responses into a JSON array one element at a time, as they are mapped. API Gateway proxy
+ * integrations still need the body as a single string, but this avoids holding a list of responses and a
+ * second, pretty-printed copy of it at the same time. Output is compact unless pretty printing is requested.
+ */
+public class BookResponseWriter implements Consumer<BookResponse> {
+
+    private static final Gson compactMapper = new Gson();
+    private static final Gson prettyMapper = new GsonBuilder().setPrettyPrinting().create();
+
+    private final Gson mapper;
+    private final StringWriter body;
+    private final JsonWriter jsonWriter;
+
+    private int written;
+
+    @SneakyThrows
+    public BookResponseWriter(boolean prettyPrint) {
+        mapper = prettyPrint ? prettyMapper : compactMapper;
+        body = new StringWriter();
+        jsonWriter = mapper.newJsonWriter(body);
+        jsonWriter.beginArray();
+    }
+
+    @Override
+    public void accept(BookResponse bookResponse) {
+        long serializeStart = Metrics.startTimer();
+        mapper.toJson(bookResponse, BookResponse.class, jsonWriter);
+        Metrics.stopTimer(Metric.SERIALIZE_TIME, serializeStart);
+        written++;
+    }
+
+    public int getWritten() {
+        return written;
+    }
+
+    @SneakyThrows
+    public String finish() {
+        jsonWriter.endArray();
+        jsonWriter.close();
+        return body.toString();
+    }
+
+}
@@ -0,0 +1,47 @@
+package com.revature.get_books;
+
+import software.amazon.awssdk.enhanced.dynamodb.EnhancedType;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.StaticTableSchema;
+
+import static software.amazon.awssdk.enhanced.dynamodb.mapper.StaticAttributeTags.primaryPartitionKey;
+import static software.amazon.awssdk.enhanced.dynamodb.mapper.StaticAttributeTags.secondaryPartitionKey;
+
+/**
+ * A hand-written table schema for {@link Book}. It mirrors the bean annotations on Book but is assembled from
+ * method references, so building it costs no bean introspection or generated lambdas during cold start.
+ */
+public class BookSchema {
+
+    public static final TableSchema<Book> TABLE_SCHEMA =
+            StaticTableSchema.builder(Book.class)
+                             .newItemSupplier(Book::new)
+                             .addAttribute(String.class, attr -> attr.name("id")
+                                                                     .getter(Book::getId)
+                                                                     .setter(Book::setId)
+                                                                     .tags(primaryPartitionKey()))
+                             .addAttribute(String.class, attr -> attr.name("isbn")
+                                                                     .getter(Book::getIsbn)
+                                                                     .setter(Book::setIsbn)
+                                                                     .tags(secondaryPartitionKey(Book.ISBN_INDEX)))
+                             .addAttribute(String.class, attr -> attr.name("title")
+                                                                     .getter(Book::getTitle)
+                                                                     .setter(Book::setTitle))
+                             .addAttribute(String.class, attr -> attr.name("publisher")
+                                                                     .getter(Book::getPublisher)
+                                                                     .setter(Book::setPublisher)
+                                                                     .tags(secondaryPartitionKey(Book.PUBLISHER_INDEX)))
+                             .addAttribute(EnhancedType.listOf(String.class), attr -> attr.name("authors")
+                                                                                          .getter(Book::getAuthors)
+                                                                                          .setter(Book::setAuthors))
+                             .addAttribute(EnhancedType.listOf(String.class), attr -> attr.name("genres")
+                                                                                          .getter(Book::getGenres)
+                                                                                          .setter(Book::setGenres))
+                             .addAttribute(String.class, attr -> attr.name("imageKey")
+                                                                     .getter(Book::getImageKey)
+                                                                     .setter(Book::setImageKey))
+                             .build();
+
+    private BookSchema() { }
+
+}
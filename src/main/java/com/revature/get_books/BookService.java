@@ -1,90 +1,312 @@
 package com.revature.get_books;
 
 import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import software.amazon.awssdk.enhanced.dynamodb.model.Page;
 import software.amazon.awssdk.enhanced.dynamodb.model.PageIterable;
-import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.s3.model.GetObjectRequest;
 import software.amazon.awssdk.services.s3.presigner.S3Presigner;
 import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
 import software.amazon.awssdk.services.s3.presigner.model.PresignedGetObjectRequest;
 
 import java.time.Duration;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
-import java.util.Objects;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 public class BookService {
 
+    static final String IMAGE_BUCKET = "bookstore-images-bucket";
+    static final Duration SIGNATURE_DURATION = Duration.ofMinutes(10);
+
+    // A reused URL may still sit in the handler's response cache for up to five minutes before a client follows it.
+    static final Duration PRESIGN_REUSE_MARGIN = Duration.ofMinutes(6);
+
+    private static final int MAX_MAP_PARALLELISM = 64;
+
+    // Below this many books a chunk costs more to hand off than to map in place.
+    static final int MIN_CHUNK_SIZE = 64;
+
     private final S3Presigner presigner;
+    private final ExpiringLruCache<String, String> presignedUrlCache;
+    private final int mapParallelism;
+    private final ExecutorService mapExecutor;
 
     public BookService() {
-        presigner = S3Presigner.builder().region(Region.US_WEST_1).build();
+        this(AwsClients.PRESIGNER,
+             new ExpiringLruCache<>(Env.getInt("BOOKS_PRESIGN_CACHE_MAX_ENTRIES", 10_000)),
+             Env.getInt("BOOKS_MAP_PARALLELISM", Runtime.getRuntime().availableProcessors()));
     }
 
     public BookService(S3Presigner presigner) {
+        this(presigner, new ExpiringLruCache<>(0));
+    }
+
+    public BookService(S3Presigner presigner, ExpiringLruCache<String, String> presignedUrlCache) {
+        this(presigner, presignedUrlCache, 1);
+    }
+
+    /**
+     * @param mapParallelism how many threads map books at once; 1 maps every book on the calling thread
+     */
+    public BookService(S3Presigner presigner, ExpiringLruCache<String, String> presignedUrlCache, int mapParallelism) {
         this.presigner = presigner;
+        this.presignedUrlCache = presignedUrlCache;
+        this.mapParallelism = validateMapParallelism(mapParallelism);
+        this.mapExecutor = createMapExecutor(this.mapParallelism);
     }
 
     public List<BookResponse> mapResponse(PageIterable<Book> books, LambdaLogger logger) {
 
-        logger.log("Mapping provided models to response. Provided models: " + books);
+        List<BookResponse> respBody = new ArrayList<>();
+        mapResponse(books, respBody::add, logger);
+
+        Log.debug(logger, () -> "Returning mapped response body: " + respBody);
+
+        return respBody;
+
+    }
 
-        if (books == null || !books.iterator().hasNext()) {
-            return Collections.emptyList();
+    /**
+     * Maps every book as its page arrives from DynamoDB and hands the result straight to the provided sink,
+     * so no intermediate list of responses is built. With a map parallelism above 1, see
+     * {@link #mapInParallel}; the sink still receives every response, in order, on the calling thread.
+     *
+     * @return the number of responses passed to the sink
+     */
+    public int mapResponse(PageIterable<Book> books, Consumer<BookResponse> sink, LambdaLogger logger) {
+
+        Log.debug(logger, () -> "Mapping provided models to response. Provided models: " + books);
+
+        if (books == null) {
+            return 0;
         }
 
-        List<BookResponse> respBody = new ArrayList<>();
+        int mappedCount = 0;
+        Iterator<Page<Book>> pageIterator = books.iterator();
 
-        logger.log("Books: " + books);
-        books.stream()
-             .forEach(page -> page.items().forEach(book -> {
+        // A failed mapping or sink stops the read, rather than leaving pages in flight for no one.
+        try {
+            if (mapExecutor != null) {
+                mappedCount = mapInParallel(() -> pageIterator, sink, logger);
+            } else {
+                while (pageIterator.hasNext()) {
+                    mappedCount += mapSequentially(pageIterator.next(), sink, logger);
+                }
+            }
+        } finally {
+            PageIterators.close(pageIterator);
+        }
 
-                 if (book == null) {
-                     return;
-                 }
+        int totalMapped = mappedCount;
+        Log.info(logger, () -> "Mapped " + totalMapped + " models to response. Presigned URL cache stats: " + presignedUrlCache.stats());
 
-                 logger.log("Book: " + book);
+        return mappedCount;
 
-                 String imageUrl = "";
-                 if (book.getImageKey() != null && !book.getImageKey().isEmpty()) {
-                     imageUrl = getPresignedImageUrl(book.getImageKey(), logger);
-                 }
+    }
 
-                 respBody.add(BookResponse.builder()
-                                          .id(book.getId())
-                                          .title(book.getTitle())
-                                          .publisher(book.getPublisher())
-                                          .authors(book.getAuthors())
-                                          .genres(book.getGenres())
-                                          .imageUrl(imageUrl)
-                                          .build());
-             }));
+    public List<BookResponse> mapPage(Page<Book> page, LambdaLogger logger) {
 
-        logger.log("Returning mapped response body: " + respBody);
+        List<BookResponse> respBody = new ArrayList<>();
+        mapPage(page, respBody::add, logger);
+
+        Log.debug(logger, () -> "Returning mapped response page of " + respBody.size() + " items.");
 
         return respBody;
 
     }
 
+    public int mapPage(Page<Book> page, Consumer<BookResponse> sink, LambdaLogger logger) {
+
+        if (mapExecutor != null) {
+            return mapInParallel(Collections.singletonList(page), sink, logger);
+        }
+
+        return mapSequentially(page, sink, logger);
+
+    }
+
+    private int mapSequentially(Page<Book> page, Consumer<BookResponse> sink, LambdaLogger logger) {
+
+        if (page == null || page.items() == null) {
+            return 0;
+        }
+
+        int mappedCount = 0;
+
+        for (Book book : page.items()) {
+
+            if (book == null) {
+                continue;
+            }
+
+            sink.accept(mapBook(book, logger));
+            mappedCount++;
+        }
+
+        return mappedCount;
+
+    }
+
+    /**
+     * Splits each page into chunks as it arrives and maps the chunks on the map executor, so the next page is
+     * fetched while earlier ones are still being mapped. Each chunk maps into its own list, and the lists are
+     * handed to the sink in page and chunk order. At most two chunks per thread are in flight; past that the
+     * calling thread waits on the oldest one, which bounds the responses held in memory.
+     */
+    private int mapInParallel(Iterable<Page<Book>> pages, Consumer<BookResponse> sink, LambdaLogger logger) {
+
+        Deque<CompletableFuture<List<BookResponse>>> pendingChunks = new ArrayDeque<>();
+        int maxPendingChunks = mapParallelism * 2;
+        int mappedCount = 0;
+
+        try {
+
+            for (Page<Book> page : pages) {
+
+                List<Book> items = page == null ? null : page.items();
+                if (items == null || items.isEmpty()) {
+                    continue;
+                }
+
+                int chunkSize = Math.max(MIN_CHUNK_SIZE, (items.size() + mapParallelism - 1) / mapParallelism);
+
+                for (int from = 0; from < items.size(); from += chunkSize) {
+
+                    List<Book> chunk = items.subList(from, Math.min(from + chunkSize, items.size()));
+                    pendingChunks.add(CompletableFuture.supplyAsync(Metrics.propagate(() -> mapChunk(chunk, logger)), mapExecutor));
+
+                    if (pendingChunks.size() > maxPendingChunks) {
+                        mappedCount += emit(pendingChunks.poll().join(), sink);
+                    }
+
+                }
+
+                // Pass on whatever is already mapped before blocking on the next page.
+                while (!pendingChunks.isEmpty() && pendingChunks.peek().isDone()) {
+                    mappedCount += emit(pendingChunks.poll().join(), sink);
+                }
+
+            }
+
+            while (!pendingChunks.isEmpty()) {
+                mappedCount += emit(pendingChunks.poll().join(), sink);
+            }
+
+        } catch (RuntimeException e) {
+            // A failed chunk, page read or sink leaves the queued chunks with no one to take them.
+            pendingChunks.forEach(pendingChunk -> pendingChunk.cancel(true));
+            if (e instanceof CompletionException && e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+
+        return mappedCount;
+
+    }
+
+    private List<BookResponse> mapChunk(List<Book> chunk, LambdaLogger logger) {
+
+        List<BookResponse> mapped = new ArrayList<>(chunk.size());
+
+        for (Book book : chunk) {
+            if (book != null) {
+                mapped.add(mapBook(book, logger));
+            }
+        }
+
+        return mapped;
+
+    }
+
+    private static int emit(List<BookResponse> mapped, Consumer<BookResponse> sink) {
+        mapped.forEach(sink);
+        return mapped.size();
+    }
+
+    private static int validateMapParallelism(int mapParallelism) {
+        if (mapParallelism < 1 || mapParallelism > MAX_MAP_PARALLELISM) {
+            throw new IllegalStateException("Map parallelism must be between 1 and " + MAX_MAP_PARALLELISM + ", found: " + mapParallelism);
+        }
+        return mapParallelism;
+    }
+
+    private static ExecutorService createMapExecutor(int mapParallelism) {
+
+        if (mapParallelism == 1) {
+            return null;
+        }
+
+        AtomicInteger workerCount = new AtomicInteger();
+
+        return Executors.newFixedThreadPool(mapParallelism, runnable -> {
+            Thread worker = new Thread(runnable, "book-map-" + workerCount.incrementAndGet());
+            worker.setDaemon(true);
+            return worker;
+        });
+
+    }
+
+    private BookResponse mapBook(Book book, LambdaLogger logger) {
+
+        if (Log.isDebugSampled()) {
+            Log.debug(logger, "Book: " + book);
+        }
+
+        String imageUrl = "";
+        if (book.getImageKey() != null && !book.getImageKey().isEmpty()) {
+            imageUrl = getPresignedImageUrl(book.getImageKey(), logger);
+        }
+
+        return BookResponse.builder()
+                           .id(book.getId())
+                           .isbn(book.getIsbn())
+                           .title(book.getTitle())
+                           .publisher(book.getPublisher())
+                           .authors(book.getAuthors())
+                           .genres(book.getGenres())
+                           .imageUrl(imageUrl)
+                           .build();
+
+    }
+
     private String getPresignedImageUrl(String imageKey, LambdaLogger logger) {
 
-        logger.log("Fetching presigned URL for provided object key: " + imageKey);
+        String cachedUrl = presignedUrlCache.get(imageKey);
+        if (cachedUrl != null) {
+            Metrics.count(Metric.PRESIGN_CACHE_HITS, 1);
+            return cachedUrl;
+        }
 
         GetObjectRequest getObjectRequest = GetObjectRequest.builder()
-                                                            .bucket("bookstore-images-bucket")
+                                                            .bucket(IMAGE_BUCKET)
                                                             .key(imageKey)
                                                             .build();
 
         GetObjectPresignRequest getObjectPresignRequest = GetObjectPresignRequest.builder()
-                                                                                 .signatureDuration(Duration.ofMinutes(10))
+                                                                                 .signatureDuration(SIGNATURE_DURATION)
                                                                                  .getObjectRequest(getObjectRequest)
                                                                                  .build();
 
+        long presignStart = Metrics.startTimer();
         PresignedGetObjectRequest presignedGetObjectRequest = presigner.presignGetObject(getObjectPresignRequest);
+        Metrics.stopTimer(Metric.PRESIGN_TIME, presignStart);
+        Metrics.count(Metric.PRESIGN_CALLS, 1);
         String presignedUrl = presignedGetObjectRequest.url().toString();
 
-        logger.log("Presigned URL: " + presignedUrl);
+        if (Log.isDebugSampled()) {
+            Log.debug(logger, "Presigned URL for object key " + imageKey + ": " + presignedUrl);
+        }
+
+        Instant expiration = presignedGetObjectRequest.expiration();
+        if (expiration != null) {
+            presignedUrlCache.put(imageKey, presignedUrl, expiration.minus(PRESIGN_REUSE_MARGIN).toEpochMilli());
+        }
 
         return presignedUrl;
 
@@ -0,0 +1,102 @@
+package com.revature.get_books;
+
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import software.amazon.awssdk.enhanced.dynamodb.model.Page;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Orders books by a single attribute for <code>sort</code> requests, ignoring case, with books missing the
+ * attribute last and ties broken by id so that results are stable. Only the first <code>limit</code> books
+ * are kept, in a bounded heap that books stream through as pages are read, so memory grows with the limit
+ * rather than with the catalog and nothing beyond the kept books is ever sorted.
+ */
+public class BookSort {
+
+    private static final Map<String, Function<Book, String>> SORT_KEYS;
+
+    static {
+        Map<String, Function<Book, String>> sortKeys = new LinkedHashMap<>();
+        sortKeys.put("title", Book::getTitle);
+        sortKeys.put("publisher", Book::getPublisher);
+        SORT_KEYS = Collections.unmodifiableMap(sortKeys);
+    }
+
+    private final String attribute;
+    private final Comparator<Book> order;
+
+    private BookSort(String attribute) {
+        this.attribute = attribute;
+        this.order = Comparator.comparing(SORT_KEYS.get(attribute), Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER))
+                               .thenComparing(Book::getId, Comparator.nullsLast(Comparator.naturalOrder()));
+    }
+
+    public static BookSort parse(String sortParam, LambdaLogger logger) {
+
+        String attribute = sortParam.trim();
+
+        if (!SORT_KEYS.containsKey(attribute)) {
+            String msg = "The provided sort, " + sortParam + ", is not one of: " + String.join(", ", SORT_KEYS.keySet());
+            Log.warn(logger, msg);
+            throw new RuntimeException(msg);
+        }
+
+        return new BookSort(attribute);
+
+    }
+
+    public String getAttribute() {
+        return attribute;
+    }
+
+    /**
+     * @return the projection to read with, which must include the sort attribute; {@link Projection#filter}
+     *         leaves it out of the response again when only the sort needed it
+     */
+    public Projection readProjection(Projection projection) {
+        return projection.reading(attribute);
+    }
+
+    /**
+     * @return the first <code>limit</code> books in this order, sorted
+     */
+    public List<Book> top(Iterable<Page<Book>> pages, int limit) {
+
+        // The heap's head is the last book kept, the first to go when a book that sorts before it arrives.
+        PriorityQueue<Book> kept = new PriorityQueue<>(limit, order.reversed());
+        int considered = 0;
+
+        Iterator<Page<Book>> pageIterator = pages.iterator();
+
+        try {
+            while (pageIterator.hasNext()) {
+                for (Book book : pageIterator.next().items()) {
+                    considered++;
+                    if (kept.size() < limit) {
+                        kept.add(book);
+                    } else if (order.compare(book, kept.peek()) < 0) {
+                        kept.poll();
+                        kept.add(book);
+                    }
+                }
+            }
+        } finally {
+            PageIterators.close(pageIterator);
+        }
+
+        List<Book> sorted = new ArrayList<>(kept);
+        sorted.sort(order);
+
+        Metrics.count(Metric.ITEMS_SORTED, considered);
+
+        return sorted;
+
+    }
+
+    @Override
+    public String toString() {
+        return attribute;
+    }
+
+}
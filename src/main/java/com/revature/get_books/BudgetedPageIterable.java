@@ -0,0 +1,102 @@
+package com.revature.get_books;
+
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import software.amazon.awssdk.enhanced.dynamodb.model.Page;
+import software.amazon.awssdk.enhanced.dynamodb.model.PageIterable;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Stops a filtered search that streams every match, rather than a page of them, once its {@link ReadBudget}
+ * is spent. Every page is requested with a limit of <code>pageSize</code> items, so the budget is overrun by
+ * at most one page. When the budget cut an iteration short, {@link #resumeKey} is the key to carry on from,
+ * as a paged search's cursor would be.
+ */
+public class BudgetedPageIterable<T> implements PageIterable<T> {
+
+    private final PageIterable<T> pages;
+    private final ReadBudget readBudget;
+    private final int pageSize;
+    private final LambdaLogger logger;
+
+    private volatile Map<String, AttributeValue> resumeKey;
+
+    public BudgetedPageIterable(PageIterable<T> pages, ReadBudget readBudget, int pageSize, LambdaLogger logger) {
+        this.pages = pages;
+        this.readBudget = readBudget;
+        this.pageSize = pageSize;
+        this.logger = logger;
+    }
+
+    @Override
+    public Iterator<Page<T>> iterator() {
+        return new BudgetedIterator(pages.iterator());
+    }
+
+    /**
+     * @return the key after the last item read when the budget stopped the last iteration, otherwise null
+     */
+    public Map<String, AttributeValue> resumeKey() {
+        return resumeKey;
+    }
+
+    private class BudgetedIterator implements Iterator<Page<T>>, AutoCloseable {
+
+        private final Iterator<Page<T>> pageIterator;
+        private final long start = System.nanoTime();
+
+        private int itemsScanned;
+        private Map<String, AttributeValue> lastEvaluatedKey;
+        private boolean stopped;
+
+        private BudgetedIterator(Iterator<Page<T>> pageIterator) {
+            this.pageIterator = pageIterator;
+        }
+
+        @Override
+        public boolean hasNext() {
+
+            if (stopped) {
+                return false;
+            }
+
+            // Only checked while there is more to read, and before asking for it, so a spent budget costs no extra request.
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+            if (lastEvaluatedKey != null && !lastEvaluatedKey.isEmpty() && readBudget.isExhausted(itemsScanned, elapsedMillis)) {
+                stopped = true;
+                resumeKey = lastEvaluatedKey;
+                PageIterators.close(pageIterator);
+                Log.info(logger, () -> "Search read budget " + readBudget + " exhausted after evaluating up to " + itemsScanned + " items in " + elapsedMillis + " ms, stopping the search early.");
+                return false;
+            }
+
+            return pageIterator.hasNext();
+
+        }
+
+        @Override
+        public Page<T> next() {
+
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            Page<T> page = pageIterator.next();
+            itemsScanned += pageSize;
+            lastEvaluatedKey = page.lastEvaluatedKey();
+
+            return page;
+
+        }
+
+        @Override
+        public void close() {
+            PageIterators.close(pageIterator);
+        }
+
+    }
+
+}
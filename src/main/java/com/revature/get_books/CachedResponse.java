@@ -0,0 +1,18 @@
+package com.revature.get_books;
+
+import lombok.Value;
+
+import java.util.Map;
+
+/**
+ * A fully serialized response body, plus any response headers, as kept by the handler's response cache.
+ * The ETag, when there is one, is the one the body was produced under. A compressed body is held already
+ * base64 encoded, ready to hand to API Gateway.
+ */
+@Value
+public class CachedResponse {
+    String body;
+    Map<String, String> headers;
+    String etag;
+    boolean base64Encoded;
+}
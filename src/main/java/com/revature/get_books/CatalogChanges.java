@@ -0,0 +1,342 @@
+package com.revature.get_books;
+
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.enhanced.dynamodb.model.Page;
+import software.amazon.awssdk.enhanced.dynamodb.model.PageIterable;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the catalog snapshot and search index current between rebuilds by applying the books table's change
+ * feed on top of them. The latest change to each book is held in an overlay; reads from the snapshot or the
+ * index replace, drop or add the changed books, so both stay correct while the table changes and only need
+ * rebuilding to keep the overlay small.
+ *
+ * <p>The overlay is only complete from some point in time on: the start of the feed, or the last time it had
+ * to be cleared, because it grew past its bound or the feed reported a gap. A snapshot or index built before
+ * that point can't be patched and the repository reads DynamoDB instead until a newer one is in place. Once a
+ * rebuild has caught up with a change it is pruned from the overlay.</p>
+ *
+ * <p>Lambda freezes an idle container, so the feed is polled on the request path, at most once per poll
+ * interval and by one request at a time, rather than from a background thread. Each warm container is a
+ * reader of the stream, so the function's reserved concurrency must be set and declared in
+ * <code>BOOKS_CHANGE_FEED_MAX_CONTAINERS</code>; the poll interval is stretched until that many containers
+ * stay within the stream's read limit.</p>
+ */
+public class CatalogChanges {
+
+    // DynamoDB Streams timestamps are approximate, and a rebuild may miss writes made just before it started.
+    static final long BUILD_MARGIN_MILLIS = 60_000;
+
+    // How far back TRIM_HORIZON reaches: DynamoDB Streams keeps records for 24 hours.
+    static final long STREAM_RETENTION_MILLIS = TimeUnit.HOURS.toMillis(24);
+
+    private final ChangeFeed feed;
+    private final long pollIntervalMillis;
+    private final int maxOverlayEntries;
+    private final LongSupplier clock;
+
+    private final Map<String, BookChange> overlay = new ConcurrentHashMap<>();
+    private final AtomicLong version = new AtomicLong();
+    private final ReentrantLock polling = new ReentrantLock();
+
+    private volatile long completeSinceMillis;
+    private volatile long caughtUpAtMillis;
+    private volatile long nextPollAtMillis;
+    private long prunedThroughMillis = Long.MIN_VALUE;
+    private boolean appliedSincePrune;
+
+    /**
+     * @param completeSinceMillis the time from which the feed delivers every change
+     */
+    public CatalogChanges(ChangeFeed feed, long pollIntervalMillis, int maxOverlayEntries, long completeSinceMillis, LongSupplier clock) {
+        this.feed = feed;
+        this.pollIntervalMillis = pollIntervalMillis;
+        this.maxOverlayEntries = maxOverlayEntries;
+        this.completeSinceMillis = completeSinceMillis;
+        this.clock = clock;
+    }
+
+    /**
+     * @return changes read from the stream at <code>BOOKS_CHANGE_STREAM_ARN</code>, or null when none is configured
+     */
+    public static CatalogChanges fromEnv() {
+
+        DynamoDbStreamChangeFeed feed = DynamoDbStreamChangeFeed.fromEnv();
+
+        if (feed == null) {
+            return null;
+        }
+
+        int maxContainers = Env.getInt("BOOKS_CHANGE_FEED_MAX_CONTAINERS", 0);
+
+        if (maxContainers < 1) {
+            throw new IllegalStateException("BOOKS_CHANGE_FEED_MAX_CONTAINERS must be set to the function's reserved concurrency when BOOKS_CHANGE_STREAM_ARN is, found: " + maxContainers);
+        }
+
+        long now = System.currentTimeMillis();
+        boolean fromLatest = "LATEST".equals(Env.getString("BOOKS_CHANGE_STREAM_START", "TRIM_HORIZON"));
+
+        return new CatalogChanges(feed,
+                                  pollIntervalMillis(Env.getInt("BOOKS_CHANGE_FEED_POLL_MILLIS", 1000), maxContainers),
+                                  Env.getInt("BOOKS_CHANGE_OVERLAY_MAX_ENTRIES", 50_000),
+                                  fromLatest ? now : now - STREAM_RETENTION_MILLIS,
+                                  System::currentTimeMillis);
+
+    }
+
+    /**
+     * @return the configured poll interval, stretched so that the given number of containers polling every shard
+     * stay within the stream's read limit
+     */
+    static long pollIntervalMillis(long configuredMillis, int maxContainers) {
+        long floorMillis = (maxContainers * 1000L + DynamoDbStreamChangeFeed.READS_PER_SECOND_PER_SHARD - 1) / DynamoDbStreamChangeFeed.READS_PER_SECOND_PER_SHARD;
+        return Math.max(configuredMillis, floorMillis);
+    }
+
+    /**
+     * Polls the feed and applies what it returns, unless the poll interval has not passed yet or another
+     * request is already polling. A poll that fails is logged and retried after the next interval; the request
+     * is served from what was applied before.
+     *
+     * @return true when the catalog changed, so responses built before now are out of date
+     */
+    public boolean refresh(LambdaLogger logger) {
+
+        long now = clock.getAsLong();
+
+        if (now < nextPollAtMillis || !polling.tryLock()) {
+            return false;
+        }
+
+        try {
+
+            nextPollAtMillis = now + pollIntervalMillis;
+
+            List<BookChange> changes;
+
+            try {
+                changes = feed.poll(logger);
+            } catch (SdkException e) {
+                Log.warn(logger, "Could not poll the change feed, retrying in " + pollIntervalMillis + " ms: " + e.getMessage());
+                return false;
+            }
+
+            if (feed.hasGap()) {
+                reset(now, "the change feed reported missing changes", logger);
+            }
+
+            changes.forEach(change -> overlay.put(change.getId(), change));
+            appliedSincePrune |= !changes.isEmpty();
+
+            if (overlay.size() > maxOverlayEntries) {
+                reset(now, "the change overlay grew past " + maxOverlayEntries + " books", logger);
+            }
+
+            if (feed.isCaughtUp()) {
+                caughtUpAtMillis = now;
+            }
+
+            if (changes.isEmpty() && !feed.hasGap()) {
+                return false;
+            }
+
+            long current = version.incrementAndGet();
+            Metrics.count(Metric.CHANGES_APPLIED, changes.size());
+            Log.info(logger, () -> "Applied " + changes.size() + " book changes, catalog change version " + current + ", " + overlay.size() + " books in the overlay.");
+
+            return true;
+
+        } finally {
+            polling.unlock();
+        }
+
+    }
+
+    /**
+     * Drops the changes a rebuild built at the given time already includes. Books changed since stay in the
+     * overlay, and from then on it can only patch snapshots and indexes built at that time or later.
+     */
+    public void pruneThrough(long builtAtMillis) {
+
+        long through = builtAtMillis == Long.MAX_VALUE ? Long.MAX_VALUE : builtAtMillis - BUILD_MARGIN_MILLIS;
+
+        polling.lock();
+
+        try {
+
+            if (through <= prunedThroughMillis && !appliedSincePrune) {
+                return;
+            }
+
+            overlay.values().removeIf(change -> change.getChangedAtMillis() < through);
+            prunedThroughMillis = Math.max(prunedThroughMillis, through);
+            appliedSincePrune = false;
+            completeSinceMillis = Math.max(completeSinceMillis, through);
+
+        } finally {
+            polling.unlock();
+        }
+
+    }
+
+    /**
+     * @return true when the overlay holds every change a snapshot or index built at the given time could have missed
+     */
+    public boolean covers(long builtAtMillis) {
+        return builtAtMillis - BUILD_MARGIN_MILLIS >= completeSinceMillis;
+    }
+
+    /**
+     * @return a counter bumped whenever changes are applied
+     */
+    public long version() {
+        return version.get();
+    }
+
+    /**
+     * @return when the feed was last read to its end, or 0 if it never has been
+     */
+    public long caughtUpAtMillis() {
+        return caughtUpAtMillis;
+    }
+
+    public int size() {
+        return overlay.size();
+    }
+
+    /**
+     * Patches a full-catalog read: changed books are replaced or dropped in place, and books inserted since
+     * are added as a final page. The base books must carry their id.
+     */
+    public PageIterable<Book> overlay(PageIterable<Book> books, Projection projection) {
+
+        if (overlay.isEmpty()) {
+            return books;
+        }
+
+        Map<String, BookChange> changes = new HashMap<>(overlay);
+        List<String> attributes = projection.getAttributes() == null ? null : withId(projection.getAttributes());
+
+        return () -> new Iterator<Page<Book>>() {
+
+            private final Iterator<Page<Book>> pages = books.iterator();
+            private final Set<String> seen = new HashSet<>();
+            private boolean addedInserts;
+
+            @Override
+            public boolean hasNext() {
+                return pages.hasNext() || !addedInserts;
+            }
+
+            @Override
+            public Page<Book> next() {
+
+                if (pages.hasNext()) {
+
+                    Page<Book> page = pages.next();
+                    List<Book> items = new ArrayList<>(page.items().size());
+
+                    for (Book book : page.items()) {
+                        BookChange change = changes.get(book.getId());
+                        if (change == null) {
+                            items.add(book);
+                        } else if (seen.add(book.getId()) && !change.isRemoval()) {
+                            items.add(project(change.getBook(), attributes));
+                        }
+                    }
+
+                    return Page.create(items, page.lastEvaluatedKey());
+
+                }
+
+                if (addedInserts) {
+                    throw new NoSuchElementException();
+                }
+
+                addedInserts = true;
+
+                List<Book> inserted = changes.values()
+                                             .stream()
+                                             .filter(change -> !change.isRemoval() && !seen.contains(change.getId()))
+                                             .sorted(Comparator.comparing(BookChange::getId))
+                                             .map(change -> project(change.getBook(), attributes))
+                                             .collect(Collectors.toList());
+
+                return Page.create(inserted);
+
+            }
+
+        };
+
+    }
+
+    /**
+     * Patches the ids a search index matched: changed books are dropped and then added back if they match
+     * as they are now.
+     *
+     * @return the matching ids, in ascending id order
+     */
+    public List<String> overlaySearch(List<String> matchingIds, Map<String, String> queryParams) {
+
+        if (overlay.isEmpty()) {
+            return matchingIds;
+        }
+
+        Map<String, BookChange> changes = new HashMap<>(overlay);
+        TreeSet<String> ids = new TreeSet<>();
+
+        for (String id : matchingIds) {
+            if (!changes.containsKey(id)) {
+                ids.add(id);
+            }
+        }
+
+        for (BookChange change : changes.values()) {
+            if (!change.isRemoval() && SearchIndex.matches(change.getBook(), queryParams)) {
+                ids.add(change.getId());
+            }
+        }
+
+        return new ArrayList<>(ids);
+
+    }
+
+    private void reset(long now, String reason, LambdaLogger logger) {
+        overlay.clear();
+        completeSinceMillis = now;
+        Log.warn(logger, "Cleared the change overlay because " + reason + "; the snapshot and search index are bypassed until rebuilt.");
+    }
+
+    // The copy goes through the table schema, so it only carries the projected attributes, as a DynamoDB read would.
+    private static Book project(Book book, List<String> attributes) {
+
+        if (attributes == null) {
+            return book;
+        }
+
+        return BookSchema.TABLE_SCHEMA.mapToItem(BookSchema.TABLE_SCHEMA.itemToMap(book, attributes));
+
+    }
+
+    private static List<String> withId(List<String> attributes) {
+
+        if (attributes.contains("id")) {
+            return attributes;
+        }
+
+        List<String> keyed = new ArrayList<>(attributes);
+        keyed.add("id");
+
+        return keyed;
+
+    }
+
+}
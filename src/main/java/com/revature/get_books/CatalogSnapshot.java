@@ -0,0 +1,280 @@
+package com.revature.get_books;
+
+import software.amazon.awssdk.enhanced.dynamodb.model.Page;
+import software.amazon.awssdk.enhanced.dynamodb.model.PageIterable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+import java.util.function.LongSupplier;
+
+/**
+ * A materialized copy of the whole catalog, written by {@link CatalogSnapshotWriter} and memory-mapped here,
+ * that full-catalog reads can be served from instead of a table scan. Books are decoded straight from the
+ * mapping a page at a time as the caller iterates, skipping attributes outside the projection; nothing but
+ * the returned books is copied onto the heap.
+ *
+ * <p>The file is re-mapped whenever its modification time changes, so a refresh job only has to move a new
+ * snapshot into place. A snapshot older than the configured max age, judged by the time it was written, is
+ * treated as stale and the repository falls back to DynamoDB, unless {@link CatalogChanges} have kept it
+ * current since.</p>
+ *
+ * <p>Snapshot layout (big-endian):</p>
+ * <pre>
+ * int magic, int version, long writtenAtMillis, int bookCount
+ * bookCount x { id, isbn, title, publisher, imageKey, authors, genres }
+ *     string: u16 length (0xFFFF for null), utf8 bytes
+ *     list:   u16 count (0xFFFF for null), count x string
+ * </pre>
+ */
+public class CatalogSnapshot {
+
+    static final int MAGIC = 0x424B534E;
+    static final int VERSION = 1;
+    static final int NULL_LENGTH = 0xFFFF;
+    static final int PAGE_SIZE = 1000;
+
+    private static final int HEADER_BYTES = 20;
+
+    private final Path snapshotPath;
+    private final long maxAgeMillis;
+    private final LongSupplier clock;
+
+    private volatile Mapping mapping;
+
+    public CatalogSnapshot(Path snapshotPath, long maxAgeMillis) {
+        this(snapshotPath, maxAgeMillis, System::currentTimeMillis);
+    }
+
+    public CatalogSnapshot(Path snapshotPath, long maxAgeMillis, LongSupplier clock) {
+        this.snapshotPath = snapshotPath;
+        this.maxAgeMillis = maxAgeMillis;
+        this.clock = clock;
+    }
+
+    /**
+     * @return the snapshot at <code>BOOKS_CATALOG_SNAPSHOT_PATH</code>, or null when none is configured
+     */
+    public static CatalogSnapshot fromEnv() {
+        String path = Env.getString("BOOKS_CATALOG_SNAPSHOT_PATH", null);
+        return path == null ? null : new CatalogSnapshot(Paths.get(path), Env.getInt("BOOKS_CATALOG_SNAPSHOT_MAX_AGE_SECONDS", 900) * 1000L);
+    }
+
+    /**
+     * @return the catalog, decoded lazily page by page, or null when the snapshot is missing or stale
+     */
+    public PageIterable<Book> books(Projection projection) {
+        return books(projection, 0, false);
+    }
+
+    /**
+     * Reads a snapshot that changes made since it was written are applied to. The max age then counts from
+     * the later of the write and <code>freshThroughMillis</code>, and every book keeps its id so that changed
+     * books can be matched; {@link Projection#filter} drops it again if unrequested.
+     *
+     * @param freshThroughMillis when changes were last applied up to the present
+     */
+    public PageIterable<Book> books(Projection projection, long freshThroughMillis) {
+        return books(projection, freshThroughMillis, true);
+    }
+
+    /**
+     * @return when the current snapshot was written, or 0 when there is none
+     */
+    public long writtenAtMillis() {
+        Mapping current = currentMapping();
+        return current == null ? 0 : current.writtenAtMillis;
+    }
+
+    private PageIterable<Book> books(Projection projection, long freshThroughMillis, boolean keepId) {
+
+        Mapping current = currentMapping();
+
+        if (current == null || clock.getAsLong() - Math.max(current.writtenAtMillis, freshThroughMillis) > maxAgeMillis) {
+            return null;
+        }
+
+        Set<String> attributes = projection.getAttributes() == null ? null : new HashSet<>(projection.getAttributes());
+        if (attributes != null && keepId) {
+            attributes.add("id");
+        }
+
+        return () -> new PageIterator(current, attributes);
+
+    }
+
+    private Mapping currentMapping() {
+
+        FileTime modified;
+
+        try {
+            modified = Files.getLastModifiedTime(snapshotPath);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not read the catalog snapshot at " + snapshotPath, e);
+        }
+
+        Mapping current = mapping;
+        if (current != null && current.modified.equals(modified)) {
+            return current;
+        }
+
+        synchronized (this) {
+
+            if (mapping == null || !mapping.modified.equals(modified)) {
+                mapping = map(modified);
+            }
+
+            return mapping;
+
+        }
+
+    }
+
+    private Mapping map(FileTime modified) {
+
+        try (FileChannel channel = FileChannel.open(snapshotPath, StandardOpenOption.READ)) {
+
+            ByteBuffer snapshot = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            if (snapshot.getInt(0) != MAGIC || snapshot.getInt(4) != VERSION) {
+                throw new IllegalStateException("Not a version " + VERSION + " catalog snapshot: " + snapshotPath);
+            }
+
+            return new Mapping(snapshot, modified, snapshot.getLong(8), snapshot.getInt(16));
+
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not map the catalog snapshot at " + snapshotPath, e);
+        }
+
+    }
+
+    private static class Mapping {
+
+        private final ByteBuffer snapshot;
+        private final FileTime modified;
+        private final long writtenAtMillis;
+        private final int bookCount;
+
+        private Mapping(ByteBuffer snapshot, FileTime modified, long writtenAtMillis, int bookCount) {
+            this.snapshot = snapshot;
+            this.modified = modified;
+            this.writtenAtMillis = writtenAtMillis;
+            this.bookCount = bookCount;
+        }
+
+    }
+
+    private static class PageIterator implements Iterator<Page<Book>> {
+
+        private final ByteBuffer records;
+        private final Set<String> attributes;
+        private int remaining;
+
+        private PageIterator(Mapping mapping, Set<String> attributes) {
+            // A duplicate shares the mapped bytes but has its own position, so iterators never interfere.
+            this.records = mapping.snapshot.duplicate();
+            this.records.position(HEADER_BYTES);
+            this.attributes = attributes;
+            this.remaining = mapping.bookCount;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return remaining > 0;
+        }
+
+        @Override
+        public Page<Book> next() {
+
+            if (remaining == 0) {
+                throw new NoSuchElementException();
+            }
+
+            int pageSize = Math.min(PAGE_SIZE, remaining);
+            List<Book> books = new ArrayList<>(pageSize);
+
+            for (int i = 0; i < pageSize; i++) {
+                books.add(readBook());
+            }
+
+            remaining -= pageSize;
+
+            return Page.create(books);
+
+        }
+
+        private Book readBook() {
+            Book book = new Book();
+            book.setId(readString("id"));
+            book.setIsbn(readString("isbn"));
+            book.setTitle(readString("title"));
+            book.setPublisher(readString("publisher"));
+            book.setImageKey(readString("imageKey"));
+            book.setAuthors(readList("authors"));
+            book.setGenres(readList("genres"));
+            return book;
+        }
+
+        private boolean projected(String attribute) {
+            return attributes == null || attributes.contains(attribute);
+        }
+
+        private String readString(String attribute) {
+            return readString(projected(attribute));
+        }
+
+        private String readString(boolean keep) {
+
+            int length = records.getShort() & 0xFFFF;
+
+            if (length == NULL_LENGTH) {
+                return null;
+            }
+
+            if (!keep) {
+                records.position(records.position() + length);
+                return null;
+            }
+
+            byte[] utf8 = new byte[length];
+            records.get(utf8);
+
+            return new String(utf8, StandardCharsets.UTF_8);
+
+        }
+
+        private List<String> readList(String attribute) {
+
+            int count = records.getShort() & 0xFFFF;
+
+            if (count == NULL_LENGTH) {
+                return null;
+            }
+
+            boolean keep = projected(attribute);
+            List<String> values = keep ? new ArrayList<>(count) : null;
+
+            for (int i = 0; i < count; i++) {
+                String value = readString(keep);
+                if (keep) {
+                    values.add(value);
+                }
+            }
+
+            return values;
+
+        }
+
+    }
+
+}
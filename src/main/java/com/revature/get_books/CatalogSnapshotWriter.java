@@ -0,0 +1,104 @@
+package com.revature.get_books;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Writes the {@link CatalogSnapshot} file. Run <code>main</code> with the output path from the refresh job to
+ * snapshot the live books table; the file is written next to its destination and moved into place, so a
+ * reader never maps a partially written snapshot.
+ */
+public class CatalogSnapshotWriter {
+
+    private CatalogSnapshotWriter() { }
+
+    public static void main(String[] args) throws IOException {
+
+        if (args.length != 1) {
+            System.err.println("Usage: CatalogSnapshotWriter <snapshot-path>");
+            System.exit(2);
+        }
+
+        // Stamped with the start of the scan: any write after that may be missing, which is what the change overlay relies on.
+        long scanStartedAtMillis = System.currentTimeMillis();
+
+        List<Book> books = new ArrayList<>();
+        AwsClients.BOOK_TABLE.scan().items().forEach(books::add);
+
+        write(books, scanStartedAtMillis, Paths.get(args[0]));
+        System.out.println("Snapshotted " + books.size() + " books into " + args[0]);
+
+    }
+
+    public static void write(Collection<Book> books, long writtenAtMillis, Path snapshotPath) throws IOException {
+
+        Path tempPath = snapshotPath.resolveSibling(snapshotPath.getFileName() + ".tmp");
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempPath)))) {
+
+            out.writeInt(CatalogSnapshot.MAGIC);
+            out.writeInt(CatalogSnapshot.VERSION);
+            out.writeLong(writtenAtMillis);
+            out.writeInt(books.size());
+
+            for (Book book : books) {
+                writeString(out, book.getId());
+                writeString(out, book.getIsbn());
+                writeString(out, book.getTitle());
+                writeString(out, book.getPublisher());
+                writeString(out, book.getImageKey());
+                writeList(out, book.getAuthors());
+                writeList(out, book.getGenres());
+            }
+
+        }
+
+        Files.move(tempPath, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+
+        if (value == null) {
+            out.writeShort(CatalogSnapshot.NULL_LENGTH);
+            return;
+        }
+
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        if (utf8.length >= CatalogSnapshot.NULL_LENGTH) {
+            throw new IllegalArgumentException("Snapshot strings are limited to " + (CatalogSnapshot.NULL_LENGTH - 1) + " bytes, found: " + utf8.length);
+        }
+
+        out.writeShort(utf8.length);
+        out.write(utf8);
+
+    }
+
+    private static void writeList(DataOutputStream out, List<String> values) throws IOException {
+
+        if (values == null) {
+            out.writeShort(CatalogSnapshot.NULL_LENGTH);
+            return;
+        }
+
+        if (values.size() >= CatalogSnapshot.NULL_LENGTH) {
+            throw new IllegalArgumentException("Snapshot lists are limited to " + (CatalogSnapshot.NULL_LENGTH - 1) + " values, found: " + values.size());
+        }
+
+        out.writeShort(values.size());
+        for (String value : values) {
+            writeString(out, value);
+        }
+
+    }
+
+}
@@ -0,0 +1,165 @@
+package com.revature.get_books;
+
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Tracks the catalog version token kept in the <code>version</code> attribute of the <code>catalog</code>
+ * item of a small metadata table, bumped by whatever writes to the books table. The token is read with one
+ * <code>GetItem</code> and reused for a short TTL, and turned into strong ETags per query shape.
+ *
+ * <p>A response body carries presigned image URLs, so an unchanged catalog must not keep an ETag valid for
+ * longer than those URLs are: the ETag also covers a time bucket of {@link #PRESIGN_BUCKET_MILLIS}, shorter
+ * than the validity a freshly mapped body is guaranteed to have left.</p>
+ */
+public class CatalogVersion {
+
+    static final long PRESIGN_BUCKET_MILLIS = BookService.PRESIGN_REUSE_MARGIN.toMillis() / 2;
+
+    private static final String VERSION_KEY = "catalog";
+
+    private final DynamoDbClient dynamoDb;
+    private final String tableName;
+    private final long ttlMillis;
+    private final ExpiringLruCache<String, String> versionCache;
+
+    public CatalogVersion() {
+        this(AwsClients.DYNAMO_DB, Env.getString("BOOKS_CATALOG_VERSION_TABLE", null), Env.getInt("BOOKS_CATALOG_VERSION_TTL_MILLIS", 2000), new ExpiringLruCache<>(1));
+    }
+
+    /**
+     * @param tableName the metadata table, or null to disable versioning (and so ETags) altogether
+     */
+    public CatalogVersion(DynamoDbClient dynamoDb, String tableName, long ttlMillis, ExpiringLruCache<String, String> versionCache) {
+        this.dynamoDb = dynamoDb;
+        this.tableName = tableName;
+        this.ttlMillis = ttlMillis;
+        this.versionCache = versionCache;
+    }
+
+    /**
+     * @return the current catalog version, or null when versioning is disabled or the version can't be read
+     */
+    public String current(LambdaLogger logger) {
+
+        if (tableName == null) {
+            return null;
+        }
+
+        String version = versionCache.get(VERSION_KEY);
+        if (version != null) {
+            return version;
+        }
+
+        try {
+            version = readVersion();
+        } catch (SdkException e) {
+            Log.warn(logger, "Could not read the catalog version, serving without an ETag: " + e.getMessage());
+            return null;
+        }
+
+        if (version == null) {
+            Log.warn(logger, "No catalog version item found in " + tableName + ", serving without an ETag.");
+            return null;
+        }
+
+        versionCache.putFor(VERSION_KEY, version, ttlMillis);
+
+        return version;
+
+    }
+
+    /**
+     * Forgets the cached version so the next request reads it again.
+     */
+    public void invalidate() {
+        versionCache.clear();
+    }
+
+    /**
+     * @return a strong ETag for the given query shape, or null when no version is available
+     */
+    public String etag(String queryShape, LambdaLogger logger) {
+
+        String version = current(logger);
+
+        if (version == null) {
+            return null;
+        }
+
+        long presignBucket = versionCache.now() / PRESIGN_BUCKET_MILLIS;
+
+        return '"' + hash(version + '\n' + presignBucket + '\n' + queryShape) + '"';
+
+    }
+
+    /**
+     * @return true when the <code>If-None-Match</code> header value names the given ETag
+     */
+    public static boolean matches(String ifNoneMatch, String etag) {
+
+        if (ifNoneMatch == null || etag == null) {
+            return false;
+        }
+
+        for (String candidate : ifNoneMatch.split(",")) {
+            String trimmed = candidate.trim();
+            if (trimmed.equals("*") || trimmed.equals(etag) || trimmed.equals("W/" + etag)) {
+                return true;
+            }
+        }
+
+        return false;
+
+    }
+
+    private String readVersion() {
+
+        GetItemRequest request = GetItemRequest.builder()
+                                               .tableName(tableName)
+                                               .key(Collections.singletonMap("id", AttributeValue.builder().s(VERSION_KEY).build()))
+                                               .projectionExpression("#v")
+                                               .expressionAttributeNames(Collections.singletonMap("#v", "version"))
+                                               .build();
+
+        Map<String, AttributeValue> item = dynamoDb.getItem(request).item();
+        AttributeValue version = item == null ? null : item.get("version");
+
+        if (version == null) {
+            return null;
+        }
+
+        return version.n() != null ? version.n() : version.s();
+
+    }
+
+    private static String hash(String value) {
+
+        MessageDigest digest;
+
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is required of every JVM.", e);
+        }
+
+        byte[] hash = digest.digest(value.getBytes(StandardCharsets.UTF_8));
+        StringBuilder hex = new StringBuilder(32);
+        for (int i = 0; i < 16; i++) {
+            hex.append(Character.forDigit((hash[i] >> 4) & 0xF, 16)).append(Character.forDigit(hash[i] & 0xF, 16));
+        }
+
+        return hex.toString();
+
+    }
+
+}
@@ -0,0 +1,34 @@
+package com.revature.get_books;
+
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+
+import java.util.List;
+
+/**
+ * A source of changes to the books table, read incrementally. Changes to the same book are returned in the
+ * order they were made.
+ */
+public interface ChangeFeed {
+
+    /**
+     * @return the changes recorded since the previous poll, possibly none
+     */
+    List<BookChange> poll(LambdaLogger logger);
+
+    /**
+     * @return true when the last poll read everything the feed had at the time, rather than stopping at a
+     *         batch limit
+     */
+    default boolean isCaughtUp() {
+        return true;
+    }
+
+    /**
+     * @return true when changes may have been missed before the last poll, so state built from earlier
+     *         changes can no longer be trusted
+     */
+    default boolean hasGap() {
+        return false;
+    }
+
+}
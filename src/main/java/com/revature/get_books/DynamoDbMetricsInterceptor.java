@@ -0,0 +1,112 @@
+package com.revature.get_books;
+
+import software.amazon.awssdk.core.SdkRequest;
+import software.amazon.awssdk.core.SdkResponse;
+import software.amazon.awssdk.core.interceptor.Context;
+import software.amazon.awssdk.core.interceptor.ExecutionAttribute;
+import software.amazon.awssdk.core.interceptor.ExecutionAttributes;
+import software.amazon.awssdk.core.interceptor.ExecutionInterceptor;
+import software.amazon.awssdk.services.dynamodb.model.*;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Records DynamoDB call time, pages, scanned and returned item counts and consumed capacity into the
+ * current invocation's {@link Metrics}. The enhanced client's pages do not expose these, so they are read
+ * from the low-level responses here, and every read asks DynamoDB to return its consumed capacity. The
+ * metrics are captured when the call starts, so calls completed on SDK threads still count against the
+ * invocation that made them. Calls started on SDK threads, such as the async client's follow-up pages, carry
+ * the invocation's metrics in an execution attribute instead; see {@link MetricsCapturingDynamoDbAsyncClient}.
+ */
+public class DynamoDbMetricsInterceptor implements ExecutionInterceptor {
+
+    static final ExecutionAttribute<Metrics> METRICS = new ExecutionAttribute<>("BooksMetrics");
+    private static final ExecutionAttribute<Long> START_NANOS = new ExecutionAttribute<>("BooksCallStartNanos");
+
+    @Override
+    public SdkRequest modifyRequest(Context.ModifyRequest context, ExecutionAttributes executionAttributes) {
+
+        Metrics metrics = executionAttributes.getAttribute(METRICS);
+        SdkRequest request = context.request();
+
+        if (metrics == null) {
+            metrics = Metrics.current();
+        }
+
+        if (metrics == null) {
+            return request;
+        }
+
+        executionAttributes.putAttribute(METRICS, metrics);
+        executionAttributes.putAttribute(START_NANOS, System.nanoTime());
+
+        if (request instanceof ScanRequest) {
+            return ((ScanRequest) request).toBuilder().returnConsumedCapacity(ReturnConsumedCapacity.TOTAL).build();
+        }
+        if (request instanceof QueryRequest) {
+            return ((QueryRequest) request).toBuilder().returnConsumedCapacity(ReturnConsumedCapacity.TOTAL).build();
+        }
+        if (request instanceof BatchGetItemRequest) {
+            return ((BatchGetItemRequest) request).toBuilder().returnConsumedCapacity(ReturnConsumedCapacity.TOTAL).build();
+        }
+        if (request instanceof GetItemRequest) {
+            return ((GetItemRequest) request).toBuilder().returnConsumedCapacity(ReturnConsumedCapacity.TOTAL).build();
+        }
+
+        return request;
+
+    }
+
+    @Override
+    public void afterUnmarshalling(Context.AfterUnmarshalling context, ExecutionAttributes executionAttributes) {
+
+        Metrics metrics = executionAttributes.getAttribute(METRICS);
+
+        if (metrics == null) {
+            return;
+        }
+
+        metrics.add(Metric.DYNAMO_DB_TIME, System.nanoTime() - executionAttributes.getAttribute(START_NANOS));
+        metrics.add(Metric.DYNAMO_DB_CALLS, 1);
+
+        SdkResponse response = context.response();
+
+        if (response instanceof ScanResponse) {
+            ScanResponse scan = (ScanResponse) response;
+            recordPage(metrics, scan.scannedCount(), scan.count(), scan.consumedCapacity());
+        } else if (response instanceof QueryResponse) {
+            QueryResponse query = (QueryResponse) response;
+            recordPage(metrics, query.scannedCount(), query.count(), query.consumedCapacity());
+        } else if (response instanceof BatchGetItemResponse) {
+            BatchGetItemResponse batch = (BatchGetItemResponse) response;
+            if (batch.hasResponses()) {
+                for (List<Map<String, AttributeValue>> items : batch.responses().values()) {
+                    metrics.add(Metric.ITEMS_READ, items.size());
+                }
+            }
+            if (batch.hasConsumedCapacity()) {
+                batch.consumedCapacity().forEach(capacity -> recordCapacity(metrics, capacity));
+            }
+        } else if (response instanceof GetItemResponse) {
+            GetItemResponse get = (GetItemResponse) response;
+            metrics.add(Metric.ITEMS_READ, get.hasItem() ? 1 : 0);
+            recordCapacity(metrics, get.consumedCapacity());
+        }
+
+    }
+
+    private static void recordPage(Metrics metrics, Integer scannedCount, Integer count, ConsumedCapacity capacity) {
+        metrics.add(Metric.PAGES, 1);
+        metrics.add(Metric.ITEMS_SCANNED, scannedCount == null ? 0 : scannedCount);
+        metrics.add(Metric.ITEMS_READ, count == null ? 0 : count);
+        recordCapacity(metrics, capacity);
+    }
+
+    private static void recordCapacity(Metrics metrics, ConsumedCapacity capacity) {
+        if (capacity != null && capacity.capacityUnits() != null) {
+            metrics.add(Metric.CONSUMED_CAPACITY, Math.round(capacity.capacityUnits() * 1000));
+        }
+    }
+
+}
@@ -0,0 +1,318 @@
+package com.revature.get_books;
+
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.http.apache.ApacheHttpClient;
+import software.amazon.awssdk.services.dynamodb.model.*;
+import software.amazon.awssdk.services.dynamodb.model.Record;
+import software.amazon.awssdk.services.dynamodb.streams.DynamoDbStreamsClient;
+
+import java.util.*;
+import java.util.function.LongSupplier;
+
+/**
+ * Reads book changes from the books table's DynamoDB stream, which must carry new images
+ * (<code>NEW_IMAGE</code> or <code>NEW_AND_OLD_IMAGES</code>). Each poll reads one batch from every open
+ * shard. A child shard is only opened once its parent has been read to the end, so changes to the same book
+ * stay in order across shard splits. Shards are rediscovered when one closes and otherwise once a minute.
+ *
+ * <p>The shards listed at the first poll start at <code>initialPosition</code>; by default that is the start
+ * of the retention window, so changes made after the catalog snapshot and search index were built are
+ * replayed. Shards found later are always read from their start. A failed read skips the shard until the
+ * next poll. Records trimmed before they were read, or missing their new image, are reported as a gap.</p>
+ *
+ * <p>Every warm container runs its own feed, and DynamoDB Streams serves about five reads a second per shard
+ * across all of them, so {@link CatalogChanges#fromEnv()} spaces polls out by the number of containers the
+ * function may run. When the stream throttles anyway, the feed backs off, doubling the pause on each throttled
+ * poll up to the discovery interval, and keeps what it read before the throttle.</p>
+ */
+public class DynamoDbStreamChangeFeed implements ChangeFeed {
+
+    static final long DISCOVERY_INTERVAL_MILLIS = 60_000;
+
+    // GetRecords calls DynamoDB Streams serves per second for each shard, shared by every reader.
+    static final int READS_PER_SECOND_PER_SHARD = 5;
+
+    static final long MIN_BACKOFF_MILLIS = 1_000;
+
+    private final DynamoDbStreamsClient streams;
+    private final String streamArn;
+    private final ShardIteratorType initialPosition;
+    private final int batchSize;
+    private final LongSupplier clock;
+
+    private final Map<String, ShardReader> openShards = new LinkedHashMap<>();
+    private final Set<String> finishedShards = new HashSet<>();
+    private Set<String> initialShards;
+    private long discoveredAtMillis;
+    private boolean rediscover = true;
+    private boolean caughtUp;
+    private boolean gap;
+    private int throttledPolls;
+    private long backoffUntilMillis;
+
+    /**
+     * @param initialPosition where the shards listed at the first poll start, <code>TRIM_HORIZON</code> or
+     *                        <code>LATEST</code>
+     */
+    public DynamoDbStreamChangeFeed(DynamoDbStreamsClient streams, String streamArn, ShardIteratorType initialPosition, int batchSize, LongSupplier clock) {
+        this.streams = streams;
+        this.streamArn = streamArn;
+        this.initialPosition = initialPosition;
+        this.batchSize = batchSize;
+        this.clock = clock;
+    }
+
+    /**
+     * @return a feed for the stream at <code>BOOKS_CHANGE_STREAM_ARN</code>, or null when none is configured
+     */
+    public static DynamoDbStreamChangeFeed fromEnv() {
+
+        String streamArn = Env.getString("BOOKS_CHANGE_STREAM_ARN", null);
+
+        if (streamArn == null) {
+            return null;
+        }
+
+        DynamoDbStreamsClient streams = StartupTimings.time("dynamoDbStreamsClient", () -> DynamoDbStreamsClient.builder()
+                                                                                                               .httpClient(ApacheHttpClient.create())
+                                                                                                               .region(AwsClients.DYNAMO_DB_REGION)
+                                                                                                               .credentialsProvider(AwsClients.CREDENTIALS)
+                                                                                                               .build());
+
+        return new DynamoDbStreamChangeFeed(streams,
+                                            streamArn,
+                                            ShardIteratorType.valueOf(Env.getString("BOOKS_CHANGE_STREAM_START", "TRIM_HORIZON")),
+                                            Env.getInt("BOOKS_CHANGE_STREAM_BATCH_SIZE", 1000),
+                                            System::currentTimeMillis);
+
+    }
+
+    @Override
+    public synchronized List<BookChange> poll(LambdaLogger logger) {
+
+        gap = false;
+        caughtUp = false;
+
+        long now = clock.getAsLong();
+
+        if (now < backoffUntilMillis) {
+            return Collections.emptyList();
+        }
+
+        if (rediscover || now - discoveredAtMillis >= DISCOVERY_INTERVAL_MILLIS) {
+            try {
+                discoverShards(logger);
+            } catch (LimitExceededException e) {
+                backOff(now, logger);
+                return Collections.emptyList();
+            }
+        }
+
+        List<BookChange> changes = new ArrayList<>();
+        boolean allRead = true;
+
+        for (Iterator<ShardReader> shards = openShards.values().iterator(); shards.hasNext(); ) {
+
+            ShardReader shard = shards.next();
+
+            try {
+                allRead &= shard.read(changes, logger) < batchSize;
+            } catch (LimitExceededException e) {
+                backOff(now, logger);
+                return changes;
+            } catch (SdkException e) {
+                Log.warn(logger, "Could not read change stream shard " + shard.shardId + ", retrying on the next poll: " + e.getMessage());
+                allRead = false;
+                continue;
+            }
+
+            if (shard.iterator == null) {
+                Log.info(logger, () -> "Change stream shard " + shard.shardId + " is closed and fully read.");
+                shards.remove();
+                finishedShards.add(shard.shardId);
+                rediscover = true;
+            }
+
+        }
+
+        caughtUp = allRead && !rediscover;
+
+        if (throttledPolls > 0) {
+            int throttled = throttledPolls;
+            Log.info(logger, () -> "The change stream is serving reads again after " + throttled + " throttled polls.");
+            throttledPolls = 0;
+        }
+
+        return changes;
+
+    }
+
+    /**
+     * Pauses polling after the stream throttled a read. Only the first throttle of a run is logged, so a
+     * throttled stream doesn't flood the logs of every container reading it.
+     */
+    private void backOff(long now, LambdaLogger logger) {
+
+        long backoffMillis = Math.min(DISCOVERY_INTERVAL_MILLIS, MIN_BACKOFF_MILLIS << Math.min(throttledPolls, 6));
+
+        if (throttledPolls == 0) {
+            Log.warn(logger, "The change stream is throttling reads, too many containers are polling it; backing off.");
+        }
+
+        throttledPolls++;
+        backoffUntilMillis = now + backoffMillis;
+        Metrics.count(Metric.CHANGE_FEED_THROTTLES, 1);
+
+    }
+
+    @Override
+    public synchronized boolean isCaughtUp() {
+        return caughtUp;
+    }
+
+    @Override
+    public synchronized boolean hasGap() {
+        return gap;
+    }
+
+    private void discoverShards(LambdaLogger logger) {
+
+        Map<String, Shard> listedShards = new LinkedHashMap<>();
+        String exclusiveStartShardId = null;
+
+        do {
+            StreamDescription description = streams.describeStream(DescribeStreamRequest.builder()
+                                                                                        .streamArn(streamArn)
+                                                                                        .exclusiveStartShardId(exclusiveStartShardId)
+                                                                                        .build())
+                                                   .streamDescription();
+            description.shards().forEach(shard -> listedShards.put(shard.shardId(), shard));
+            exclusiveStartShardId = description.lastEvaluatedShardId();
+        } while (exclusiveStartShardId != null);
+
+        if (initialShards == null) {
+            initialShards = new HashSet<>(listedShards.keySet());
+        }
+
+        boolean waitingOnParent = false;
+
+        for (Shard shard : listedShards.values()) {
+
+            String shardId = shard.shardId();
+
+            if (openShards.containsKey(shardId) || finishedShards.contains(shardId)) {
+                continue;
+            }
+
+            String parentId = shard.parentShardId();
+            if (parentId != null && listedShards.containsKey(parentId) && !finishedShards.contains(parentId)) {
+                waitingOnParent = true;
+                continue;
+            }
+
+            ShardIteratorType position = initialShards.contains(shardId) ? initialPosition : ShardIteratorType.TRIM_HORIZON;
+            openShards.put(shardId, new ShardReader(shardId, position));
+
+        }
+
+        // Shards are only listed while inside the retention window; forget the ones that have aged out.
+        finishedShards.retainAll(listedShards.keySet());
+        initialShards.retainAll(listedShards.keySet());
+
+        discoveredAtMillis = clock.getAsLong();
+        rediscover = waitingOnParent && openShards.isEmpty();
+
+        Log.info(logger, () -> "Discovered change stream shards, reading " + openShards.size() + " of " + listedShards.size() + ".");
+
+    }
+
+    private class ShardReader {
+
+        private final String shardId;
+        private String iterator;
+        private String lastSequenceNumber;
+
+        private ShardReader(String shardId, ShardIteratorType position) {
+            this.shardId = shardId;
+            this.iterator = shardIterator(position, null);
+        }
+
+        /**
+         * @return how many records the batch held
+         */
+        private int read(List<BookChange> changes, LambdaLogger logger) {
+
+            GetRecordsResponse response;
+
+            try {
+                response = streams.getRecords(GetRecordsRequest.builder().shardIterator(iterator).limit(batchSize).build());
+            } catch (ExpiredIteratorException e) {
+                iterator = lastSequenceNumber == null
+                           ? shardIterator(ShardIteratorType.TRIM_HORIZON, null)
+                           : shardIterator(ShardIteratorType.AFTER_SEQUENCE_NUMBER, lastSequenceNumber);
+                return 0;
+            } catch (TrimmedDataAccessException e) {
+                Log.warn(logger, "Change stream records in shard " + shardId + " were trimmed before they were read, starting over.");
+                iterator = shardIterator(ShardIteratorType.TRIM_HORIZON, null);
+                lastSequenceNumber = null;
+                gap = true;
+                return 0;
+            }
+
+            for (Record record : response.records()) {
+
+                BookChange change = toChange(record);
+
+                if (change == null) {
+                    Log.warn(logger, "The books stream record for " + record.dynamodb().keys() + " has no new image; the stream must use NEW_IMAGE or NEW_AND_OLD_IMAGES.");
+                    gap = true;
+                } else {
+                    changes.add(change);
+                }
+
+                lastSequenceNumber = record.dynamodb().sequenceNumber();
+
+            }
+
+            iterator = response.nextShardIterator();
+
+            return response.records().size();
+
+        }
+
+        private String shardIterator(ShardIteratorType position, String sequenceNumber) {
+            return streams.getShardIterator(GetShardIteratorRequest.builder()
+                                                                   .streamArn(streamArn)
+                                                                   .shardId(shardId)
+                                                                   .shardIteratorType(position)
+                                                                   .sequenceNumber(sequenceNumber)
+                                                                   .build())
+                          .shardIterator();
+        }
+
+    }
+
+    /**
+     * @return the change the record describes, or null when it is an insert or modification without a new image
+     */
+    static BookChange toChange(Record record) {
+
+        StreamRecord change = record.dynamodb();
+        long changedAtMillis = change.approximateCreationDateTime() == null ? 0 : change.approximateCreationDateTime().toEpochMilli();
+
+        if (record.eventName() == OperationType.REMOVE) {
+            return BookChange.removal(change.keys().get("id").s(), changedAtMillis);
+        }
+
+        if (change.newImage() == null || change.newImage().isEmpty()) {
+            return null;
+        }
+
+        BookChange.Type type = record.eventName() == OperationType.INSERT ? BookChange.Type.INSERT : BookChange.Type.MODIFY;
+
+        return BookChange.upsert(type, BookSchema.TABLE_SCHEMA.mapToItem(change.newImage()), changedAtMillis);
+
+    }
+
+}
@@ -0,0 +1,32 @@
+package com.revature.get_books;
+
+import java.util.Optional;
+
+/**
+ * Typed access to the function's environment variables, falling back to a default when a variable is
+ * unset or blank.
+ */
+public class Env {
+
+    private Env() { }
+
+    public static String getString(String name, String defaultValue) {
+        return Optional.ofNullable(System.getenv(name))
+                       .map(String::trim)
+                       .filter(value -> !value.isEmpty())
+                       .orElse(defaultValue);
+    }
+
+    public static int getInt(String name, int defaultValue) {
+        String value = getString(name, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalStateException("Environment variable " + name + " must be an integer, found: " + value);
+        }
+    }
+
+}
@@ -0,0 +1,111 @@
+package com.revature.get_books;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * A size-bounded, least-recently-used cache whose entries also carry an absolute expiry time. It lives for
+ * as long as the Lambda container stays warm, so every operation is synchronized in case the runtime ever
+ * hands the same container concurrent invocations. A cache built with a max size of zero stores nothing.
+ */
+public class ExpiringLruCache<K, V> {
+
+    private final int maxEntries;
+    private final LongSupplier clock;
+    private final LinkedHashMap<K, Entry<V>> entries;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public ExpiringLruCache(int maxEntries) {
+        this(maxEntries, System::currentTimeMillis);
+    }
+
+    public ExpiringLruCache(int maxEntries, LongSupplier clock) {
+        this.maxEntries = maxEntries;
+        this.clock = clock;
+        this.entries = new LinkedHashMap<K, Entry<V>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > ExpiringLruCache.this.maxEntries) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public synchronized V get(K key) {
+
+        Entry<V> entry = entries.get(key);
+
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+
+        if (entry.expiresAt <= clock.getAsLong()) {
+            entries.remove(key);
+            misses++;
+            return null;
+        }
+
+        hits++;
+        return entry.value;
+
+    }
+
+    public synchronized void put(K key, V value, long expiresAt) {
+        if (maxEntries > 0) {
+            entries.put(key, new Entry<>(value, expiresAt));
+        }
+    }
+
+    public synchronized void putFor(K key, V value, long ttlMillis) {
+        put(key, value, clock.getAsLong() + ttlMillis);
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public long now() {
+        return clock.getAsLong();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    public synchronized String stats() {
+        return "{ size: " + entries.size() + ", hits: " + hits + ", misses: " + misses + ", evictions: " + evictions + " }";
+    }
+
+    private static class Entry<V> {
+
+        private final V value;
+        private final long expiresAt;
+
+        private Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+
+    }
+
+}
@@ -0,0 +1,146 @@
+package com.revature.get_books;
+
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import software.amazon.awssdk.enhanced.dynamodb.Expression;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Builds DynamoDB filter expressions from search parameters. The expression text only depends on the
+ * "shape" of a search (which fields are present and how many values each list field carries), so each
+ * shape is compiled into a template once and later searches of the same shape only bind new values.
+ */
+public class FilterExpressionCompiler {
+
+    private static final int MAX_CACHED_SHAPES = 256;
+
+    private final Map<String, FilterTemplate> templatesByShape = new ConcurrentHashMap<>();
+
+    public Expression compile(Map<String, String> queryParams, LambdaLogger logger) {
+
+        List<String> paramKeys = new ArrayList<>(queryParams.keySet());
+        Collections.sort(paramKeys);
+
+        List<String[]> paramValues = new ArrayList<>(paramKeys.size());
+        StringBuilder shapeBuilder = new StringBuilder();
+
+        for (String paramKey : paramKeys) {
+
+            Class<?> fieldType = Book.getFieldType(paramKey);
+
+            if (fieldType == null) {
+                String msg = "The field, " + paramKey + ", was not found on resource type: Book";
+                Log.warn(logger, msg);
+                throw new RuntimeException(msg);
+            }
+
+            String paramVal = Optional.ofNullable(queryParams.get(paramKey))
+                                      .orElseThrow(() -> {
+                                          String msg = "Unexpected null value found in parameter map.";
+                                          Log.warn(logger, msg);
+                                          return new RuntimeException(msg);
+                                      });
+
+            String[] values = List.class.equals(fieldType) ? paramVal.split(",") : new String[] { paramVal };
+
+            if (values.length == 0) {
+                String msg = "No values were provided for the field, " + paramKey + ".";
+                Log.warn(logger, msg);
+                throw new RuntimeException(msg);
+            }
+
+            shapeBuilder.append(paramKey).append('#').append(values.length).append(';');
+            paramValues.add(values);
+
+        }
+
+        String shape = shapeBuilder.toString();
+        FilterTemplate template = templatesByShape.get(shape);
+
+        if (template == null) {
+            template = FilterTemplate.compile(paramKeys, paramValues);
+            if (templatesByShape.size() < MAX_CACHED_SHAPES) {
+                templatesByShape.put(shape, template);
+            }
+        }
+
+        Expression filterExpr = template.bind(paramValues);
+
+        Log.debug(logger, () -> "Assembled filter expression with attribute values:\n{\n" +
+                "\t\"filterExpression\": \"" + filterExpr.expression() + "\"," +
+                "\t\"attributeValues\": \"" + filterExpr.expressionValues() + "\"" +
+                "\n}");
+
+        return filterExpr;
+
+    }
+
+    private static class FilterTemplate {
+
+        private final String expression;
+        private final String[] placeholders;
+
+        private FilterTemplate(String expression, String[] placeholders) {
+            this.expression = expression;
+            this.placeholders = placeholders;
+        }
+
+        private static FilterTemplate compile(List<String> paramKeys, List<String[]> paramValues) {
+
+            StringBuilder filterExprBuilder = new StringBuilder();
+            List<String> placeholders = new ArrayList<>();
+
+            for (int i = 0; i < paramKeys.size(); i++) {
+
+                if (i != 0) filterExprBuilder.append(" and ");
+                filterExprBuilder.append("(");
+
+                String paramKey = paramKeys.get(i);
+
+                if (List.class.equals(Book.getFieldType(paramKey))) {
+
+                    int valueCount = paramValues.get(i).length;
+
+                    for (int j = 0; j < valueCount; j++) {
+                        String attrKey = ":" + paramKey + j;
+                        filterExprBuilder.append("contains(").append(paramKey).append(",").append(attrKey).append(")");
+                        if (j != valueCount - 1) filterExprBuilder.append(" or ");
+                        placeholders.add(attrKey);
+                    }
+
+                } else {
+
+                    String attrKey = ":" + paramKey;
+                    filterExprBuilder.append(paramKey).append(" = ").append(attrKey);
+                    placeholders.add(attrKey);
+
+                }
+
+                filterExprBuilder.append(")");
+
+            }
+
+            return new FilterTemplate(filterExprBuilder.toString(), placeholders.toArray(new String[0]));
+
+        }
+
+        private Expression bind(List<String[]> paramValues) {
+
+            Map<String, AttributeValue> attributeValues = new HashMap<>(placeholders.length * 2);
+            int placeholderIndex = 0;
+
+            for (String[] values : paramValues) {
+                for (String value : values) {
+                    attributeValues.put(placeholders[placeholderIndex++], AttributeValue.builder().s(value).build());
+                }
+            }
+
+            return Expression.builder().expression(expression).expressionValues(attributeValues).build();
+
+        }
+
+    }
+
+}
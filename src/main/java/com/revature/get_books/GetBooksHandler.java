@@ -6,54 +6,400 @@ import com.amazonaws.services.lambda.runtime.RequestHandler;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
 
+import software.amazon.awssdk.enhanced.dynamodb.model.Page;
 import software.amazon.awssdk.enhanced.dynamodb.model.PageIterable;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
 
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 
 import java.util.*;
+import java.util.function.Consumer;
 
 public class GetBooksHandler implements RequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent> {
 
-    private static final Gson mapper = new GsonBuilder().setPrettyPrinting().create();
+    private static final Gson keyMapper = new Gson();
+
+    static final String LIMIT_PARAM = "limit";
+    static final String CURSOR_PARAM = "cursor";
+    static final String FIELDS_PARAM = "fields";
+    static final String IDS_PARAM = "ids";
+    static final String SORT_PARAM = "sort";
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    static final String PARTIAL_RESULTS_HEADER = "X-Partial-Results";
+    static final String ETAG_HEADER = "ETag";
+    static final String IF_NONE_MATCH_HEADER = "If-None-Match";
+    static final String ACCEPT_ENCODING_HEADER = "Accept-Encoding";
+    static final String CONTENT_ENCODING_HEADER = "Content-Encoding";
+    static final String VARY_HEADER = "Vary";
+    static final int DEFAULT_PAGE_LIMIT = 25;
+    static final int MAX_PAGE_LIMIT = 1000;
+    static final int MAX_LOOKUP_IDS = 1000;
+
+    // Cached bodies carry presigned image URLs that are only valid for ten minutes, so entries must expire well before that.
+    static final long MAX_CACHE_TTL_SECONDS = 300;
 
     private final BookRepository bookRepo;
     private final BookService bookService;
+    private final ExpiringLruCache<String, CachedResponse> responseCache;
+    private final long cacheTtlMillis;
+    private final boolean prettyPrint;
+    private final CatalogVersion catalogVersion;
+    private final ResponseCompression compression;
+    private final SingleFlight<String, CachedResponse> inFlightLoads;
 
     public GetBooksHandler() {
-        bookRepo = new BookRepository();
+        bookRepo = createBookRepository();
         bookService = new BookService();
+        responseCache = new ExpiringLruCache<>(Env.getInt("BOOKS_CACHE_MAX_ENTRIES", 64));
+        cacheTtlMillis = Math.min(Env.getInt("BOOKS_CACHE_TTL_SECONDS", 60), MAX_CACHE_TTL_SECONDS) * 1000;
+        prettyPrint = Boolean.parseBoolean(Env.getString("BOOKS_PRETTY_JSON", "false"));
+        catalogVersion = new CatalogVersion();
+        compression = new ResponseCompression();
+        inFlightLoads = new SingleFlight<>(Env.getInt("BOOKS_COALESCE_MAX_WAITERS", 64), Env.getInt("BOOKS_COALESCE_TIMEOUT_MILLIS", 5_000));
     }
 
     public GetBooksHandler(BookRepository bookRepo, BookService bookService) {
+        this(bookRepo, bookService, new ExpiringLruCache<>(0), 0);
+    }
+
+    public GetBooksHandler(BookRepository bookRepo, BookService bookService, ExpiringLruCache<String, CachedResponse> responseCache, long cacheTtlMillis) {
+        this(bookRepo, bookService, responseCache, cacheTtlMillis, null);
+    }
+
+    /**
+     * @param catalogVersion supplies ETags for conditional requests; may be null to serve without them
+     */
+    public GetBooksHandler(BookRepository bookRepo, BookService bookService, ExpiringLruCache<String, CachedResponse> responseCache, long cacheTtlMillis, CatalogVersion catalogVersion) {
+        this(bookRepo, bookService, responseCache, cacheTtlMillis, catalogVersion, null);
+    }
+
+    /**
+     * @param compression compresses large bodies for clients that accept it; may be null to never compress
+     */
+    public GetBooksHandler(BookRepository bookRepo, BookService bookService, ExpiringLruCache<String, CachedResponse> responseCache, long cacheTtlMillis, CatalogVersion catalogVersion, ResponseCompression compression) {
+        this(bookRepo, bookService, responseCache, cacheTtlMillis, catalogVersion, compression, new SingleFlight<>(0, 0));
+    }
+
+    /**
+     * @param inFlightLoads merges concurrent loads of the same response
+     */
+    public GetBooksHandler(BookRepository bookRepo, BookService bookService, ExpiringLruCache<String, CachedResponse> responseCache, long cacheTtlMillis,
+                           CatalogVersion catalogVersion, ResponseCompression compression, SingleFlight<String, CachedResponse> inFlightLoads) {
         this.bookRepo = bookRepo;
         this.bookService = bookService;
+        this.responseCache = responseCache;
+        this.cacheTtlMillis = Math.min(cacheTtlMillis, MAX_CACHE_TTL_SECONDS * 1000);
+        this.prettyPrint = false;
+        this.catalogVersion = catalogVersion;
+        this.compression = compression;
+        this.inFlightLoads = inFlightLoads;
     }
 
     @Override
     public APIGatewayProxyResponseEvent handleRequest(APIGatewayProxyRequestEvent requestEvent, Context context) {
 
         LambdaLogger logger = context.getLogger();
+        Metrics.start();
+
+        try {
+            return respond(requestEvent, logger);
+        } finally {
+            Metrics.finish(logger);
+        }
+
+    }
+
+    private APIGatewayProxyResponseEvent respond(APIGatewayProxyRequestEvent requestEvent, LambdaLogger logger) {
+
         APIGatewayProxyResponseEvent responseEvent = new APIGatewayProxyResponseEvent();
 
-        logger.log("Deployment successful!");
+        Log.debug(logger, "Deployment successful!");
+        StartupTimings.reportOnce(logger);
 
-        Map<String, String> queryParams = requestEvent.getQueryStringParameters();
+        // Responses built before a change to the catalog are dropped, so they need not wait out their TTL.
+        if (bookRepo.refreshChanges(logger)) {
+            responseCache.clear();
+            if (catalogVersion != null) {
+                catalogVersion.invalidate();
+            }
+        }
 
-        PageIterable<Book> books;
+        Map<String, String> queryParams = new HashMap<>();
+        Optional.ofNullable(requestEvent.getQueryStringParameters()).ifPresent(queryParams::putAll);
+
+        // The encoding is part of the key: a strong ETag and a cached body both belong to one representation.
+        String encoding = compression == null ? null : ResponseCompression.negotiate(header(requestEvent, ACCEPT_ENCODING_HEADER));
+        String cacheKey = keyMapper.toJson(new TreeMap<>(queryParams)) + (encoding == null ? "" : ";" + encoding);
+        String etag = catalogVersion == null ? null : catalogVersion.etag(cacheKey, logger);
+
+        if (CatalogVersion.matches(header(requestEvent, IF_NONE_MATCH_HEADER), etag)) {
+            Metrics.setRequestType("notModified");
+            Log.info(logger, () -> "Catalog unchanged for " + cacheKey + ", answering 304 for " + etag);
+            Map<String, String> headers = new HashMap<>();
+            headers.put(ETAG_HEADER, etag);
+            if (compression != null) {
+                headers.put(VARY_HEADER, ACCEPT_ENCODING_HEADER);
+            }
+            responseEvent.setHeaders(headers);
+            responseEvent.setStatusCode(304);
+            return responseEvent;
+        }
 
-        if (queryParams == null || queryParams.isEmpty()) {
-            books = bookRepo.getAllBooks();
+        CachedResponse response = responseCache.get(cacheKey);
+
+        // A body cached under an older catalog version or presign bucket must not be served under the new ETag.
+        if (response != null && etag != null && !etag.equals(response.getEtag())) {
+            response = null;
+        }
+
+        if (response == null) {
+            SingleFlight.Result<CachedResponse> load = inFlightLoads.execute(cacheKey, () -> loadResponse(queryParams, etag, encoding, logger));
+            response = load.getValue();
+            if (load.isShared()) {
+                Metrics.setRequestType("coalesced");
+                Metrics.count(Metric.COALESCED_REQUESTS, 1);
+            }
+            if (cacheTtlMillis > 0) {
+                responseCache.putFor(cacheKey, response, cacheTtlMillis);
+            }
+            Log.info(logger, () -> "Response cache miss for " + cacheKey + ", stats: " + responseCache.stats());
         } else {
-            books = bookRepo.searchBooks(queryParams, logger);
+            Metrics.setRequestType("cached");
+            Metrics.count(Metric.RESPONSE_CACHE_HITS, 1);
+            Log.info(logger, () -> "Response cache hit for " + cacheKey + ", stats: " + responseCache.stats());
         }
 
-        List<BookResponse> respBody = bookService.mapResponse(books, logger);
-        responseEvent.setBody(mapper.toJson(respBody));
+        responseEvent.setHeaders(response.getHeaders());
+        responseEvent.setBody(response.getBody());
         responseEvent.setStatusCode(200);
 
+        if (response.isBase64Encoded()) {
+            responseEvent.setIsBase64Encoded(true);
+        }
+
         return responseEvent;
 
     }
 
+    private CachedResponse loadResponse(Map<String, String> queryParams, String etag, String encoding, LambdaLogger logger) {
+
+        String limitParam = queryParams.remove(LIMIT_PARAM);
+        String cursorParam = queryParams.remove(CURSOR_PARAM);
+        String idsParam = queryParams.remove(IDS_PARAM);
+        String sortParam = queryParams.remove(SORT_PARAM);
+        Projection projection = Projection.parse(queryParams.remove(FIELDS_PARAM), logger);
+
+        BookResponseWriter respBody = new BookResponseWriter(prettyPrint);
+        Consumer<BookResponse> sink = projection.filter(respBody);
+        Map<String, String> headers = new HashMap<>();
+
+        if (idsParam != null) {
+
+            if (!queryParams.isEmpty() || limitParam != null || cursorParam != null || sortParam != null) {
+                String msg = "The " + IDS_PARAM + " parameter can only be combined with " + FIELDS_PARAM + ".";
+                Log.warn(logger, msg);
+                throw new RuntimeException(msg);
+            }
+
+            Metrics.setRequestType("ids");
+            List<Book> books = bookRepo.getBooksById(parseIds(idsParam, logger), projection, logger);
+
+            long mapStart = Metrics.startTimer();
+            bookService.mapPage(Page.create(books), sink, logger);
+            Metrics.stopTimer(Metric.MAP_TIME, mapStart);
+
+        } else if (sortParam != null) {
+
+            if (cursorParam != null) {
+                String msg = "The " + SORT_PARAM + " parameter can't be combined with " + CURSOR_PARAM + "; raise " + LIMIT_PARAM + " instead.";
+                Log.warn(logger, msg);
+                throw new RuntimeException(msg);
+            }
+
+            BookSort sort = BookSort.parse(sortParam, logger);
+            int limit = parseLimit(limitParam, logger);
+            Projection readProjection = sort.readProjection(projection);
+
+            PageIterable<Book> books;
+
+            if (queryParams.isEmpty()) {
+                Metrics.setRequestType("sortedAll");
+                books = bookRepo.getAllBooks(readProjection);
+            } else {
+                Metrics.setRequestType("sortedSearch");
+                books = bookRepo.searchBooks(queryParams, readProjection, logger);
+            }
+
+            // Pages are fetched lazily while the top books are picked, so this includes their DynamoDB time.
+            long sortStart = Metrics.startTimer();
+            List<Book> topBooks = sort.top(books, limit);
+            Metrics.stopTimer(Metric.SORT_TIME, sortStart);
+
+            Log.info(logger, () -> "Picked the first " + topBooks.size() + " books by " + sort + ".");
+
+            // The first books of what was read within the read budget are not necessarily the first of the search.
+            if (resumeKey(books) != null) {
+                headers.put(PARTIAL_RESULTS_HEADER, "true");
+            }
+
+            long mapStart = Metrics.startTimer();
+            bookService.mapPage(Page.create(topBooks), sink, logger);
+            Metrics.stopTimer(Metric.MAP_TIME, mapStart);
+
+        } else if (limitParam == null && cursorParam == null) {
+
+            PageIterable<Book> books;
+
+            if (queryParams.isEmpty()) {
+                Metrics.setRequestType("all");
+                books = bookRepo.getAllBooks(projection);
+            } else {
+                Metrics.setRequestType("search");
+                books = bookRepo.searchBooks(queryParams, projection, logger);
+            }
+
+            // Pages are fetched lazily while mapping, so this includes the DynamoDB time of every page after the first.
+            long mapStart = Metrics.startTimer();
+            bookService.mapResponse(books, sink, logger);
+            Metrics.stopTimer(Metric.MAP_TIME, mapStart);
+
+            // A search the read budget stopped can carry on as a paged search from where it left off.
+            String nextCursor = PageCursor.encode(resumeKey(books));
+            if (nextCursor != null) {
+                headers.put(PARTIAL_RESULTS_HEADER, "true");
+                headers.put(NEXT_CURSOR_HEADER, nextCursor);
+            }
+
+        } else {
+
+            int limit = parseLimit(limitParam, logger);
+            Map<String, AttributeValue> exclusiveStartKey = PageCursor.decode(cursorParam, logger);
+
+            Page<Book> page;
+
+            if (queryParams.isEmpty()) {
+                Metrics.setRequestType("page");
+                page = bookRepo.getBookPage(limit, exclusiveStartKey, projection);
+            } else {
+                Metrics.setRequestType("searchPage");
+                page = bookRepo.searchBookPage(queryParams, limit, exclusiveStartKey, projection, logger);
+            }
+
+            long mapStart = Metrics.startTimer();
+            bookService.mapPage(page, sink, logger);
+            Metrics.stopTimer(Metric.MAP_TIME, mapStart);
+
+            String nextCursor = PageCursor.encode(page.lastEvaluatedKey());
+            if (nextCursor != null) {
+                headers.put(NEXT_CURSOR_HEADER, nextCursor);
+            }
+
+        }
+
+        Metrics.count(Metric.ITEMS_RETURNED, respBody.getWritten());
+
+        if (etag != null) {
+            headers.put(ETAG_HEADER, etag);
+        }
+
+        // Any response may differ by Accept-Encoding once compression is on, including the uncompressed ones.
+        if (compression != null) {
+            headers.put(VARY_HEADER, ACCEPT_ENCODING_HEADER);
+        }
+
+        String body = respBody.finish();
+        boolean compress = encoding != null && compression.shouldCompress(body);
+
+        if (compress) {
+            long compressStart = Metrics.startTimer();
+            String uncompressedBody = body;
+            body = compression.encode(body);
+            Metrics.stopTimer(Metric.COMPRESS_TIME, compressStart);
+            headers.put(CONTENT_ENCODING_HEADER, encoding);
+            int encodedLength = body.length();
+            Log.debug(logger, () -> "Compressed a " + uncompressedBody.length() + " character body to " + encodedLength + " base64 characters.");
+        }
+
+        Metrics.count(Metric.RESPONSE_BYTES, body.length());
+
+        return new CachedResponse(body, headers.isEmpty() ? null : headers, etag, compress);
+
+    }
+
+    private static BookRepository createBookRepository() {
+
+        if (!"async".equalsIgnoreCase(Env.getString("BOOKS_ENGINE", "sync"))) {
+            return new BookRepository();
+        }
+
+        // The async engine overlaps page requests through a publisher rather than issuing them one at a time, so there is nothing to hedge.
+        if (Env.getInt("BOOKS_HEDGE_PERCENTILE", 0) != 0) {
+            throw new IllegalStateException("BOOKS_HEDGE_PERCENTILE is only supported with BOOKS_ENGINE=sync; unset it or set it to 0 for the async engine.");
+        }
+
+        return new AsyncBookRepository();
+
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, AttributeValue> resumeKey(PageIterable<Book> books) {
+        return books instanceof BudgetedPageIterable ? ((BudgetedPageIterable<Book>) books).resumeKey() : null;
+    }
+
+    // API Gateway passes headers through with whatever casing the client used.
+    private static String header(APIGatewayProxyRequestEvent requestEvent, String name) {
+
+        if (requestEvent.getHeaders() == null) {
+            return null;
+        }
+
+        for (Map.Entry<String, String> header : requestEvent.getHeaders().entrySet()) {
+            if (name.equalsIgnoreCase(header.getKey())) {
+                return header.getValue();
+            }
+        }
+
+        return null;
+
+    }
+
+    private List<String> parseIds(String idsParam, LambdaLogger logger) {
+
+        List<String> ids = new ArrayList<>();
+
+        for (String id : idsParam.split(",")) {
+            if (!id.trim().isEmpty()) {
+                ids.add(id.trim());
+            }
+        }
+
+        if (ids.isEmpty() || ids.size() > MAX_LOOKUP_IDS) {
+            String msg = "The " + IDS_PARAM + " parameter must list between 1 and " + MAX_LOOKUP_IDS + " ids, found: " + ids.size();
+            Log.warn(logger, msg);
+            throw new RuntimeException(msg);
+        }
+
+        return ids;
+
+    }
+
+    private int parseLimit(String limitParam, LambdaLogger logger) {
+
+        if (limitParam == null) {
+            return DEFAULT_PAGE_LIMIT;
+        }
+
+        try {
+            int limit = Integer.parseInt(limitParam);
+            if (limit > 0) {
+                return Math.min(limit, MAX_PAGE_LIMIT);
+            }
+        } catch (NumberFormatException ignored) { }
+
+        String msg = "The provided limit, " + limitParam + ", is not a positive integer.";
+        Log.warn(logger, msg);
+        throw new RuntimeException(msg);
+
+    }
+
 }
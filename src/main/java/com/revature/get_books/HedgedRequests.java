@@ -0,0 +1,261 @@
+package com.revature.get_books;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Issues a second copy of a request that is taking longer than most requests do, and takes whichever copy
+ * answers first. The delay before hedging is a latency percentile of the original requests, recomputed from
+ * every {@link #WINDOW_SAMPLES} completed requests so that it follows the table's current behaviour; until
+ * the first window is full nothing is hedged.
+ *
+ * <p>Hedges cost extra reads, so at most <code>maxHedgePercent</code> of requests are hedged. The slower copy
+ * is not interrupted, only ignored: a blocked SDK call would give up its connection for little gain. Each copy
+ * records into metrics of its own and only the answering copy's are added to the invocation, so a copy still
+ * running after the response has gone out cannot record into it.</p>
+ *
+ * <p>A request that cannot be hedged, because the delay is not known yet or the hedge budget is spent, runs
+ * on the calling thread. Otherwise both copies run on a pool of at most <code>maxThreads</code> threads, as
+ * the caller has to be free to take whichever answers first; when the pool is full the request runs on the
+ * calling thread unhedged, or its hedge is skipped.</p>
+ */
+public class HedgedRequests {
+
+    static final int WINDOW_SAMPLES = 200;
+
+    static final int DEFAULT_MAX_THREADS = 8;
+
+    private final double percentile;
+    private final long minDelayMicros;
+    private final double maxHedgeRatio;
+    private final ExecutorService executor;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong hedges = new AtomicLong();
+    private final AtomicLong wins = new AtomicLong();
+
+    private LatencyHistogram window = new LatencyHistogram();
+    private volatile long hedgeAfterMicros = -1;
+
+    /**
+     * @param percentile      the share of requests, between 0 and 100, expected to finish before a hedge is sent
+     * @param minDelayMillis  the shortest delay before hedging, however fast requests have been
+     * @param maxHedgePercent the most requests, in percent, that may be hedged
+     */
+    public HedgedRequests(double percentile, long minDelayMillis, double maxHedgePercent) {
+        this(percentile, minDelayMillis, maxHedgePercent, DEFAULT_MAX_THREADS);
+    }
+
+    /**
+     * @param maxThreads the most copies that may run off the calling thread at once
+     */
+    public HedgedRequests(double percentile, long minDelayMillis, double maxHedgePercent, int maxThreads) {
+
+        if (percentile <= 0 || percentile >= 100) {
+            throw new IllegalStateException("The hedging percentile must be between 0 and 100, found: " + percentile);
+        }
+
+        if (maxThreads < 1) {
+            throw new IllegalStateException("The hedging thread count must be positive, found: " + maxThreads);
+        }
+
+        AtomicInteger workerCount = new AtomicInteger();
+
+        this.percentile = percentile;
+        this.minDelayMicros = TimeUnit.MILLISECONDS.toMicros(minDelayMillis);
+        this.maxHedgeRatio = maxHedgePercent / 100;
+        this.executor = new ThreadPoolExecutor(0, maxThreads, 60, TimeUnit.SECONDS, new SynchronousQueue<>(), runnable -> {
+            Thread worker = new Thread(runnable, "book-hedge-" + workerCount.incrementAndGet());
+            worker.setDaemon(true);
+            return worker;
+        });
+
+    }
+
+    /**
+     * @return hedging configured by <code>BOOKS_HEDGE_PERCENTILE</code>, or null when that is unset or 0
+     */
+    public static HedgedRequests fromEnv() {
+
+        int percentile = Env.getInt("BOOKS_HEDGE_PERCENTILE", 0);
+
+        if (percentile == 0) {
+            return null;
+        }
+
+        return new HedgedRequests(percentile, Env.getInt("BOOKS_HEDGE_MIN_DELAY_MILLIS", 20), Env.getInt("BOOKS_HEDGE_MAX_PERCENT", 5),
+                                  Env.getInt("BOOKS_HEDGE_MAX_THREADS", DEFAULT_MAX_THREADS));
+
+    }
+
+    public <T> T execute(Supplier<T> request) {
+
+        requests.incrementAndGet();
+
+        long start = System.nanoTime();
+        long hedgeAfter = hedgeAfterMicros;
+
+        if (hedgeAfter < 0 || !withinBudget()) {
+            return runInline(request, start);
+        }
+
+        Metrics primaryMetrics = Metrics.fork();
+        CompletableFuture<T> primary;
+
+        try {
+            primary = CompletableFuture.supplyAsync(Metrics.recordInto(primaryMetrics, request), executor);
+        } catch (RejectedExecutionException e) {
+            return runInline(request, start);
+        }
+
+        // Only the original copy is timed, so the percentile describes unhedged latency whatever the hedges do.
+        primary.whenComplete((value, error) -> {
+            if (error == null) {
+                record((System.nanoTime() - start) / 1000);
+            }
+        });
+
+        try {
+            T value = primary.get(hedgeAfter, TimeUnit.MICROSECONDS);
+            Metrics.merge(primaryMetrics);
+            return value;
+        } catch (TimeoutException e) {
+            if (!withinBudget()) {
+                return join(primary, primaryMetrics);
+            }
+        } catch (ExecutionException e) {
+            Metrics.merge(primaryMetrics);
+            throw unwrap(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for a DynamoDB request.", e);
+        }
+
+        Metrics hedgeMetrics = Metrics.fork();
+        CompletableFuture<T> hedge;
+
+        try {
+            hedge = CompletableFuture.supplyAsync(Metrics.recordInto(hedgeMetrics, request), executor);
+        } catch (RejectedExecutionException e) {
+            return join(primary, primaryMetrics);
+        }
+
+        hedges.incrementAndGet();
+        Metrics.count(Metric.HEDGED_REQUESTS, 1);
+        CompletableFuture<Answer<T>> first = new CompletableFuture<>();
+        AtomicInteger failures = new AtomicInteger();
+
+        primary.whenComplete(firstSuccess(first, failures, false));
+        hedge.whenComplete(firstSuccess(first, failures, true));
+
+        Answer<T> answer;
+
+        try {
+            answer = join(first);
+        } catch (RuntimeException e) {
+            // Both copies have failed and finished; the original's attempt is the one reported.
+            Metrics.merge(primaryMetrics);
+            throw e;
+        }
+
+        if (answer.hedge) {
+            wins.incrementAndGet();
+            Metrics.count(Metric.HEDGE_WINS, 1);
+        }
+
+        Metrics.merge(answer.hedge ? hedgeMetrics : primaryMetrics);
+
+        return answer.value;
+
+    }
+
+    public long requests() {
+        return requests.get();
+    }
+
+    public long hedges() {
+        return hedges.get();
+    }
+
+    public long wins() {
+        return wins.get();
+    }
+
+    /**
+     * @return how long a request may take before it is hedged, or -1 while there are too few samples to tell
+     */
+    public long hedgeAfterMicros() {
+        return hedgeAfterMicros;
+    }
+
+    private boolean withinBudget() {
+        return hedges.get() < requests.get() * maxHedgeRatio;
+    }
+
+    private <T> T runInline(Supplier<T> request, long start) {
+        T value = request.get();
+        record((System.nanoTime() - start) / 1000);
+        return value;
+    }
+
+    private synchronized void record(long latencyMicros) {
+
+        window.record(latencyMicros);
+
+        if (window.count() >= WINDOW_SAMPLES) {
+            hedgeAfterMicros = Math.max(minDelayMicros, window.percentile(percentile));
+            window = new LatencyHistogram();
+        }
+
+    }
+
+    // The first copy to succeed completes the result; it only fails once both copies have.
+    private static <T> BiConsumer<T, Throwable> firstSuccess(CompletableFuture<Answer<T>> first, AtomicInteger failures, boolean hedge) {
+        return (value, error) -> {
+            if (error == null) {
+                first.complete(new Answer<>(value, hedge));
+            } else if (failures.incrementAndGet() == 2) {
+                first.completeExceptionally(error);
+            }
+        };
+    }
+
+    private static <T> T join(CompletableFuture<T> copy, Metrics copyMetrics) {
+        try {
+            return join(copy);
+        } finally {
+            Metrics.merge(copyMetrics);
+        }
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw unwrap(e.getCause());
+        }
+    }
+
+    private static class Answer<T> {
+
+        private final T value;
+        private final boolean hedge;
+
+        private Answer(T value, boolean hedge) {
+            this.value = value;
+            this.hedge = hedge;
+        }
+
+    }
+
+    private static RuntimeException unwrap(Throwable cause) {
+        if (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause instanceof RuntimeException ? (RuntimeException) cause : new RuntimeException(cause);
+    }
+
+}
@@ -0,0 +1,200 @@
+package com.revature.get_books;
+
+import software.amazon.awssdk.enhanced.dynamodb.model.Page;
+import software.amazon.awssdk.enhanced.dynamodb.model.PageIterable;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Drains several page sources at once, one worker each, and hands their pages to the caller as they arrive,
+ * so pages from different sources interleave while each source's own pages stay in order. At most
+ * <code>capacity</code> pages wait for the caller; past that the workers block, so memory is bounded by the
+ * buffer rather than by what the sources hold. When a source fails the other workers stop at their next page
+ * and the caller gets the failure.
+ *
+ * <p>A worker that cannot hand over a page for <code>handoffTimeoutMillis</code> assumes the caller has given
+ * up on the iteration and stops every worker, so an abandoned iterator does not hold its threads; a caller
+ * that was only slow gets a failure instead of its next page. A caller that stops early on purpose stops the
+ * workers at once through {@link PageIterators#close}.</p>
+ */
+public class InterleavedPageIterable<T> implements PageIterable<T> {
+
+    private static final long POLL_MILLIS = 50;
+
+    private final List<? extends Iterable<Page<T>>> sources;
+    private final ExecutorService executor;
+    private final int capacity;
+    private final long handoffTimeoutMillis;
+
+    public InterleavedPageIterable(List<? extends Iterable<Page<T>>> sources, ExecutorService executor, int capacity, long handoffTimeoutMillis) {
+
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Page buffer capacity must be at least 1, found: " + capacity);
+        }
+
+        this.sources = sources;
+        this.executor = executor;
+        this.capacity = capacity;
+        this.handoffTimeoutMillis = handoffTimeoutMillis;
+
+    }
+
+    @Override
+    public Iterator<Page<T>> iterator() {
+
+        Interleaving<T> interleaving = new Interleaving<>(sources.size(), capacity, handoffTimeoutMillis);
+
+        for (Iterable<Page<T>> source : sources) {
+            executor.execute(Metrics.propagate(() -> interleaving.drain(source))::get);
+        }
+
+        return interleaving;
+
+    }
+
+    private static class Interleaving<T> implements Iterator<Page<T>>, AutoCloseable {
+
+        private static final Object SOURCE_DONE = new Object();
+
+        private final int sourceCount;
+        private final long handoffTimeoutMillis;
+        private final BlockingQueue<Object> signals;
+        private final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+
+        private volatile boolean stopped;
+        private int sourcesDone;
+        private Page<T> nextPage;
+
+        private Interleaving(int sourceCount, int capacity, long handoffTimeoutMillis) {
+            this.sourceCount = sourceCount;
+            this.handoffTimeoutMillis = handoffTimeoutMillis;
+            this.signals = new ArrayBlockingQueue<>(capacity);
+        }
+
+        // Runs on a worker thread.
+        private Void drain(Iterable<Page<T>> source) {
+
+            Iterator<Page<T>> pages = null;
+
+            try {
+                pages = source.iterator();
+                while (pages.hasNext()) {
+                    if (stopped || !handOff(pages.next())) {
+                        return null;
+                    }
+                }
+                handOff(SOURCE_DONE);
+            } catch (Throwable e) {
+                // Whatever the failure, the caller must hear of it rather than wait for this source forever.
+                failure.compareAndSet(null, e instanceof RuntimeException ? (RuntimeException) e : new RuntimeException(e));
+                stopped = true;
+            } finally {
+                if (pages != null) {
+                    PageIterators.close(pages);
+                }
+            }
+
+            return null;
+
+        }
+
+        private boolean handOff(Object signal) {
+
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(handoffTimeoutMillis);
+
+            try {
+                while (!stopped) {
+                    if (signals.offer(signal, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                        return true;
+                    }
+                    if (System.nanoTime() > deadline) {
+                        failure.compareAndSet(null, new RuntimeException("No page was taken for " + handoffTimeoutMillis + " ms, stopped reading."));
+                        stopped = true;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failure.compareAndSet(null, new RuntimeException("Interrupted while reading a page source.", e));
+                stopped = true;
+            }
+
+            return false;
+
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean hasNext() {
+
+            while (nextPage == null && sourcesDone < sourceCount) {
+
+                Object signal = awaitSignal();
+
+                if (signal == SOURCE_DONE) {
+                    sourcesDone++;
+                } else {
+                    nextPage = (Page<T>) signal;
+                }
+
+            }
+
+            return nextPage != null;
+
+        }
+
+        @Override
+        public Page<T> next() {
+
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            Page<T> page = nextPage;
+            nextPage = null;
+
+            return page;
+
+        }
+
+        // Stops every worker at its next page; the buffered pages are dropped with the iterator.
+        @Override
+        public void close() {
+            stopped = true;
+            signals.clear();
+        }
+
+        private Object awaitSignal() {
+
+            try {
+                while (true) {
+
+                    RuntimeException error = failure.get();
+                    if (error != null) {
+                        stopped = true;
+                        throw error;
+                    }
+
+                    Object signal = signals.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                    if (signal != null) {
+                        return signal;
+                    }
+
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                stopped = true;
+                throw new RuntimeException("Interrupted while waiting for the next page.", e);
+            }
+
+        }
+
+    }
+
+}
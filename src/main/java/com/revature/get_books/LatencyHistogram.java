@@ -0,0 +1,75 @@
+package com.revature.get_books;
+
+/**
+ * A fixed-size log-linear histogram of non-negative values: exact below 8, and eight buckets per power of
+ * two above that, so any reported percentile is within 12.5% of the recorded value. Recording is a few
+ * arithmetic operations and one array increment, with no allocation.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private final long[] counts = new long[SUB_BUCKETS + SUB_BUCKETS * (63 - SUB_BUCKET_BITS)];
+    private long total;
+
+    public synchronized void record(long value) {
+        counts[bucketOf(Math.max(0, value))]++;
+        total++;
+    }
+
+    public synchronized long count() {
+        return total;
+    }
+
+    /**
+     * @param percentile between 0 and 100
+     * @return the upper bound of the bucket holding the given percentile, or 0 when nothing was recorded
+     */
+    public synchronized long percentile(double percentile) {
+
+        if (total == 0) {
+            return 0;
+        }
+
+        long target = Math.max(1, (long) Math.ceil(total * percentile / 100));
+        long seen = 0;
+
+        for (int bucket = 0; bucket < counts.length; bucket++) {
+            seen += counts[bucket];
+            if (seen >= target) {
+                return upperBound(bucket);
+            }
+        }
+
+        return upperBound(counts.length - 1);
+
+    }
+
+    static int bucketOf(long value) {
+
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) ((value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1));
+
+        return SUB_BUCKETS + (exponent - SUB_BUCKET_BITS) * SUB_BUCKETS + subBucket;
+
+    }
+
+    static long upperBound(int bucket) {
+
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+
+        int exponent = (bucket - SUB_BUCKETS) / SUB_BUCKETS + SUB_BUCKET_BITS;
+        int subBucket = (bucket - SUB_BUCKETS) % SUB_BUCKETS;
+
+        return ((SUB_BUCKETS + subBucket + 1L) << (exponent - SUB_BUCKET_BITS)) - 1;
+
+    }
+
+}
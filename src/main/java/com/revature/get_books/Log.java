@@ -0,0 +1,103 @@
+package com.revature.get_books;
+
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * A level-gated front for {@link LambdaLogger}. The level comes from <code>LOG_LEVEL</code> (default INFO) and
+ * anything below it is dropped before its message is built: expensive messages are passed as suppliers, and
+ * per-item call sites check {@link #isDebugSampled()} first so that at INFO they cost one field read. Per-item
+ * debug output is further sampled to one in <code>LOG_DEBUG_SAMPLE_RATE</code> items (default 100). A level that
+ * is not recognised falls back to INFO, with a warning on the first line logged.
+ */
+public class Log {
+
+    public enum Level { DEBUG, INFO, WARN, ERROR, OFF }
+
+    private static final AtomicLong debugSampleCounter = new AtomicLong();
+    private static final AtomicReference<String> pendingWarning = new AtomicReference<>();
+
+    private static volatile Level level = parseLevel(Env.getString("LOG_LEVEL", Level.INFO.name()));
+    private static volatile int debugSampleRate = Math.max(1, Env.getInt("LOG_DEBUG_SAMPLE_RATE", 100));
+
+    private Log() { }
+
+    /**
+     * @return the named level, or INFO when the name is not a level; the warning is held until a logger is at hand
+     */
+    static Level parseLevel(String name) {
+        try {
+            return Level.valueOf(name.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            pendingWarning.set("The provided LOG_LEVEL, " + name + ", is not one of: " + Arrays.toString(Level.values()) + "; logging at INFO.");
+            return Level.INFO;
+        }
+    }
+
+    public static void setLevel(Level newLevel) {
+        level = newLevel;
+    }
+
+    public static void setDebugSampleRate(int sampleRate) {
+        debugSampleRate = Math.max(1, sampleRate);
+    }
+
+    public static boolean isEnabled(Level messageLevel) {
+        return messageLevel.compareTo(level) >= 0 && messageLevel != Level.OFF;
+    }
+
+    public static boolean isDebugEnabled() {
+        return isEnabled(Level.DEBUG);
+    }
+
+    public static boolean isDebugSampled() {
+        return isDebugEnabled() && debugSampleCounter.getAndIncrement() % debugSampleRate == 0;
+    }
+
+    public static void debug(LambdaLogger logger, String message) {
+        log(logger, Level.DEBUG, message);
+    }
+
+    public static void debug(LambdaLogger logger, Supplier<String> message) {
+        if (isEnabled(Level.DEBUG)) {
+            write(logger, Level.DEBUG, message.get());
+        }
+    }
+
+    public static void info(LambdaLogger logger, String message) {
+        log(logger, Level.INFO, message);
+    }
+
+    public static void info(LambdaLogger logger, Supplier<String> message) {
+        if (isEnabled(Level.INFO)) {
+            write(logger, Level.INFO, message.get());
+        }
+    }
+
+    public static void warn(LambdaLogger logger, String message) {
+        log(logger, Level.WARN, message);
+    }
+
+    public static void error(LambdaLogger logger, String message) {
+        log(logger, Level.ERROR, message);
+    }
+
+    private static void log(LambdaLogger logger, Level messageLevel, String message) {
+        if (isEnabled(messageLevel)) {
+            write(logger, messageLevel, message);
+        }
+    }
+
+    private static void write(LambdaLogger logger, Level messageLevel, String message) {
+        String warning = pendingWarning.getAndSet(null);
+        if (warning != null) {
+            logger.log("[" + Level.WARN + "] " + warning);
+        }
+        logger.log("[" + messageLevel + "] " + message);
+    }
+
+}
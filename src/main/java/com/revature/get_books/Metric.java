@@ -0,0 +1,48 @@
+package com.revature.get_books;
+
+/**
+ * The values recorded for every invocation. Durations are accumulated in nanoseconds and capacity in
+ * thousandths of a unit, so the hot path only ever adds longs; {@link #scale} converts them for output.
+ */
+public enum Metric {
+
+    TOTAL_TIME("totalMillis", "Milliseconds", 1e6),
+    DYNAMO_DB_TIME("dynamoDbMillis", "Milliseconds", 1e6),
+    MAP_TIME("mapMillis", "Milliseconds", 1e6),
+    SORT_TIME("sortMillis", "Milliseconds", 1e6),
+    PRESIGN_TIME("presignMillis", "Milliseconds", 1e6),
+    SERIALIZE_TIME("serializeMillis", "Milliseconds", 1e6),
+    COMPRESS_TIME("compressMillis", "Milliseconds", 1e6),
+    DYNAMO_DB_CALLS("dynamoDbCalls", "Count", 1),
+    PAGES("pages", "Count", 1),
+    ITEMS_SCANNED("itemsScanned", "Count", 1),
+    ITEMS_READ("itemsRead", "Count", 1),
+    ITEMS_RETURNED("itemsReturned", "Count", 1),
+    ITEMS_SORTED("itemsSorted", "Count", 1),
+    CONSUMED_CAPACITY("consumedCapacity", "None", 1e3),
+    PRESIGN_CALLS("presignCalls", "Count", 1),
+    PRESIGN_CACHE_HITS("presignCacheHits", "Count", 1),
+    RESPONSE_CACHE_HITS("responseCacheHits", "Count", 1),
+    COALESCED_REQUESTS("coalescedRequests", "Count", 1),
+    HEDGED_REQUESTS("hedgedRequests", "Count", 1),
+    HEDGE_WINS("hedgeWins", "Count", 1),
+    SNAPSHOT_READS("snapshotReads", "Count", 1),
+    CHANGES_APPLIED("changesApplied", "Count", 1),
+    CHANGE_FEED_THROTTLES("changeFeedThrottles", "Count", 1),
+    RESPONSE_BYTES("responseBytes", "Bytes", 1);
+
+    final String metricName;
+    final String unit;
+    final double scale;
+
+    Metric(String metricName, String unit, double scale) {
+        this.metricName = metricName;
+        this.unit = unit;
+        this.scale = scale;
+    }
+
+    boolean isDuration() {
+        return "Milliseconds".equals(unit);
+    }
+
+}
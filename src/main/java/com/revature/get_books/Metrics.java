@@ -0,0 +1,244 @@
+package com.revature.get_books;
+
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+/**
+ * Per-invocation instrumentation. The handler starts a set of metrics for each request and binds it to its
+ * thread; code further down records into whatever is bound through the static helpers, which are no-ops when
+ * nothing is, so neither the repository nor the service needs a metrics parameter. At the end of the request
+ * the values are written as one CloudWatch embedded metric format line, together with the container's
+ * running p50/p99 for each duration. A duration only enters those percentiles on invocations that recorded
+ * it, so a stage that most requests skip is not described by a run of zeros. Set <code>BOOKS_METRICS=false</code> to turn recording off entirely.
+ */
+public class Metrics {
+
+    static final String NAMESPACE = "Bookstore/GetBooks";
+
+    private static final long NOT_TIMED = Long.MIN_VALUE;
+    private static final Metric[] METRICS = Metric.values();
+    private static final ThreadLocal<Metrics> current = new ThreadLocal<>();
+    private static final Map<Metric, LatencyHistogram> containerHistograms = new EnumMap<>(Metric.class);
+    private static final String functionName = Env.getString("AWS_LAMBDA_FUNCTION_NAME", "local");
+
+    private static volatile boolean enabled = Boolean.parseBoolean(Env.getString("BOOKS_METRICS", "true"));
+
+    static {
+        for (Metric metric : METRICS) {
+            if (metric.isDuration()) {
+                containerHistograms.put(metric, new LatencyHistogram());
+            }
+        }
+    }
+
+    private final AtomicLongArray values = new AtomicLongArray(METRICS.length);
+    private final AtomicIntegerArray recorded = new AtomicIntegerArray(METRICS.length);
+    private final long startNanos = System.nanoTime();
+    private volatile String requestType = "unknown";
+
+    static void setEnabled(boolean enabled) {
+        Metrics.enabled = enabled;
+    }
+
+    /**
+     * Starts recording for the calling thread's invocation.
+     *
+     * @return the new metrics, or null when recording is disabled
+     */
+    public static Metrics start() {
+
+        if (!enabled) {
+            return null;
+        }
+
+        Metrics metrics = new Metrics();
+        current.set(metrics);
+
+        return metrics;
+
+    }
+
+    public static Metrics current() {
+        return current.get();
+    }
+
+    /**
+     * Wraps a task handed to another thread so that it records into the submitting invocation's metrics.
+     */
+    public static <T> Supplier<T> propagate(Supplier<T> task) {
+
+        Metrics metrics = current.get();
+
+        if (metrics == null) {
+            return task;
+        }
+
+        return () -> {
+            current.set(metrics);
+            try {
+                return task.get();
+            } finally {
+                current.remove();
+            }
+        };
+
+    }
+
+    /**
+     * @return an empty set of metrics for work whose recordings may yet be dropped, or null when the calling
+     *         thread records nothing; see {@link #recordInto} and {@link #merge}
+     */
+    public static Metrics fork() {
+        return current.get() == null ? null : new Metrics();
+    }
+
+    /**
+     * Wraps a task handed to another thread so that it records into the given metrics, or into nothing when
+     * they are null.
+     */
+    public static <T> Supplier<T> recordInto(Metrics metrics, Supplier<T> task) {
+        return () -> {
+            if (metrics == null) {
+                current.remove();
+            } else {
+                current.set(metrics);
+            }
+            try {
+                return task.get();
+            } finally {
+                current.remove();
+            }
+        };
+    }
+
+    /**
+     * Adds metrics from {@link #fork} into the calling thread's invocation.
+     */
+    public static void merge(Metrics forked) {
+        Metrics metrics = current.get();
+        if (metrics != null && forked != null) {
+            for (int i = 0; i < METRICS.length; i++) {
+                if (forked.recorded.get(i) != 0) {
+                    metrics.values.addAndGet(i, forked.values.get(i));
+                    metrics.recorded.set(i, 1);
+                }
+            }
+        }
+    }
+
+    public static void count(Metric metric, long delta) {
+        Metrics metrics = current.get();
+        if (metrics != null) {
+            metrics.add(metric, delta);
+        }
+    }
+
+    public static long startTimer() {
+        return current.get() == null ? NOT_TIMED : System.nanoTime();
+    }
+
+    public static void stopTimer(Metric metric, long startNanos) {
+        if (startNanos != NOT_TIMED) {
+            count(metric, System.nanoTime() - startNanos);
+        }
+    }
+
+    public static void setRequestType(String requestType) {
+        Metrics metrics = current.get();
+        if (metrics != null) {
+            metrics.requestType = requestType;
+        }
+    }
+
+    /**
+     * Ends the calling thread's invocation, folds its durations into the container histograms and writes
+     * the metric line.
+     */
+    public static void finish(LambdaLogger logger) {
+
+        Metrics metrics = current.get();
+
+        if (metrics == null) {
+            return;
+        }
+
+        current.remove();
+        metrics.add(Metric.TOTAL_TIME, System.nanoTime() - metrics.startNanos);
+
+        containerHistograms.forEach((metric, histogram) -> {
+            if (metrics.isRecorded(metric)) {
+                histogram.record(metrics.get(metric) / 1000);
+            }
+        });
+
+        logger.log(metrics.toEmf(System.currentTimeMillis()));
+
+    }
+
+    public void add(Metric metric, long delta) {
+        values.addAndGet(metric.ordinal(), delta);
+        recorded.lazySet(metric.ordinal(), 1);
+    }
+
+    public long get(Metric metric) {
+        return values.get(metric.ordinal());
+    }
+
+    /**
+     * @return true when anything was recorded for the metric this invocation, even a zero
+     */
+    public boolean isRecorded(Metric metric) {
+        return recorded.get(metric.ordinal()) != 0;
+    }
+
+    String toEmf(long timestampMillis) {
+
+        StringBuilder emf = new StringBuilder(1024);
+
+        emf.append("{\"_aws\":{\"Timestamp\":").append(timestampMillis)
+           .append(",\"CloudWatchMetrics\":[{\"Namespace\":\"").append(NAMESPACE)
+           .append("\",\"Dimensions\":[[\"FunctionName\"]],\"Metrics\":[");
+
+        for (Metric metric : METRICS) {
+            if (metric.ordinal() > 0) {
+                emf.append(',');
+            }
+            emf.append("{\"Name\":\"").append(metric.metricName).append("\",\"Unit\":\"").append(metric.unit).append("\"}");
+        }
+
+        emf.append("]}]},\"FunctionName\":\"").append(functionName)
+           .append("\",\"requestType\":\"").append(requestType).append('"');
+
+        for (Metric metric : METRICS) {
+            emf.append(",\"").append(metric.metricName).append("\":");
+            if (metric.scale == 1) {
+                emf.append(get(metric));
+            } else {
+                emf.append(get(metric) / metric.scale);
+            }
+        }
+
+        // Container percentiles are plain properties rather than metrics: CloudWatch computes its own
+        // percentiles across containers, these show what this container has seen since it started.
+        emf.append(",\"containerPercentiles\":{");
+
+        boolean first = true;
+        for (Map.Entry<Metric, LatencyHistogram> entry : containerHistograms.entrySet()) {
+            LatencyHistogram histogram = entry.getValue();
+            emf.append(first ? "" : ",")
+               .append('"').append(entry.getKey().metricName).append("\":{\"count\":").append(histogram.count())
+               .append(",\"p50\":").append(histogram.percentile(50) / 1000.0)
+               .append(",\"p99\":").append(histogram.percentile(99) / 1000.0).append('}');
+            first = false;
+        }
+
+        return emf.append("}}").toString();
+
+    }
+
+}
@@ -0,0 +1,85 @@
+package com.revature.get_books;
+
+import software.amazon.awssdk.awscore.AwsRequestOverrideConfiguration;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.model.*;
+import software.amazon.awssdk.services.dynamodb.paginators.QueryPublisher;
+import software.amazon.awssdk.services.dynamodb.paginators.ScanPublisher;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Hands the async enhanced client's paginated scans and queries the invocation's {@link Metrics} when their
+ * publisher is created. The SDK sends follow-up pages from its own threads, where {@link Metrics#current()}
+ * is not set, but it builds them from the first request, so an execution attribute put on that request
+ * reaches {@link DynamoDbMetricsInterceptor} for every page. Only the operations the enhanced table uses
+ * for reads are delegated.
+ */
+public class MetricsCapturingDynamoDbAsyncClient implements DynamoDbAsyncClient {
+
+    private final DynamoDbAsyncClient dynamoDb;
+
+    public MetricsCapturingDynamoDbAsyncClient(DynamoDbAsyncClient dynamoDb) {
+        this.dynamoDb = dynamoDb;
+    }
+
+    @Override
+    public ScanPublisher scanPaginator(ScanRequest request) {
+        AwsRequestOverrideConfiguration configuration = withCurrentMetrics(request.overrideConfiguration().orElse(null));
+        return dynamoDb.scanPaginator(configuration == null ? request : request.toBuilder().overrideConfiguration(configuration).build());
+    }
+
+    @Override
+    public QueryPublisher queryPaginator(QueryRequest request) {
+        AwsRequestOverrideConfiguration configuration = withCurrentMetrics(request.overrideConfiguration().orElse(null));
+        return dynamoDb.queryPaginator(configuration == null ? request : request.toBuilder().overrideConfiguration(configuration).build());
+    }
+
+    @Override
+    public CompletableFuture<ScanResponse> scan(ScanRequest request) {
+        return dynamoDb.scan(request);
+    }
+
+    @Override
+    public CompletableFuture<QueryResponse> query(QueryRequest request) {
+        return dynamoDb.query(request);
+    }
+
+    @Override
+    public CompletableFuture<GetItemResponse> getItem(GetItemRequest request) {
+        return dynamoDb.getItem(request);
+    }
+
+    @Override
+    public CompletableFuture<BatchGetItemResponse> batchGetItem(BatchGetItemRequest request) {
+        return dynamoDb.batchGetItem(request);
+    }
+
+    @Override
+    public String serviceName() {
+        return dynamoDb.serviceName();
+    }
+
+    @Override
+    public void close() {
+        dynamoDb.close();
+    }
+
+    /**
+     * @return the configuration with the current invocation's metrics added, or null outside an invocation
+     */
+    static AwsRequestOverrideConfiguration withCurrentMetrics(AwsRequestOverrideConfiguration configuration) {
+
+        Metrics metrics = Metrics.current();
+
+        if (metrics == null) {
+            return null;
+        }
+
+        AwsRequestOverrideConfiguration.Builder builder = configuration == null ? AwsRequestOverrideConfiguration.builder() : configuration.toBuilder();
+
+        return builder.putExecutionAttribute(DynamoDbMetricsInterceptor.METRICS, metrics).build();
+
+    }
+
+}
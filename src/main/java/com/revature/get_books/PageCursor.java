@@ -0,0 +1,66 @@
+package com.revature.get_books;
+
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.reflect.TypeToken;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Translates between the DynamoDB <code>lastEvaluatedKey</code>/<code>exclusiveStartKey</code> maps and the
+ * opaque cursor string handed to API clients. Every key attribute of the books table (and of its indexes)
+ * is a string, so the cursor is just the URL-safe Base64 encoding of a flat JSON object.
+ */
+public class PageCursor {
+
+    private static final Gson mapper = new Gson();
+    private static final Type KEY_MAP_TYPE = new TypeToken<Map<String, String>>(){}.getType();
+
+    private PageCursor() { }
+
+    public static String encode(Map<String, AttributeValue> lastEvaluatedKey) {
+
+        if (lastEvaluatedKey == null || lastEvaluatedKey.isEmpty()) {
+            return null;
+        }
+
+        Map<String, String> keyValues = new TreeMap<>();
+        lastEvaluatedKey.forEach((attrName, attrVal) -> keyValues.put(attrName, attrVal.s()));
+
+        byte[] json = mapper.toJson(keyValues).getBytes(StandardCharsets.UTF_8);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(json);
+
+    }
+
+    public static Map<String, AttributeValue> decode(String cursor, LambdaLogger logger) {
+
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+
+        Map<String, String> keyValues;
+
+        try {
+            String json = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            keyValues = mapper.fromJson(json, KEY_MAP_TYPE);
+        } catch (IllegalArgumentException | JsonSyntaxException e) {
+            keyValues = null;
+        }
+
+        if (keyValues == null || keyValues.isEmpty() || keyValues.containsValue(null)) {
+            String msg = "The provided cursor, " + cursor + ", is not a valid page cursor.";
+            Log.warn(logger, msg);
+            throw new RuntimeException(msg);
+        }
+
+        Map<String, AttributeValue> startKey = new HashMap<>();
+        keyValues.forEach((attrName, attrVal) -> startKey.put(attrName, AttributeValue.builder().s(attrVal).build()));
+        return startKey;
+
+    }
+
+}
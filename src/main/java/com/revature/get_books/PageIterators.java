@@ -0,0 +1,28 @@
+package com.revature.get_books;
+
+import java.util.Iterator;
+
+/**
+ * Releases page iterators that hold a read open, such as a prefetching subscription or parallel segment
+ * workers, when the caller stops before their last page. Such iterators implement {@link AutoCloseable};
+ * closing any other iterator, or one already read to the end, does nothing.
+ */
+public class PageIterators {
+
+    private PageIterators() { }
+
+    public static void close(Iterator<?> pages) {
+
+        if (!(pages instanceof AutoCloseable)) {
+            return;
+        }
+
+        try {
+            ((AutoCloseable) pages).close();
+        } catch (Exception e) {
+            throw new RuntimeException("Could not release a page iterator.", e);
+        }
+
+    }
+
+}
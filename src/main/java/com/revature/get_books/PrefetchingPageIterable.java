@@ -0,0 +1,171 @@
+package com.revature.get_books;
+
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import software.amazon.awssdk.core.async.SdkPublisher;
+import software.amazon.awssdk.enhanced.dynamodb.model.Page;
+import software.amazon.awssdk.enhanced.dynamodb.model.PageIterable;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adapts an asynchronous page publisher to a blocking {@link PageIterable}. Each iterator subscribes with a
+ * demand of <code>prefetch</code> pages and requests one more page every time the consumer takes one, so the
+ * next page is already in flight while the current one is being mapped, yet no more than <code>prefetch</code>
+ * pages are ever buffered or requested ahead of the consumer. A caller that stops early releases the
+ * subscription through {@link PageIterators#close}.
+ */
+public class PrefetchingPageIterable<T> implements PageIterable<T> {
+
+    private final SdkPublisher<Page<T>> publisher;
+    private final int prefetch;
+    private final long pageTimeoutMillis;
+
+    public PrefetchingPageIterable(SdkPublisher<Page<T>> publisher, int prefetch, long pageTimeoutMillis) {
+
+        if (prefetch < 1) {
+            throw new IllegalArgumentException("Page prefetch must be at least 1, found: " + prefetch);
+        }
+
+        this.publisher = publisher;
+        this.prefetch = prefetch;
+        this.pageTimeoutMillis = pageTimeoutMillis;
+
+    }
+
+    @Override
+    public Iterator<Page<T>> iterator() {
+        PrefetchingSubscriber<T> subscriber = new PrefetchingSubscriber<>(prefetch, pageTimeoutMillis);
+        publisher.subscribe(subscriber);
+        return subscriber;
+    }
+
+    private static class PrefetchingSubscriber<T> implements Subscriber<Page<T>>, Iterator<Page<T>>, AutoCloseable {
+
+        private static final Object COMPLETE = new Object();
+
+        private final int prefetch;
+        private final long pageTimeoutMillis;
+
+        // Holds at most `prefetch` pages plus one terminal signal, so offers from the publisher never fail.
+        private final BlockingQueue<Object> signals;
+
+        private volatile Subscription subscription;
+        private volatile boolean cancelled;
+        private Object nextSignal;
+
+        private PrefetchingSubscriber(int prefetch, long pageTimeoutMillis) {
+            this.prefetch = prefetch;
+            this.pageTimeoutMillis = pageTimeoutMillis;
+            this.signals = new ArrayBlockingQueue<>(prefetch + 1);
+        }
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            this.subscription = subscription;
+            if (cancelled) {
+                subscription.cancel();
+            } else {
+                subscription.request(prefetch);
+            }
+        }
+
+        @Override
+        public void onNext(Page<T> page) {
+            signals.offer(page);
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            signals.offer(error);
+        }
+
+        @Override
+        public void onComplete() {
+            signals.offer(COMPLETE);
+        }
+
+        @Override
+        public boolean hasNext() {
+
+            if (cancelled) {
+                return false;
+            }
+
+            if (nextSignal == null) {
+                nextSignal = awaitSignal();
+            }
+
+            if (nextSignal instanceof RuntimeException) {
+                throw (RuntimeException) nextSignal;
+            }
+
+            if (nextSignal instanceof Throwable) {
+                throw new RuntimeException((Throwable) nextSignal);
+            }
+
+            return nextSignal != COMPLETE;
+
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Page<T> next() {
+
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            Page<T> page = (Page<T>) nextSignal;
+            nextSignal = null;
+            subscription.request(1);
+
+            return page;
+
+        }
+
+        private Object awaitSignal() {
+
+            Object signal;
+
+            try {
+                signal = signals.poll(pageTimeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                cancel();
+                throw new RuntimeException("Interrupted while waiting for the next page.", e);
+            }
+
+            if (signal == null) {
+                cancel();
+                throw new RuntimeException("Timed out after " + pageTimeoutMillis + " ms waiting for the next page.");
+            }
+
+            return signal;
+
+        }
+
+        // Stops the publisher and drops the pages already buffered; a no-op once the publisher has completed.
+        @Override
+        public void close() {
+            if (nextSignal != COMPLETE) {
+                cancel();
+                signals.clear();
+                nextSignal = null;
+            }
+        }
+
+        private void cancel() {
+            cancelled = true;
+            if (subscription != null) {
+                subscription.cancel();
+            }
+        }
+
+    }
+
+}
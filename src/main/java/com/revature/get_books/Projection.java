@@ -0,0 +1,150 @@
+package com.revature.get_books;
+
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * The set of response fields a caller asked for, translated into the Book attributes DynamoDB should return.
+ * Without a <code>fields</code> parameter the default projection is every {@link BookResponse} field the
+ * service has always returned, i.e. everything except <code>isbn</code>. A response field maps to the Book
+ * attribute of the same name, except <code>imageUrl</code>, which is presigned from <code>imageKey</code>.
+ */
+public class Projection {
+
+    private static final Map<String, String> ATTRIBUTES_BY_RESPONSE_FIELD;
+    private static final Map<String, Consumer<BookResponse>> CLEARERS_BY_RESPONSE_FIELD;
+
+    static {
+        Map<String, String> attributesByField = new LinkedHashMap<>();
+        Stream.of(BookResponse.class.getDeclaredFields())
+              .filter(field -> !Modifier.isStatic(field.getModifiers()))
+              .map(Field::getName)
+              .forEach(fieldName -> attributesByField.put(fieldName, "imageUrl".equals(fieldName) ? "imageKey" : fieldName));
+        ATTRIBUTES_BY_RESPONSE_FIELD = Collections.unmodifiableMap(attributesByField);
+
+        Map<String, Consumer<BookResponse>> clearersByField = new LinkedHashMap<>();
+        clearersByField.put("id", bookResponse -> bookResponse.setId(null));
+        clearersByField.put("isbn", bookResponse -> bookResponse.setIsbn(null));
+        clearersByField.put("title", bookResponse -> bookResponse.setTitle(null));
+        clearersByField.put("publisher", bookResponse -> bookResponse.setPublisher(null));
+        clearersByField.put("authors", bookResponse -> bookResponse.setAuthors(null));
+        clearersByField.put("genres", bookResponse -> bookResponse.setGenres(null));
+        clearersByField.put("imageUrl", bookResponse -> bookResponse.setImageUrl(null));
+
+        if (!clearersByField.keySet().equals(attributesByField.keySet())) {
+            throw new IllegalStateException("Every BookResponse field needs a clearer, found: " + clearersByField.keySet());
+        }
+
+        CLEARERS_BY_RESPONSE_FIELD = Collections.unmodifiableMap(clearersByField);
+    }
+
+    /** Reads whole items, for callers that need every attribute. */
+    public static final Projection ALL = new Projection(null, new LinkedHashSet<>(ATTRIBUTES_BY_RESPONSE_FIELD.keySet()));
+
+    public static final Projection DEFAULT = of(ATTRIBUTES_BY_RESPONSE_FIELD.keySet()
+                                                                            .stream()
+                                                                            .filter(fieldName -> !"isbn".equals(fieldName))
+                                                                            .collect(Collectors.toList()));
+
+    private final List<String> attributes;
+    private final Set<String> responseFields;
+
+    private Projection(List<String> attributes, Set<String> responseFields) {
+        this.attributes = attributes;
+        this.responseFields = responseFields;
+    }
+
+    private static Projection of(Collection<String> responseFields) {
+        List<String> attributes = responseFields.stream().map(ATTRIBUTES_BY_RESPONSE_FIELD::get).collect(Collectors.toList());
+        return new Projection(Collections.unmodifiableList(attributes), new LinkedHashSet<>(responseFields));
+    }
+
+    public static Projection parse(String fieldsParam, LambdaLogger logger) {
+
+        if (fieldsParam == null || fieldsParam.trim().isEmpty()) {
+            return DEFAULT;
+        }
+
+        Set<String> responseFields = new LinkedHashSet<>();
+
+        for (String fieldName : fieldsParam.split(",")) {
+
+            String trimmedName = fieldName.trim();
+
+            if (!ATTRIBUTES_BY_RESPONSE_FIELD.containsKey(trimmedName)) {
+                String msg = "The field, " + trimmedName + ", was not found on resource type: Book";
+                Log.warn(logger, msg);
+                throw new RuntimeException(msg);
+            }
+
+            responseFields.add(trimmedName);
+
+        }
+
+        return of(responseFields);
+
+    }
+
+    /**
+     * @return the attribute names to project, or null when whole items should be read
+     */
+    public List<String> getAttributes() {
+        return attributes;
+    }
+
+    public boolean includes(String responseField) {
+        return responseFields.contains(responseField);
+    }
+
+    /**
+     * @return a projection that also reads the given attribute, without adding it to the response fields
+     */
+    public Projection reading(String attribute) {
+
+        if (attributes == null || attributes.contains(attribute)) {
+            return this;
+        }
+
+        List<String> readAttributes = new ArrayList<>(attributes);
+        readAttributes.add(attribute);
+
+        return new Projection(Collections.unmodifiableList(readAttributes), responseFields);
+
+    }
+
+    /**
+     * Wraps a response sink so that fields outside this projection are left out of the output, whatever was
+     * read: the mapping fills in <code>imageUrl</code> without a projected attribute, lookups by id always read
+     * the key attribute, and a read that cannot be projected returns whole items.
+     */
+    public Consumer<BookResponse> filter(Consumer<BookResponse> sink) {
+
+        List<Consumer<BookResponse>> clearers = CLEARERS_BY_RESPONSE_FIELD.entrySet()
+                                                                          .stream()
+                                                                          .filter(clearer -> !includes(clearer.getKey()))
+                                                                          .map(Map.Entry::getValue)
+                                                                          .collect(Collectors.toList());
+
+        if (clearers.isEmpty()) {
+            return sink;
+        }
+
+        return bookResponse -> {
+            clearers.forEach(clearer -> clearer.accept(bookResponse));
+            sink.accept(bookResponse);
+        };
+
+    }
+
+    @Override
+    public String toString() {
+        return attributes == null ? "ALL" : attributes.toString();
+    }
+
+}
@@ -0,0 +1,40 @@
+package com.revature.get_books;
+
+import lombok.Value;
+
+import java.util.Map;
+
+/**
+ * The access path chosen by {@link BookQueryPlanner} for a search. When <code>indexName</code> is null the
+ * search falls back to a filtered table scan; otherwise the index is queried on <code>keyAttribute</code>
+ * and any remaining parameters are applied as a filter expression.
+ */
+@Value
+public class QueryPlan {
+
+    String indexName;
+    String keyAttribute;
+    String keyValue;
+    Map<String, String> filterParams;
+
+    public static QueryPlan scan(Map<String, String> filterParams) {
+        return new QueryPlan(null, null, null, filterParams);
+    }
+
+    public static QueryPlan indexQuery(String indexName, String keyAttribute, String keyValue, Map<String, String> filterParams) {
+        return new QueryPlan(indexName, keyAttribute, keyValue, filterParams);
+    }
+
+    public boolean isIndexQuery() {
+        return indexName != null;
+    }
+
+    @Override
+    public String toString() {
+        if (!isIndexQuery()) {
+            return "SCAN books filter " + filterParams.keySet();
+        }
+        return "QUERY " + indexName + " (" + keyAttribute + " = " + keyValue + ") filter " + filterParams.keySet();
+    }
+
+}
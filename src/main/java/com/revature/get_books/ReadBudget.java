@@ -0,0 +1,46 @@
+package com.revature.get_books;
+
+import lombok.Value;
+
+/**
+ * Caps how much a single filtered search may read before it gives up and returns what it has matched so
+ * far, with a cursor to carry on from. Either limit may be 0 to leave that dimension unbounded.
+ */
+@Value
+public class ReadBudget {
+
+    public static final ReadBudget UNLIMITED = new ReadBudget(0, 0);
+
+    int maxItemsScanned;
+    long maxMillis;
+
+    public static ReadBudget fromEnv() {
+
+        int maxItemsScanned = Env.getInt("BOOKS_SEARCH_MAX_ITEMS_SCANNED", 20_000);
+        int maxMillis = Env.getInt("BOOKS_SEARCH_MAX_MILLIS", 10_000);
+
+        if (maxItemsScanned < 0 || maxMillis < 0) {
+            throw new IllegalStateException("BOOKS_SEARCH_MAX_ITEMS_SCANNED and BOOKS_SEARCH_MAX_MILLIS may not be negative, found: " + maxItemsScanned + ", " + maxMillis);
+        }
+
+        return new ReadBudget(maxItemsScanned, maxMillis);
+
+    }
+
+    public boolean isUnlimited() {
+        return maxItemsScanned <= 0 && maxMillis <= 0;
+    }
+
+    public boolean isExhausted(int itemsScanned, long elapsedMillis) {
+        return (maxItemsScanned > 0 && itemsScanned >= maxItemsScanned) || (maxMillis > 0 && elapsedMillis >= maxMillis);
+    }
+
+    /**
+     * @return how many items the next request may evaluate, at most <code>pageSize</code> and at least one, as
+     *         DynamoDB rejects a smaller limit
+     */
+    public int nextPageSize(int pageSize, int itemsScanned) {
+        return maxItemsScanned > 0 ? Math.max(1, Math.min(pageSize, maxItemsScanned - itemsScanned)) : pageSize;
+    }
+
+}
@@ -0,0 +1,121 @@
+package com.revature.get_books;
+
+import lombok.SneakyThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Locale;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Negotiates and applies response compression. Only gzip is offered: it is the one encoding the JDK ships,
+ * and every HTTP client that sends <code>Accept-Encoding</code> supports it. Bodies shorter than the
+ * threshold are left alone, since below roughly a packet the gzip header and the base64 expansion cost more
+ * than compression saves.
+ */
+public class ResponseCompression {
+
+    public static final String GZIP = "gzip";
+
+    private final int minChars;
+    private final int level;
+
+    public ResponseCompression() {
+        this(Env.getInt("BOOKS_COMPRESSION_MIN_BYTES", 1024), Env.getInt("BOOKS_COMPRESSION_LEVEL", Deflater.DEFAULT_COMPRESSION));
+    }
+
+    /**
+     * @param minChars the body length from which to compress, or a negative value to never compress
+     * @param level    the deflate level, 1 (fastest) to 9 (smallest), or -1 for the default
+     */
+    public ResponseCompression(int minChars, int level) {
+
+        if (level < Deflater.DEFAULT_COMPRESSION || level > Deflater.BEST_COMPRESSION) {
+            throw new IllegalStateException("Compression level must be between -1 and 9, found: " + level);
+        }
+
+        this.minChars = minChars;
+        this.level = level;
+
+    }
+
+    /**
+     * @return {@link #GZIP} when the <code>Accept-Encoding</code> header allows it, otherwise null
+     */
+    public static String negotiate(String acceptEncoding) {
+
+        if (acceptEncoding == null) {
+            return null;
+        }
+
+        Boolean gzipAccepted = null;
+        boolean wildcardAccepted = false;
+
+        for (String coding : acceptEncoding.split(",")) {
+
+            String[] parts = coding.split(";");
+            String name = parts[0].trim().toLowerCase(Locale.ROOT);
+            boolean accepted = qualityOf(parts) > 0;
+
+            if (GZIP.equals(name) || "x-gzip".equals(name)) {
+                gzipAccepted = accepted;
+            } else if ("*".equals(name)) {
+                wildcardAccepted = accepted;
+            }
+
+        }
+
+        boolean useGzip = gzipAccepted != null ? gzipAccepted : wildcardAccepted;
+
+        return useGzip ? GZIP : null;
+
+    }
+
+    public boolean shouldCompress(String body) {
+        return minChars >= 0 && body.length() >= minChars;
+    }
+
+    /**
+     * @return the gzipped body, base64 encoded as API Gateway expects binary bodies to be
+     */
+    public String encode(String body) {
+        return Base64.getEncoder().encodeToString(gzip(body));
+    }
+
+    @SneakyThrows
+    public byte[] gzip(String body) {
+
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(Math.max(64, body.length() / 4));
+
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed, 8192) {
+            {
+                def.setLevel(level);
+            }
+        }) {
+            gzip.write(body.getBytes(StandardCharsets.UTF_8));
+        }
+
+        return compressed.toByteArray();
+
+    }
+
+    private static double qualityOf(String[] codingParts) {
+
+        for (int i = 1; i < codingParts.length; i++) {
+            String param = codingParts[i].trim();
+            if (param.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(param.substring(2).trim());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+
+        return 1;
+
+    }
+
+}
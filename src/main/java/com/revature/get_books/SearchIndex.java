@@ -0,0 +1,407 @@
+package com.revature.get_books;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.function.LongSupplier;
+
+/**
+ * A read-only inverted index over the searchable Book attributes, memory-mapped from a snapshot written by
+ * {@link SearchIndexWriter}. Resolving a search to book ids takes a few binary searches over the mapped term
+ * tables, so list filters and title searches no longer need a filtered table scan.
+ *
+ * <p>For the book attributes, search semantics are those of the filter expressions the repository would
+ * otherwise send to DynamoDB, so a search returns the same books whichever path serves it: the values of a
+ * list attribute are OR-ed, separate query parameters are AND-ed, and each value must equal a stored value
+ * exactly, case and whitespace included. The <code>titlePrefix</code> parameter has no DynamoDB
+ * equivalent and is only served here: it matches titles containing every word of the search, ignoring
+ * case, with the last word matched as a prefix.</p>
+ *
+ * <p>The index is built from a scan and knows nothing of later writes. Without a change overlay to bring it
+ * up to date, {@link #isFresh} reports it stale once it is older than its max age, and searches go back to
+ * the table.</p>
+ *
+ * <p>Snapshot layout (big-endian):</p>
+ * <pre>
+ * int magic, int version, int docCount, int fieldCount
+ * docCount x { u16 idLength, utf8 id }                      -- sorted by id
+ * fieldCount x {
+ *     u16 nameLength, utf8 name, int termCount,
+ *     termCount x int termOffset                            -- absolute, terms sorted by utf8 bytes
+ *                                                           -- attribute values unaltered; titlePrefix
+ *                                                           -- terms are lower-cased title words
+ *     termCount x { u16 termLength, utf8 term, int postingCount, postingCount x int docOrdinal }
+ * }
+ * </pre>
+ */
+public class SearchIndex {
+
+    static final int MAGIC = 0x424B4958;
+    static final int VERSION = 3;
+    static final String TITLE_FIELD = "title";
+    static final String TITLE_PREFIX_PARAM = "titlePrefix";
+    static final List<String> INDEXED_FIELDS = Collections.unmodifiableList(Arrays.asList("authors", "genres", "publisher", TITLE_FIELD));
+
+    // The indexed attributes, then the title words behind titlePrefix.
+    static final List<String> TERM_FIELDS = Collections.unmodifiableList(Arrays.asList("authors", "genres", "publisher", TITLE_FIELD, TITLE_PREFIX_PARAM));
+
+    private final ByteBuffer snapshot;
+    private final long builtAtMillis;
+    private final long maxAgeMillis;
+    private final LongSupplier clock;
+    private final String[] docIds;
+    private final Map<String, TermTable> termTables = new HashMap<>();
+
+    SearchIndex(ByteBuffer snapshot) {
+        this(snapshot, 0, Long.MAX_VALUE, System::currentTimeMillis);
+    }
+
+    /**
+     * @param builtAtMillis when the snapshot was written, or 0 when unknown
+     * @param maxAgeMillis how long after <code>builtAtMillis</code> the index may answer searches on its own
+     */
+    SearchIndex(ByteBuffer snapshot, long builtAtMillis, long maxAgeMillis, LongSupplier clock) {
+
+        this.snapshot = snapshot;
+        this.builtAtMillis = builtAtMillis;
+        this.maxAgeMillis = maxAgeMillis;
+        this.clock = clock;
+
+        if (snapshot.getInt(0) != MAGIC || snapshot.getInt(4) != VERSION) {
+            throw new IllegalStateException("Not a version " + VERSION + " search index snapshot.");
+        }
+
+        int position = 16;
+
+        docIds = new String[snapshot.getInt(8)];
+        for (int ordinal = 0; ordinal < docIds.length; ordinal++) {
+            docIds[ordinal] = readString(position);
+            position += 2 + termLength(position);
+        }
+
+        int fieldCount = snapshot.getInt(12);
+        for (int field = 0; field < fieldCount; field++) {
+
+            String fieldName = readString(position);
+            position += 2 + termLength(position);
+
+            int termCount = snapshot.getInt(position);
+            termTables.put(fieldName, new TermTable(position + 4, termCount));
+
+            position = termCount == 0 ? position + 4 : endOfTerms(position + 4, termCount);
+
+        }
+
+    }
+
+    /**
+     * @return the index at <code>BOOKS_SEARCH_INDEX_PATH</code>, or null when no snapshot is configured
+     */
+    public static SearchIndex fromEnv() {
+        String path = Env.getString("BOOKS_SEARCH_INDEX_PATH", null);
+        long maxAgeMillis = Env.getInt("BOOKS_SEARCH_INDEX_MAX_AGE_SECONDS", 900) * 1000L;
+        return path == null ? null : StartupTimings.time("searchIndex", () -> load(Paths.get(path), maxAgeMillis));
+    }
+
+    public static SearchIndex load(Path snapshotPath, long maxAgeMillis) {
+        try (FileChannel channel = FileChannel.open(snapshotPath, StandardOpenOption.READ)) {
+            MappedByteBuffer snapshot = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new SearchIndex(snapshot, Files.getLastModifiedTime(snapshotPath).toMillis(), maxAgeMillis, System::currentTimeMillis);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not load the search index snapshot at " + snapshotPath, e);
+        }
+    }
+
+    public int size() {
+        return docIds.length;
+    }
+
+    /**
+     * @return when the snapshot was written, or 0 when unknown
+     */
+    public long builtAtMillis() {
+        return builtAtMillis;
+    }
+
+    /**
+     * @return true while the index is within its max age, so searches may rely on it without a change overlay
+     */
+    public boolean isFresh() {
+        return clock.getAsLong() - builtAtMillis <= maxAgeMillis;
+    }
+
+    /**
+     * @return true when every query parameter is an attribute this index covers
+     */
+    public boolean supports(Map<String, String> queryParams) {
+        return !queryParams.isEmpty() && termTables.keySet().containsAll(queryParams.keySet());
+    }
+
+    /**
+     * @return the ids of the books matching every query parameter, in ascending id order
+     */
+    public List<String> search(Map<String, String> queryParams) {
+
+        BitSet matches = null;
+
+        for (Map.Entry<String, String> param : queryParams.entrySet()) {
+
+            BitSet fieldMatches = matchField(param.getKey(), param.getValue());
+
+            if (matches == null) {
+                matches = fieldMatches;
+            } else {
+                matches.and(fieldMatches);
+            }
+
+            if (matches.isEmpty()) {
+                break;
+            }
+
+        }
+
+        if (matches == null) {
+            return Collections.emptyList();
+        }
+
+        List<String> ids = new ArrayList<>(matches.cardinality());
+        for (int ordinal = matches.nextSetBit(0); ordinal >= 0; ordinal = matches.nextSetBit(ordinal + 1)) {
+            ids.add(docIds[ordinal]);
+        }
+
+        return ids;
+
+    }
+
+    /**
+     * @return true when the book matches every query parameter, by the same rules as {@link #search}
+     */
+    public static boolean matches(Book book, Map<String, String> queryParams) {
+
+        for (Map.Entry<String, String> param : queryParams.entrySet()) {
+            if (!matchesField(book, param.getKey(), param.getValue())) {
+                return false;
+            }
+        }
+
+        return true;
+
+    }
+
+    /**
+     * @return the values a search for the given attribute carries: a list attribute's are comma-separated,
+     *         as the filter expression compiler splits them
+     */
+    static String[] searchValues(String fieldName, String value) {
+        return List.class.equals(Book.getFieldType(fieldName)) ? value.split(",") : new String[] { value };
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        for (String token : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{Nd}]+")) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * @return the book's values for an indexed attribute, as they are stored
+     */
+    static List<String> values(Book book, String fieldName) {
+
+        List<String> values;
+
+        switch (fieldName) {
+            case "authors":
+                values = book.getAuthors();
+                break;
+            case "genres":
+                values = book.getGenres();
+                break;
+            case "publisher":
+                values = book.getPublisher() == null ? null : Collections.singletonList(book.getPublisher());
+                break;
+            case TITLE_FIELD:
+                values = book.getTitle() == null ? null : Collections.singletonList(book.getTitle());
+                break;
+            case TITLE_PREFIX_PARAM:
+                values = book.getTitle() == null ? null : tokenize(book.getTitle());
+                break;
+            default:
+                throw new IllegalArgumentException("Unindexed field: " + fieldName);
+        }
+
+        return values == null ? Collections.emptyList() : values;
+
+    }
+
+    private static boolean matchesField(Book book, String fieldName, String value) {
+
+        List<String> bookValues = values(book, fieldName);
+
+        if (TITLE_PREFIX_PARAM.equals(fieldName)) {
+
+            List<String> words = tokenize(value);
+
+            for (int i = 0; i < words.size(); i++) {
+                String word = words.get(i);
+                boolean prefix = i == words.size() - 1;
+                if (bookValues.stream().noneMatch(titleWord -> prefix ? titleWord.startsWith(word) : titleWord.equals(word))) {
+                    return false;
+                }
+            }
+
+            return !words.isEmpty();
+
+        }
+
+        for (String term : searchValues(fieldName, value)) {
+            if (bookValues.contains(term)) {
+                return true;
+            }
+        }
+
+        return false;
+
+    }
+
+    private BitSet matchField(String fieldName, String value) {
+
+        TermTable terms = termTables.get(fieldName);
+        BitSet matches = new BitSet(docIds.length);
+
+        if (TITLE_PREFIX_PARAM.equals(fieldName)) {
+
+            List<String> words = tokenize(value);
+
+            for (int i = 0; i < words.size(); i++) {
+                BitSet wordMatches = new BitSet(docIds.length);
+                addPostings(terms, words.get(i).getBytes(StandardCharsets.UTF_8), i == words.size() - 1, wordMatches);
+                if (i == 0) {
+                    matches = wordMatches;
+                } else {
+                    matches.and(wordMatches);
+                }
+            }
+
+            return matches;
+
+        }
+
+        for (String term : searchValues(fieldName, value)) {
+            addPostings(terms, term.getBytes(StandardCharsets.UTF_8), false, matches);
+        }
+
+        return matches;
+
+    }
+
+    private void addPostings(TermTable terms, byte[] term, boolean prefix, BitSet matches) {
+
+        for (int i = lowerBound(terms, term); i < terms.count; i++) {
+
+            int termPosition = terms.termPosition(i);
+
+            if (compare(termPosition, term, prefix) != 0) {
+                return;
+            }
+
+            int postingsPosition = termPosition + 2 + termLength(termPosition);
+            int postingCount = snapshot.getInt(postingsPosition);
+            for (int p = 0; p < postingCount; p++) {
+                matches.set(snapshot.getInt(postingsPosition + 4 + 4 * p));
+            }
+
+            if (!prefix) {
+                return;
+            }
+
+        }
+
+    }
+
+    // Index of the first term that is not less than the given bytes.
+    private int lowerBound(TermTable terms, byte[] term) {
+
+        int low = 0;
+        int high = terms.count;
+
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compare(terms.termPosition(mid), term, false) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+
+        return low;
+
+    }
+
+    // Unsigned byte-wise comparison of the stored term with the given bytes; with prefix set, a stored term
+    // that starts with the given bytes compares as equal.
+    private int compare(int termPosition, byte[] term, boolean prefix) {
+
+        int length = termLength(termPosition);
+        int common = Math.min(length, term.length);
+
+        for (int i = 0; i < common; i++) {
+            int diff = (snapshot.get(termPosition + 2 + i) & 0xFF) - (term[i] & 0xFF);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+
+        if (prefix && length >= term.length) {
+            return 0;
+        }
+
+        return length - term.length;
+
+    }
+
+    private int termLength(int position) {
+        return snapshot.getShort(position) & 0xFFFF;
+    }
+
+    private String readString(int position) {
+        byte[] bytes = new byte[termLength(position)];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = snapshot.get(position + 2 + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private int endOfTerms(int offsetsPosition, int termCount) {
+        int lastTerm = snapshot.getInt(offsetsPosition + 4 * (termCount - 1));
+        int postingsPosition = lastTerm + 2 + termLength(lastTerm);
+        return postingsPosition + 4 + 4 * snapshot.getInt(postingsPosition);
+    }
+
+    private class TermTable {
+
+        private final int offsetsPosition;
+        private final int count;
+
+        private TermTable(int offsetsPosition, int count) {
+            this.offsetsPosition = offsetsPosition;
+            this.count = count;
+        }
+
+        private int termPosition(int index) {
+            return snapshot.getInt(offsetsPosition + 4 * index);
+        }
+
+    }
+
+}
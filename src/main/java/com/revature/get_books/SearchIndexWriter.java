@@ -0,0 +1,138 @@
+package com.revature.get_books;
+
+import software.amazon.awssdk.enhanced.dynamodb.model.ScanEnhancedRequest;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+
+/**
+ * Builds the {@link SearchIndex} snapshot offline. Run <code>main</code> with the output path to index the
+ * live books table; the snapshot is written to a temporary file and moved into place, so a reader never
+ * maps a partially written index.
+ */
+public class SearchIndexWriter {
+
+    private static final Comparator<byte[]> UTF8_ORDER = (left, right) -> {
+        int common = Math.min(left.length, right.length);
+        for (int i = 0; i < common; i++) {
+            int diff = (left[i] & 0xFF) - (right[i] & 0xFF);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return left.length - right.length;
+    };
+
+    private SearchIndexWriter() { }
+
+    public static void main(String[] args) throws IOException {
+
+        if (args.length != 1) {
+            System.err.println("Usage: SearchIndexWriter <snapshot-path>");
+            System.exit(2);
+        }
+
+        List<String> attributes = new ArrayList<>(SearchIndex.INDEXED_FIELDS);
+        attributes.add("id");
+
+        long scanStartedAtMillis = System.currentTimeMillis();
+
+        List<Book> books = new ArrayList<>();
+        AwsClients.BOOK_TABLE.scan(ScanEnhancedRequest.builder().attributesToProject(attributes).build())
+                             .items()
+                             .forEach(books::add);
+
+        // The modification time tells readers how current the index is, so it is set to when the scan started.
+        Path snapshotPath = Paths.get(args[0]);
+        write(books, snapshotPath);
+        Files.setLastModifiedTime(snapshotPath, FileTime.fromMillis(scanStartedAtMillis));
+        System.out.println("Indexed " + books.size() + " books into " + args[0]);
+
+    }
+
+    public static void write(Collection<Book> books, Path snapshotPath) throws IOException {
+
+        Path tempPath = snapshotPath.resolveSibling(snapshotPath.getFileName() + ".tmp");
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempPath)))) {
+            write(books, out);
+        }
+
+        Files.move(tempPath, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+    }
+
+    static void write(Collection<Book> books, DataOutputStream out) throws IOException {
+
+        List<Book> docs = new ArrayList<>(books);
+        docs.sort(Comparator.comparing(Book::getId));
+
+        out.writeInt(SearchIndex.MAGIC);
+        out.writeInt(SearchIndex.VERSION);
+        out.writeInt(docs.size());
+        out.writeInt(SearchIndex.TERM_FIELDS.size());
+
+        for (Book doc : docs) {
+            writeString(out, doc.getId().getBytes(StandardCharsets.UTF_8));
+        }
+
+        for (String field : SearchIndex.TERM_FIELDS) {
+
+            SortedMap<byte[], List<Integer>> postings = invert(docs, field);
+            byte[] fieldName = field.getBytes(StandardCharsets.UTF_8);
+
+            writeString(out, fieldName);
+            out.writeInt(postings.size());
+
+            // Term records start right after this field's offset table; out.size() is the absolute position.
+            int termPosition = out.size() + 4 * postings.size();
+            for (Map.Entry<byte[], List<Integer>> term : postings.entrySet()) {
+                out.writeInt(termPosition);
+                termPosition += 2 + term.getKey().length + 4 + 4 * term.getValue().size();
+            }
+
+            for (Map.Entry<byte[], List<Integer>> term : postings.entrySet()) {
+                writeString(out, term.getKey());
+                out.writeInt(term.getValue().size());
+                for (int ordinal : term.getValue()) {
+                    out.writeInt(ordinal);
+                }
+            }
+
+        }
+
+    }
+
+    private static SortedMap<byte[], List<Integer>> invert(List<Book> docs, String field) {
+
+        SortedMap<byte[], List<Integer>> postings = new TreeMap<>(UTF8_ORDER);
+
+        for (int ordinal = 0; ordinal < docs.size(); ordinal++) {
+            for (String term : SearchIndex.values(docs.get(ordinal), field)) {
+                List<Integer> docOrdinals = postings.computeIfAbsent(term.getBytes(StandardCharsets.UTF_8), key -> new ArrayList<>());
+                // Ordinals are visited in order, so a repeated term in one book only needs comparing with the last posting.
+                if (docOrdinals.isEmpty() || docOrdinals.get(docOrdinals.size() - 1) != ordinal) {
+                    docOrdinals.add(ordinal);
+                }
+            }
+        }
+
+        return postings;
+
+    }
+
+    private static void writeString(DataOutputStream out, byte[] utf8) throws IOException {
+        if (utf8.length > 0xFFFF) {
+            throw new IllegalArgumentException("Index strings are limited to 65535 bytes, found: " + utf8.length);
+        }
+        out.writeShort(utf8.length);
+        out.write(utf8);
+    }
+
+}
@@ -0,0 +1,111 @@
+package com.revature.get_books;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent loads of the same key: the first caller runs the load, and callers arriving while it
+ * is in flight wait for and share its result, or its failure. Nothing is kept once the load completes, so
+ * this only ever merges overlapping requests; caching finished results is the response cache's job.
+ *
+ * <p>At most <code>maxWaiters</code> callers wait on one load, and each waits at most
+ * <code>timeoutMillis</code>. Callers beyond the bound, and callers whose wait runs out, run their own load
+ * rather than queueing behind a load that may be stuck. A bound of zero disables coalescing.</p>
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, Flight<V>> inFlight = new ConcurrentHashMap<>();
+    private final int maxWaiters;
+    private final long timeoutMillis;
+
+    public SingleFlight(int maxWaiters, long timeoutMillis) {
+        this.maxWaiters = maxWaiters;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * @return the loaded value, and whether it was shared from another caller's load
+     */
+    public Result<V> execute(K key, Supplier<V> loader) {
+
+        if (maxWaiters <= 0) {
+            return new Result<>(loader.get(), false);
+        }
+
+        Flight<V> flight = new Flight<>();
+        Flight<V> leader = inFlight.putIfAbsent(key, flight);
+
+        if (leader == null) {
+            try {
+                V value = loader.get();
+                flight.result.complete(value);
+                return new Result<>(value, false);
+            } catch (RuntimeException | Error e) {
+                flight.result.completeExceptionally(e);
+                throw e;
+            } finally {
+                inFlight.remove(key, flight);
+            }
+        }
+
+        if (leader.waiters.incrementAndGet() > maxWaiters) {
+            leader.waiters.decrementAndGet();
+            return new Result<>(loader.get(), false);
+        }
+
+        try {
+            return new Result<>(leader.result.get(timeoutMillis, TimeUnit.MILLISECONDS), true);
+        } catch (TimeoutException e) {
+            // The leader is slow or stuck; load independently below rather than fail the request.
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for an identical in-flight request.", e);
+        } finally {
+            leader.waiters.decrementAndGet();
+        }
+
+        return new Result<>(loader.get(), false);
+
+    }
+
+    public int inFlight() {
+        return inFlight.size();
+    }
+
+    int waiters(K key) {
+        Flight<V> flight = inFlight.get(key);
+        return flight == null ? 0 : flight.waiters.get();
+    }
+
+    public static class Result<V> {
+
+        private final V value;
+        private final boolean shared;
+
+        private Result(V value, boolean shared) {
+            this.value = value;
+            this.shared = shared;
+        }
+
+        public V getValue() {
+            return value;
+        }
+
+        public boolean isShared() {
+            return shared;
+        }
+
+    }
+
+    private static class Flight<V> {
+        private final CompletableFuture<V> result = new CompletableFuture<>();
+        private final AtomicInteger waiters = new AtomicInteger();
+    }
+
+}
@@ -0,0 +1,53 @@
+package com.revature.get_books;
+
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Records how long each step of the container's static initialization took, and reports the breakdown
+ * once, on the first invocation the container serves.
+ */
+public class StartupTimings {
+
+    private static final Map<String, Long> stageMillis = new LinkedHashMap<>();
+    private static final AtomicBoolean reported = new AtomicBoolean();
+
+    private StartupTimings() { }
+
+    public static <T> T time(String stage, Supplier<T> step) {
+        long start = System.nanoTime();
+        try {
+            return step.get();
+        } finally {
+            record(stage, (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    public static synchronized void record(String stage, long millis) {
+        stageMillis.put(stage, millis);
+    }
+
+    public static void reportOnce(LambdaLogger logger) {
+
+        if (!reported.compareAndSet(false, true)) {
+            return;
+        }
+
+        StringBuilder report = new StringBuilder("{ \"startupTimings\": { ");
+
+        synchronized (StartupTimings.class) {
+            stageMillis.forEach((stage, millis) -> report.append('"').append(stage).append("\": ").append(millis).append(", "));
+        }
+
+        report.append("\"jvmUptimeAtFirstRequest\": ").append(ManagementFactory.getRuntimeMXBean().getUptime()).append(" } }");
+
+        Log.info(logger, report.toString());
+
+    }
+
+}
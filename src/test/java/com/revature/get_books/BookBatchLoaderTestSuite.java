@@ -0,0 +1,174 @@
+package com.revature.get_books;
+
+import com.revature.get_books.stubs.TestLogger;
+import org.junit.jupiter.api.*;
+import org.mockito.ArgumentCaptor;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.KeysAndAttributes;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@SuppressWarnings({"unchecked", "rawtypes"})
+public class BookBatchLoaderTestSuite {
+
+    static TestLogger testLogger;
+
+    BookBatchLoader sut;
+    DynamoDbClient mockDynamoDb;
+    TableSchema mockTableSchema;
+
+    @BeforeAll
+    public static void suiteSetUp() {
+        testLogger = new TestLogger();
+    }
+
+    @BeforeEach
+    public void caseSetUp() {
+
+        mockDynamoDb = mock(DynamoDbClient.class);
+        mockTableSchema = mock(TableSchema.class);
+
+        when(mockTableSchema.mapToItem(anyMap())).thenAnswer(invocation -> {
+            Map<String, AttributeValue> item = invocation.getArgument(0);
+            Book book = new Book();
+            book.setId(item.get("id").s());
+            return book;
+        });
+
+        sut = new BookBatchLoader(mockDynamoDb, "books", mockTableSchema, 3, 2);
+
+    }
+
+    @AfterEach
+    public void caseTearDown() {
+        sut = null;
+        reset(mockDynamoDb, mockTableSchema);
+    }
+
+    @AfterAll
+    public static void suiteCleanUp() {
+        testLogger.close();
+    }
+
+    @Test
+    public void given_manyIds_load_splitsIntoBatchesOfAtMostOneHundred() {
+
+        // Arrange
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            ids.add("book-" + i);
+        }
+
+        when(mockDynamoDb.batchGetItem(any(BatchGetItemRequest.class))).thenAnswer(invocation -> {
+            BatchGetItemRequest request = invocation.getArgument(0);
+            return response(request.requestItems().get("books").keys(), null);
+        });
+
+        // Act
+        Map<String, Book> actualBooks = sut.load(ids, Projection.DEFAULT, testLogger);
+
+        // Assert
+        verify(mockDynamoDb, times(3)).batchGetItem(any(BatchGetItemRequest.class));
+        assertEquals(250, actualBooks.size());
+        assertEquals("book-249", actualBooks.get("book-249").getId());
+
+    }
+
+    @Test
+    public void given_unprocessedKeys_load_retriesUntilEveryKeyIsRead() {
+
+        // Arrange
+        Map<String, AttributeValue> firstKey = key("first");
+        Map<String, AttributeValue> secondKey = key("second");
+
+        when(mockDynamoDb.batchGetItem(any(BatchGetItemRequest.class)))
+                .thenReturn(response(Collections.singletonList(firstKey), Collections.singletonList(secondKey)))
+                .thenReturn(response(Collections.singletonList(secondKey), null));
+
+        // Act
+        Map<String, Book> actualBooks = sut.load(Arrays.asList("first", "second"), Projection.DEFAULT, testLogger);
+
+        // Assert
+        verify(mockDynamoDb, times(2)).batchGetItem(any(BatchGetItemRequest.class));
+        assertEquals(new HashSet<>(Arrays.asList("first", "second")), actualBooks.keySet());
+
+    }
+
+    @Test
+    public void given_persistentlyUnprocessedKeys_load_throwsRuntimeExceptionAfterMaxAttempts() {
+
+        // Arrange
+        Map<String, AttributeValue> stuckKey = key("stuck");
+
+        when(mockDynamoDb.batchGetItem(any(BatchGetItemRequest.class)))
+                .thenReturn(response(Collections.emptyList(), Collections.singletonList(stuckKey)));
+
+        // Act
+        assertThrows(RuntimeException.class, () -> sut.load(Collections.singletonList("stuck"), Projection.DEFAULT, testLogger));
+
+        // Assert
+        verify(mockDynamoDb, times(3)).batchGetItem(any(BatchGetItemRequest.class));
+
+    }
+
+    @Test
+    public void given_singleIdAndFields_get_readsOnlyTheProjectedAttributes() {
+
+        // Arrange
+        ArgumentCaptor<GetItemRequest> requestCaptor = ArgumentCaptor.forClass(GetItemRequest.class);
+        when(mockDynamoDb.getItem(requestCaptor.capture())).thenReturn(GetItemResponse.builder().item(key("only")).build());
+
+        // Act
+        Book actualBook = sut.get("only", Projection.parse("title", testLogger));
+
+        // Assert
+        GetItemRequest actualRequest = requestCaptor.getValue();
+        assertEquals("only", actualBook.getId());
+        assertEquals(key("only"), actualRequest.key());
+        assertEquals("#p0,#p1", actualRequest.projectionExpression());
+        assertEquals("id", actualRequest.expressionAttributeNames().get("#p0"));
+        assertEquals("title", actualRequest.expressionAttributeNames().get("#p1"));
+
+    }
+
+    @Test
+    public void given_missingId_get_returnsNull() {
+
+        // Arrange
+        when(mockDynamoDb.getItem(any(GetItemRequest.class))).thenReturn(GetItemResponse.builder().build());
+
+        // Act
+        Book actualBook = sut.get("missing", Projection.DEFAULT);
+
+        // Assert
+        assertNull(actualBook);
+
+    }
+
+    private static Map<String, AttributeValue> key(String id) {
+        return Collections.singletonMap("id", AttributeValue.builder().s(id).build());
+    }
+
+    private static BatchGetItemResponse response(List<Map<String, AttributeValue>> items, List<Map<String, AttributeValue>> unprocessedKeys) {
+
+        BatchGetItemResponse.Builder response = BatchGetItemResponse.builder()
+                                                                    .responses(Collections.singletonMap("books", items));
+
+        if (unprocessedKeys != null) {
+            response.unprocessedKeys(Collections.singletonMap("books", KeysAndAttributes.builder().keys(unprocessedKeys).build()));
+        }
+
+        return response.build();
+
+    }
+
+}
@@ -0,0 +1,103 @@
+package com.revature.get_books;
+
+import org.junit.jupiter.api.*;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BookQueryPlannerTestSuite {
+
+    BookQueryPlanner sut;
+
+    @BeforeEach
+    public void caseSetUp() {
+        sut = new BookQueryPlanner(BookQueryPlanner.INDEXES);
+    }
+
+    @AfterEach
+    public void caseTearDown() {
+        sut = null;
+    }
+
+    @Test
+    public void given_isbnParam_plannerChoosesIsbnIndex() {
+
+        // Arrange
+        Map<String, String> stubbedQueryParams = new HashMap<>();
+        stubbedQueryParams.put("isbn", "0123456789-123");
+        stubbedQueryParams.put("publisher", "Revature");
+
+        // Act
+        QueryPlan actualPlan = sut.plan(stubbedQueryParams);
+
+        // Assert
+        assertTrue(actualPlan.isIndexQuery());
+        assertEquals(Book.ISBN_INDEX, actualPlan.getIndexName());
+        assertEquals("0123456789-123", actualPlan.getKeyValue());
+        assertEquals(Collections.singletonMap("publisher", "Revature"), actualPlan.getFilterParams());
+
+    }
+
+    @Test
+    public void given_publisherParam_plannerChoosesPublisherIndex() {
+
+        // Arrange
+        Map<String, String> stubbedQueryParams = new HashMap<>();
+        stubbedQueryParams.put("publisher", "Revature");
+        stubbedQueryParams.put("genres", "Test Genre 1");
+
+        // Act
+        QueryPlan actualPlan = sut.plan(stubbedQueryParams);
+
+        // Assert
+        assertTrue(actualPlan.isIndexQuery());
+        assertEquals(Book.PUBLISHER_INDEX, actualPlan.getIndexName());
+        assertEquals(Collections.singletonMap("genres", "Test Genre 1"), actualPlan.getFilterParams());
+
+    }
+
+    @Test
+    public void given_onlyUnindexedParams_plannerFallsBackToScan() {
+
+        // Arrange
+        Map<String, String> stubbedQueryParams = Collections.singletonMap("authors", "Test Author 1");
+
+        // Act
+        QueryPlan actualPlan = sut.plan(stubbedQueryParams);
+
+        // Assert
+        assertFalse(actualPlan.isIndexQuery());
+        assertEquals(stubbedQueryParams, actualPlan.getFilterParams());
+
+    }
+
+    @Test
+    public void given_noIndexesListed_plannerScansForIsbn() {
+
+        // Arrange
+        BookQueryPlanner unindexedSut = new BookQueryPlanner(BookQueryPlanner.indexes(""));
+        Map<String, String> stubbedQueryParams = Collections.singletonMap("isbn", "0123456789-123");
+
+        // Act
+        QueryPlan actualPlan = unindexedSut.plan(stubbedQueryParams);
+
+        // Assert
+        assertFalse(actualPlan.isIndexQuery());
+        assertEquals(stubbedQueryParams, actualPlan.getFilterParams());
+
+    }
+
+    @Test
+    public void given_indexesListed_indexes_keepsSelectivityOrder() {
+
+        // Act
+        Map<String, String> actualIndexes = BookQueryPlanner.indexes(" publisher , isbn");
+
+        // Assert
+        assertEquals(Arrays.asList("isbn", "publisher"), new ArrayList<>(actualIndexes.keySet()));
+        assertThrows(IllegalStateException.class, () -> BookQueryPlanner.indexes("genres"));
+
+    }
+
+}
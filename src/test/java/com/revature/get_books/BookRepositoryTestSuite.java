@@ -2,12 +2,23 @@ package com.revature.get_books;
 
 import com.revature.get_books.stubs.TestLogger;
 import org.junit.jupiter.api.*;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbAsyncTable;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.enhanced.dynamodb.model.Page;
+import software.amazon.awssdk.enhanced.dynamodb.model.PageIterable;
+import software.amazon.awssdk.enhanced.dynamodb.model.ScanEnhancedRequest;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
-@SuppressWarnings({"rawtypes"})
+@SuppressWarnings({"unchecked", "rawtypes"})
 public class BookRepositoryTestSuite {
 
     static TestLogger testLogger;
@@ -41,4 +52,242 @@ public class BookRepositoryTestSuite {
     public void test_template() {
         fail();
     }
+
+    @Test
+    public void given_multipleScanSegments_getAllBooks_mergesEverySegment() {
+
+        // Arrange
+        BookRepository parallelSut = new BookRepository(mockBookTable, new BookQueryPlanner(), 3);
+
+        when(mockBookTable.scan(any(ScanEnhancedRequest.class))).thenAnswer(invocation -> {
+            ScanEnhancedRequest request = invocation.getArgument(0);
+            Book book = new Book();
+            book.setId("segment-" + request.segment() + "-of-" + request.totalSegments());
+            PageIterable<Book> segmentPages = () -> Collections.singletonList(Page.create(Collections.singletonList(book))).iterator();
+            return segmentPages;
+        });
+
+        // Act
+        List<String> actualIds = new ArrayList<>();
+        parallelSut.getAllBooks().forEach(page -> page.items().forEach(book -> actualIds.add(book.getId())));
+
+        // Assert
+        verify(mockBookTable, times(3)).scan(any(ScanEnhancedRequest.class));
+        assertEquals(3, actualIds.size());
+        assertTrue(actualIds.contains("segment-0-of-3"));
+        assertTrue(actualIds.contains("segment-2-of-3"));
+
+    }
+
+    @Test
+    public void given_manyIndexHits_searchBooks_fetchesOneBatchPerPageAsRead() throws IOException {
+
+        // Arrange
+        List<Book> indexedBooks = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            Book book = new Book();
+            book.setId(String.format("%03d", i));
+            book.setGenres(Collections.singletonList("Fantasy"));
+            indexedBooks.add(book);
+        }
+
+        ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+        SearchIndexWriter.write(indexedBooks, new DataOutputStream(snapshot));
+        SearchIndex searchIndex = new SearchIndex(ByteBuffer.wrap(snapshot.toByteArray()));
+
+        BookBatchLoader mockBatchLoader = mock(BookBatchLoader.class);
+        when(mockBatchLoader.load(anyList(), any(Projection.class), any())).thenAnswer(invocation -> {
+            Map<String, Book> booksById = new HashMap<>();
+            for (String id : (List<String>) invocation.getArgument(0)) {
+                Book book = new Book();
+                book.setId(id);
+                booksById.put(id, book);
+            }
+            return booksById;
+        });
+
+        BookRepository indexedSut = new BookRepository(mockBookTable, new BookQueryPlanner(), 1, mockBatchLoader, searchIndex);
+
+        // Act
+        Iterator<Page<Book>> pageIterator = indexedSut.searchBooks(Collections.singletonMap("genres", "Fantasy"), Projection.DEFAULT, testLogger).iterator();
+        Page<Book> actualFirstPage = pageIterator.next();
+
+        // Assert
+        assertEquals(BookBatchLoader.MAX_BATCH_KEYS, actualFirstPage.items().size());
+        verify(mockBatchLoader, times(1)).load(anyList(), any(Projection.class), any());
+
+        int actualCount = actualFirstPage.items().size();
+        while (pageIterator.hasNext()) {
+            actualCount += pageIterator.next().items().size();
+        }
+
+        assertEquals(250, actualCount);
+        verify(mockBatchLoader, times(3)).load(anyList(), any(Projection.class), any());
+
+    }
+
+    @Test
+    public void given_staleIndex_searchBooks_searchesTheTableButRefusesTitlePrefix() throws IOException {
+
+        // Arrange
+        ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+        SearchIndexWriter.write(Collections.emptyList(), new DataOutputStream(snapshot));
+        SearchIndex staleIndex = new SearchIndex(ByteBuffer.wrap(snapshot.toByteArray()), 0, 1000, () -> 1001);
+        BookRepository indexedSut = new BookRepository(mockBookTable, new BookQueryPlanner(), 1, null, staleIndex);
+        PageIterable<Book> tablePages = () -> Collections.<Page<Book>>emptyList().iterator();
+        when(mockBookTable.scan(any(ScanEnhancedRequest.class))).thenReturn(tablePages);
+
+        // Act
+        indexedSut.searchBooks(Collections.singletonMap("genres", "Fantasy"), Projection.DEFAULT, testLogger).forEach(page -> { });
+
+        // Assert
+        verify(mockBookTable, times(1)).scan(any(ScanEnhancedRequest.class));
+        assertThrows(RuntimeException.class, () -> indexedSut.searchBooks(Collections.singletonMap(SearchIndex.TITLE_PREFIX_PARAM, "dun"), Projection.DEFAULT, testLogger));
+
+    }
+
+    @Test
+    public void given_sparseFilterMatches_searchBookPage_readsOnUntilLimitIsFilled() {
+
+        // Arrange
+        BookRepository pagingSut = new BookRepository(mockBookTable, new BookQueryPlanner(), 1, null, null, ReadBudget.UNLIMITED);
+
+        // Each scan page matches one book; the page's key is the id of the page it was asked to start after, plus one.
+        when(mockBookTable.scan(any(ScanEnhancedRequest.class))).thenAnswer(invocation -> {
+            ScanEnhancedRequest request = invocation.getArgument(0);
+            int pageNumber = request.exclusiveStartKey() == null ? 0 : Integer.parseInt(request.exclusiveStartKey().get("id").s()) + 1;
+            Book book = new Book();
+            book.setId(String.valueOf(pageNumber));
+            Map<String, AttributeValue> lastKey = Collections.singletonMap("id", AttributeValue.builder().s(String.valueOf(pageNumber)).build());
+            PageIterable<Book> pages = () -> Collections.singletonList(Page.create(Collections.singletonList(book), lastKey)).iterator();
+            return pages;
+        });
+
+        // Act
+        Page<Book> actualPage = pagingSut.searchBookPage(Collections.singletonMap("genres", "Fantasy"), 3, null, Projection.DEFAULT, testLogger);
+
+        // Assert
+        verify(mockBookTable, times(3)).scan(any(ScanEnhancedRequest.class));
+        assertEquals(3, actualPage.items().size());
+        assertEquals("2", actualPage.lastEvaluatedKey().get("id").s());
+
+    }
+
+    @Test
+    public void given_exhaustedReadBudget_searchBookPage_returnsPartialMatchesWithCursor() {
+
+        // Arrange
+        BookRepository budgetedSut = new BookRepository(mockBookTable, new BookQueryPlanner(), 1, null, null, new ReadBudget(BookRepository.FILTERED_PAGE_SIZE * 2, 0));
+        Map<String, AttributeValue> lastKey = Collections.singletonMap("id", AttributeValue.builder().s("last-read").build());
+
+        when(mockBookTable.scan(any(ScanEnhancedRequest.class))).thenAnswer(invocation -> {
+            PageIterable<Book> pages = () -> Collections.singletonList(Page.create(Collections.<Book>emptyList(), lastKey)).iterator();
+            return pages;
+        });
+
+        // Act
+        Page<Book> actualPage = budgetedSut.searchBookPage(Collections.singletonMap("genres", "Fantasy"), 10, null, Projection.DEFAULT, testLogger);
+
+        // Assert
+        verify(mockBookTable, times(2)).scan(any(ScanEnhancedRequest.class));
+        assertTrue(actualPage.items().isEmpty());
+        assertEquals(lastKey, actualPage.lastEvaluatedKey());
+
+    }
+
+    @Test
+    public void given_exhaustedReadBudget_searchBooks_stopsStreamingAndKeepsTheResumeKey() {
+
+        // Arrange
+        BookRepository budgetedSut = new BookRepository(mockBookTable, new BookQueryPlanner(), 1, null, null, new ReadBudget(BookRepository.FILTERED_PAGE_SIZE * 2, 0));
+        List<Integer> pagesRead = new ArrayList<>();
+
+        // An endless scan, each page keyed by its number.
+        PageIterable<Book> endlessPages = () -> new Iterator<Page<Book>>() {
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public Page<Book> next() {
+                pagesRead.add(pagesRead.size());
+                return Page.create(Collections.<Book>emptyList(), Collections.singletonMap("id", AttributeValue.builder().s("page-" + pagesRead.size()).build()));
+            }
+        };
+        when(mockBookTable.scan(any(ScanEnhancedRequest.class))).thenReturn(endlessPages);
+
+        // Act
+        PageIterable<Book> actualBooks = budgetedSut.searchBooks(Collections.singletonMap("genres", "Fantasy"), Projection.DEFAULT, testLogger);
+        actualBooks.forEach(page -> { });
+
+        // Assert
+        assertEquals(2, pagesRead.size());
+        assertEquals("page-2", ((BudgetedPageIterable<Book>) actualBooks).resumeKey().get("id").s());
+
+    }
+
+    @Test
+    public void given_spentItemBudget_nextPageSize_stillRequestsOneItem() {
+
+        // Arrange
+        ReadBudget budget = new ReadBudget(100, 0);
+
+        // Act
+        int actualPageSize = budget.nextPageSize(BookRepository.FILTERED_PAGE_SIZE, 150);
+
+        // Assert
+        assertEquals(1, actualPageSize);
+
+    }
+
+    @Test
+    public void given_asyncEngineAndExhaustedReadBudget_searchBookPage_returnsPartialMatchesWithCursor() {
+
+        // Arrange
+        BookRepository budgetedSut = new AsyncBookRepository(mockBookTable, mock(DynamoDbAsyncTable.class), 2, 1000,
+                                                             null, null, new ReadBudget(BookRepository.FILTERED_PAGE_SIZE * 2, 0), null);
+        Map<String, AttributeValue> lastKey = Collections.singletonMap("id", AttributeValue.builder().s("last-read").build());
+
+        when(mockBookTable.scan(any(ScanEnhancedRequest.class))).thenAnswer(invocation -> {
+            PageIterable<Book> pages = () -> Collections.singletonList(Page.create(Collections.<Book>emptyList(), lastKey)).iterator();
+            return pages;
+        });
+
+        // Act
+        Page<Book> actualPage = budgetedSut.searchBookPage(Collections.singletonMap("genres", "Fantasy"), 10, null, Projection.DEFAULT, testLogger);
+
+        // Assert
+        verify(mockBookTable, times(2)).scan(any(ScanEnhancedRequest.class));
+        assertTrue(actualPage.items().isEmpty());
+        assertEquals(lastKey, actualPage.lastEvaluatedKey());
+
+    }
+
+    @Test
+    public void given_hedging_getAllBooks_requestsEachPageFromTheLastKey() {
+
+        // Arrange
+        BookRepository hedgedSut = new BookRepository(mockBookTable, new BookQueryPlanner(), 1, null, null, ReadBudget.UNLIMITED, null, null, new HedgedRequests(99, 1000, 5));
+        Map<String, AttributeValue> firstPageKey = Collections.singletonMap("id", AttributeValue.builder().s("1").build());
+
+        when(mockBookTable.scan(any(ScanEnhancedRequest.class))).thenAnswer(invocation -> {
+            ScanEnhancedRequest request = invocation.getArgument(0);
+            Book book = new Book();
+            book.setId(request.exclusiveStartKey() == null ? "1" : "2");
+            Map<String, AttributeValue> lastKey = request.exclusiveStartKey() == null ? firstPageKey : null;
+            PageIterable<Book> pages = () -> Collections.singletonList(Page.create(Collections.singletonList(book), lastKey)).iterator();
+            return pages;
+        });
+
+        // Act
+        List<String> actualIds = new ArrayList<>();
+        hedgedSut.getAllBooks().items().forEach(book -> actualIds.add(book.getId()));
+
+        // Assert
+        verify(mockBookTable, times(2)).scan(any(ScanEnhancedRequest.class));
+        assertEquals(Arrays.asList("1", "2"), actualIds);
+
+    }
+
 }
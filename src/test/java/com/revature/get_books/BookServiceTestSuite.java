@@ -10,9 +10,14 @@ import software.amazon.awssdk.services.s3.presigner.model.PresignedGetObjectRequ
 
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.*;
 
 @SuppressWarnings({"unchecked", "rawtypes"})
@@ -121,4 +126,121 @@ public class BookServiceTestSuite {
         assertEquals(1, actualResult.size());
     }
 
+    @Test
+    public void given_repeatedImageKey_presignerIsCalledOnce() throws MalformedURLException {
+
+        // Arrange
+        BookService cachingSut = new BookService(mockPresigner, new ExpiringLruCache<>(8));
+        Book stubbedBook = stubbedBookPage.items().get(0);
+        PageIterable<Book> stubbedBooks = () -> Collections.singletonList(Page.create(Arrays.asList(stubbedBook, stubbedBook))).iterator();
+
+        PresignedGetObjectRequest mockedPresignedRequest = mock(PresignedGetObjectRequest.class);
+        URL stubbedUrl = new URL("https://stubbed-presigned-url.com");
+        when(mockPresigner.presignGetObject((GetObjectPresignRequest) any())).thenReturn(mockedPresignedRequest);
+        when(mockedPresignedRequest.url()).thenReturn(stubbedUrl);
+        when(mockedPresignedRequest.expiration()).thenReturn(Instant.now().plus(BookService.SIGNATURE_DURATION));
+
+        // Act
+        List<BookResponse> actualResult = cachingSut.mapResponse(stubbedBooks, testLogger);
+
+        // Assert
+        verify(mockPresigner, times(1)).presignGetObject((GetObjectPresignRequest) any());
+        assertEquals(2, actualResult.size());
+        assertEquals(stubbedUrl.toString(), actualResult.get(1).getImageUrl());
+
+    }
+
+    @Test
+    public void given_parallelMapping_mapResponse_keepsPageAndItemOrder() {
+
+        // Arrange
+        BookService parallelSut = new BookService(mockPresigner, new ExpiringLruCache<>(0), 4);
+        List<Page<Book>> pages = new ArrayList<>();
+        List<String> expectedIds = new ArrayList<>();
+
+        for (int pageNumber = 0; pageNumber < 3; pageNumber++) {
+            List<Book> items = new ArrayList<>();
+            for (int i = 0; i < BookService.MIN_CHUNK_SIZE * 5; i++) {
+                Book book = new Book();
+                book.setId(pageNumber + "-" + i);
+                items.add(book);
+                expectedIds.add(book.getId());
+            }
+            pages.add(Page.create(items));
+        }
+        pages.add(1, Page.create(Collections.emptyList()));
+
+        // Act
+        List<BookResponse> actualResult = parallelSut.mapResponse(pages::iterator, testLogger);
+
+        // Assert
+        verify(mockPresigner, times(0)).presignGetObject((GetObjectPresignRequest) any());
+        assertEquals(expectedIds.size(), actualResult.size());
+        for (int i = 0; i < expectedIds.size(); i++) {
+            assertEquals(expectedIds.get(i), actualResult.get(i).getId());
+        }
+
+    }
+
+    @Test
+    public void given_failingPageRead_mapResponse_cancelsQueuedChunks() throws Exception {
+
+        // Arrange
+        BookService parallelSut = new BookService(mockPresigner, new ExpiringLruCache<>(0), 2);
+        CountDownLatch releasePresigns = new CountDownLatch(1);
+        AtomicInteger presignCalls = new AtomicInteger();
+
+        PresignedGetObjectRequest mockedPresignedRequest = mock(PresignedGetObjectRequest.class);
+        when(mockedPresignedRequest.url()).thenReturn(new URL("https://stubbed-presigned-url.com"));
+        when(mockPresigner.presignGetObject((GetObjectPresignRequest) any())).thenAnswer(invocation -> {
+            releasePresigns.await(5, TimeUnit.SECONDS);
+            presignCalls.incrementAndGet();
+            return mockedPresignedRequest;
+        });
+
+        // Two pages of two chunks each: the first page's chunks hold both threads, the second page's are queued.
+        List<Page<Book>> pages = new ArrayList<>();
+        for (int pageNumber = 0; pageNumber < 2; pageNumber++) {
+            List<Book> items = new ArrayList<>();
+            for (int i = 0; i < BookService.MIN_CHUNK_SIZE * 2; i++) {
+                Book book = new Book();
+                book.setId(pageNumber + "-" + i);
+                book.setImageKey("key-" + pageNumber + "-" + i);
+                items.add(book);
+            }
+            pages.add(Page.create(items));
+        }
+
+        Iterator<Page<Book>> pageIterator = pages.iterator();
+        PageIterable<Book> failingBooks = () -> new Iterator<Page<Book>>() {
+
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public Page<Book> next() {
+                if (!pageIterator.hasNext()) {
+                    throw new IllegalStateException("Page read failed");
+                }
+                return pageIterator.next();
+            }
+        };
+
+        // Act
+        assertThrows(IllegalStateException.class, () -> parallelSut.mapResponse(failingBooks, testLogger));
+        releasePresigns.countDown();
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (presignCalls.get() < BookService.MIN_CHUNK_SIZE * 2 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        Thread.sleep(100);
+
+        // Assert
+        assertEquals(BookService.MIN_CHUNK_SIZE * 2, presignCalls.get());
+
+    }
+
 }
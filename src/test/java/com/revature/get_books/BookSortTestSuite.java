@@ -0,0 +1,145 @@
+package com.revature.get_books;
+
+import com.revature.get_books.stubs.TestLogger;
+import org.junit.jupiter.api.*;
+import software.amazon.awssdk.enhanced.dynamodb.model.Page;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class BookSortTestSuite {
+
+    static TestLogger testLogger;
+
+    @BeforeAll
+    public static void suiteSetUp() {
+        testLogger = new TestLogger();
+    }
+
+    @AfterAll
+    public static void suiteCleanUp() {
+        testLogger.close();
+    }
+
+    @Test
+    public void given_manyPages_top_keepsTheFirstBooksAcrossPages() {
+
+        // Arrange
+        BookSort sut = BookSort.parse("publisher", testLogger);
+        List<Page<Book>> pages = Arrays.asList(Page.create(Arrays.asList(book("1", "Penguin"), book("2", null), book("3", "apress"))),
+                                               Page.create(Arrays.asList(book("4", "Manning"), book("5", "Apress"))));
+
+        // Act
+        List<Book> actualBooks = sut.top(pages, 3);
+
+        // Assert
+        assertEquals(Arrays.asList("3", "5", "4"), actualBooks.stream().map(Book::getId).collect(Collectors.toList()));
+
+    }
+
+    @Test
+    public void given_fewerBooksThanLimit_top_sortsThemAll() {
+
+        // Arrange
+        BookSort sut = BookSort.parse("publisher", testLogger);
+        List<Page<Book>> pages = Collections.singletonList(Page.create(Arrays.asList(book("1", null), book("2", "Penguin"))));
+
+        // Act
+        List<Book> actualBooks = sut.top(pages, 10);
+
+        // Assert
+        assertEquals(Arrays.asList("2", "1"), actualBooks.stream().map(Book::getId).collect(Collectors.toList()));
+
+    }
+
+    @Test
+    public void given_unknownAttribute_parse_throws() {
+
+        // Act & Assert
+        assertThrows(RuntimeException.class, () -> BookSort.parse("isbn", testLogger));
+
+    }
+
+    @Test
+    public void given_unrequestedSortAttribute_projectionFilter_dropsItFromTheResponse() {
+
+        // Arrange
+        Projection projection = Projection.parse("id,title", testLogger);
+        BookSort sut = BookSort.parse("publisher", testLogger);
+        List<BookResponse> written = new ArrayList<>();
+
+        // Act
+        projection.filter(written::add).accept(BookResponse.builder().id("1").title("Dune").publisher("Ace").build());
+
+        // Assert
+        assertTrue(sut.readProjection(projection).getAttributes().contains("publisher"));
+        assertNull(written.get(0).getPublisher());
+        assertEquals("Dune", written.get(0).getTitle());
+
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void given_indexedSearch_top_sortsEachBatchBeforeReadingTheNext() throws IOException {
+
+        // Arrange
+        List<Book> indexedBooks = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            Book book = book(String.format("%03d", i), "Publisher " + (250 - i));
+            book.setGenres(Collections.singletonList("Fantasy"));
+            indexedBooks.add(book);
+        }
+
+        ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+        SearchIndexWriter.write(indexedBooks, new DataOutputStream(snapshot));
+        SearchIndex searchIndex = new SearchIndex(ByteBuffer.wrap(snapshot.toByteArray()));
+
+        // Loaded books note when the sort first reads them, so each load can see how much was sorted before it.
+        Set<String> sorted = new HashSet<>();
+        List<Integer> sortedBeforeEachLoad = new ArrayList<>();
+        BookBatchLoader mockBatchLoader = mock(BookBatchLoader.class);
+        when(mockBatchLoader.load(anyList(), any(Projection.class), any())).thenAnswer(invocation -> {
+            sortedBeforeEachLoad.add(sorted.size());
+            Map<String, Book> booksById = new HashMap<>();
+            for (String id : (List<String>) invocation.getArgument(0)) {
+                Book book = new Book() {
+                    @Override
+                    public String getPublisher() {
+                        sorted.add(getId());
+                        return super.getPublisher();
+                    }
+                };
+                book.setId(id);
+                book.setPublisher("Publisher " + (250 - Integer.parseInt(id)));
+                booksById.put(id, book);
+            }
+            return booksById;
+        });
+
+        BookRepository bookRepo = new BookRepository(null, new BookQueryPlanner(), 1, mockBatchLoader, searchIndex);
+        BookSort sut = BookSort.parse("publisher", testLogger);
+
+        // Act
+        List<Book> actualBooks = sut.top(bookRepo.searchBooks(Collections.singletonMap("genres", "Fantasy"), sut.readProjection(Projection.DEFAULT), testLogger), 3);
+
+        // Assert
+        assertEquals(Arrays.asList("249", "240", "150"), actualBooks.stream().map(Book::getId).collect(Collectors.toList()));
+        assertEquals(Arrays.asList(0, BookBatchLoader.MAX_BATCH_KEYS, 2 * BookBatchLoader.MAX_BATCH_KEYS), sortedBeforeEachLoad);
+
+    }
+
+    private static Book book(String id, String publisher) {
+        Book book = new Book();
+        book.setId(id);
+        book.setPublisher(publisher);
+        return book;
+    }
+
+}
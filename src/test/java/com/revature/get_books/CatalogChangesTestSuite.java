@@ -0,0 +1,189 @@
+package com.revature.get_books;
+
+import com.revature.get_books.stubs.TestLogger;
+import org.junit.jupiter.api.*;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.enhanced.dynamodb.model.Page;
+import software.amazon.awssdk.enhanced.dynamodb.model.PageIterable;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CatalogChangesTestSuite {
+
+    static final long NOW = 10_000_000L;
+    static TestLogger testLogger;
+
+    InMemoryChangeFeed changeFeed;
+    AtomicLong stubbedClock;
+    CatalogChanges sut;
+
+    @BeforeAll
+    public static void suiteSetUp() {
+        testLogger = new TestLogger();
+    }
+
+    @AfterAll
+    public static void suiteTearDown() {
+        testLogger.close();
+    }
+
+    @BeforeEach
+    public void caseSetUp() {
+        changeFeed = new InMemoryChangeFeed();
+        stubbedClock = new AtomicLong(NOW);
+        sut = new CatalogChanges(changeFeed, 1000, 3, 0, stubbedClock::get);
+    }
+
+    @AfterEach
+    public void caseTearDown() {
+        sut = null;
+    }
+
+    @Test
+    public void given_changes_overlay_replacesRemovesAndAppendsBooks() {
+
+        // Arrange
+        changeFeed.publish(BookChange.upsert(BookChange.Type.MODIFY, book("b", "Renamed", "Fantasy"), NOW));
+        changeFeed.publish(BookChange.removal("c", NOW));
+        changeFeed.publish(BookChange.upsert(BookChange.Type.INSERT, book("z", "Brand New", "Fantasy"), NOW));
+        sut.refresh(testLogger);
+
+        List<Page<Book>> basePages = Collections.singletonList(Page.create(Arrays.asList(book("a", "First", "Horror"), book("b", "Second", "Horror"), book("c", "Third", "Horror"))));
+        PageIterable<Book> base = basePages::iterator;
+
+        // Act
+        List<Book> actualBooks = new ArrayList<>();
+        sut.overlay(base, Projection.ALL).items().forEach(actualBooks::add);
+
+        // Assert
+        assertEquals(3, actualBooks.size());
+        assertEquals("First", actualBooks.get(0).getTitle());
+        assertEquals("Renamed", actualBooks.get(1).getTitle());
+        assertEquals("z", actualBooks.get(2).getId());
+
+    }
+
+    @Test
+    public void given_changes_overlaySearch_rematchesChangedBooks() {
+
+        // Arrange
+        changeFeed.publish(BookChange.upsert(BookChange.Type.MODIFY, book("b", "Second", "Horror"), NOW));
+        changeFeed.publish(BookChange.upsert(BookChange.Type.INSERT, book("aa", "Inserted", "Fantasy"), NOW));
+        sut.refresh(testLogger);
+
+        // Act
+        List<String> actualIds = sut.overlaySearch(Arrays.asList("a", "b"), Collections.singletonMap("genres", "Fantasy"));
+
+        // Assert
+        assertEquals(Arrays.asList("a", "aa"), actualIds);
+
+    }
+
+    @Test
+    public void given_changesWithinPollInterval_refresh_pollsOnce() {
+
+        // Arrange
+        changeFeed.publish(BookChange.removal("a", NOW));
+        assertTrue(sut.refresh(testLogger));
+        changeFeed.publish(BookChange.removal("b", NOW));
+
+        // Act
+        boolean actualEarly = sut.refresh(testLogger);
+        stubbedClock.addAndGet(1000);
+        boolean actualLater = sut.refresh(testLogger);
+
+        // Assert
+        assertFalse(actualEarly);
+        assertTrue(actualLater);
+        assertEquals(2, sut.version());
+        assertEquals(2, sut.size());
+
+    }
+
+    @Test
+    public void given_failingFeed_refresh_reportsNoChangeAndRetriesLater() {
+
+        // Arrange
+        AtomicLong polls = new AtomicLong();
+        ChangeFeed failingFeed = logger -> {
+            if (polls.incrementAndGet() == 1) {
+                throw SdkException.builder().message("Rate exceeded").build();
+            }
+            return Collections.singletonList(BookChange.removal("a", NOW));
+        };
+        CatalogChanges failingSut = new CatalogChanges(failingFeed, 1000, 3, 0, stubbedClock::get);
+
+        // Act
+        boolean actualFailed = failingSut.refresh(testLogger);
+        stubbedClock.addAndGet(1000);
+        boolean actualRetried = failingSut.refresh(testLogger);
+
+        // Assert
+        assertFalse(actualFailed);
+        assertTrue(actualRetried);
+        assertEquals(1, failingSut.version());
+        assertEquals(1, failingSut.size());
+
+    }
+
+    @Test
+    public void given_containerCeiling_pollIntervalMillis_staysWithinTheShardReadLimit() {
+
+        // Act
+        long actualFew = CatalogChanges.pollIntervalMillis(1000, 2);
+        long actualMany = CatalogChanges.pollIntervalMillis(1000, 20);
+
+        // Assert
+        assertEquals(1000, actualFew);
+        assertEquals(20 * 1000 / DynamoDbStreamChangeFeed.READS_PER_SECOND_PER_SHARD, actualMany);
+
+    }
+
+    @Test
+    public void given_overflowingOverlay_refresh_stopsCoveringOlderBuilds() {
+
+        // Arrange
+        for (String id : Arrays.asList("a", "b", "c", "d")) {
+            changeFeed.publish(BookChange.removal(id, NOW));
+        }
+
+        // Act
+        sut.refresh(testLogger);
+
+        // Assert
+        assertEquals(0, sut.size());
+        assertFalse(sut.covers(NOW));
+        assertTrue(sut.covers(NOW + CatalogChanges.BUILD_MARGIN_MILLIS));
+
+    }
+
+    @Test
+    public void given_newerBuild_pruneThrough_dropsIncludedChanges() {
+
+        // Arrange
+        changeFeed.publish(BookChange.removal("old", NOW - 2 * CatalogChanges.BUILD_MARGIN_MILLIS));
+        changeFeed.publish(BookChange.removal("new", NOW));
+        sut.refresh(testLogger);
+
+        // Act
+        sut.pruneThrough(NOW);
+
+        // Assert
+        assertEquals(1, sut.size());
+        assertTrue(sut.covers(NOW));
+        assertFalse(sut.covers(NOW - 1));
+
+    }
+
+    private static Book book(String id, String title, String genre) {
+        Book book = new Book();
+        book.setId(id);
+        book.setTitle(title);
+        book.setGenres(Collections.singletonList(genre));
+        return book;
+    }
+
+}
@@ -0,0 +1,112 @@
+package com.revature.get_books;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import software.amazon.awssdk.enhanced.dynamodb.model.PageIterable;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CatalogSnapshotTestSuite {
+
+    static final long WRITTEN_AT = 1_000_000L;
+
+    @TempDir
+    Path tempDir;
+
+    AtomicLong stubbedClock;
+    Path snapshotPath;
+    CatalogSnapshot sut;
+
+    @BeforeEach
+    public void caseSetUp() throws IOException {
+
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < CatalogSnapshot.PAGE_SIZE + 5; i++) {
+            Book book = new Book();
+            book.setId("book-" + i);
+            book.setTitle("Title " + i);
+            book.setAuthors(Arrays.asList("Author A", "Author B"));
+            book.setImageKey(i % 2 == 0 ? "covers/" + i + ".jpg" : null);
+            books.add(book);
+        }
+
+        snapshotPath = tempDir.resolve("catalog.snapshot");
+        CatalogSnapshotWriter.write(books, WRITTEN_AT, snapshotPath);
+
+        stubbedClock = new AtomicLong(WRITTEN_AT);
+        sut = new CatalogSnapshot(snapshotPath, 60_000, stubbedClock::get);
+
+    }
+
+    @AfterEach
+    public void caseTearDown() {
+        sut = null;
+    }
+
+    @Test
+    public void given_freshSnapshot_books_decodesEveryBookInPages() {
+
+        // Act
+        PageIterable<Book> actualBooks = sut.books(Projection.ALL);
+
+        // Assert
+        List<Book> decoded = new ArrayList<>();
+        actualBooks.items().forEach(decoded::add);
+        assertEquals(CatalogSnapshot.PAGE_SIZE + 5, decoded.size());
+        assertEquals(2, actualBooks.stream().count());
+        assertEquals("book-2", decoded.get(2).getId());
+        assertEquals(Arrays.asList("Author A", "Author B"), decoded.get(2).getAuthors());
+        assertEquals("covers/2.jpg", decoded.get(2).getImageKey());
+        assertNull(decoded.get(3).getImageKey());
+        assertNull(decoded.get(3).getGenres());
+
+    }
+
+    @Test
+    public void given_projection_books_skipsUnprojectedAttributes() {
+
+        // Act
+        Book actualBook = sut.books(Projection.parse("title", null)).items().iterator().next();
+
+        // Assert
+        assertEquals("Title 0", actualBook.getTitle());
+        assertNull(actualBook.getId());
+        assertNull(actualBook.getAuthors());
+        assertNull(actualBook.getImageKey());
+
+    }
+
+    @Test
+    public void given_staleSnapshot_books_returnsNull() {
+
+        // Arrange
+        stubbedClock.addAndGet(60_001);
+
+        // Act
+        PageIterable<Book> actualBooks = sut.books(Projection.ALL);
+
+        // Assert
+        assertNull(actualBooks);
+
+    }
+
+    @Test
+    public void given_missingSnapshot_books_returnsNull() {
+
+        // Arrange
+        CatalogSnapshot missingSut = new CatalogSnapshot(tempDir.resolve("missing.snapshot"), 60_000, stubbedClock::get);
+
+        // Act
+        PageIterable<Book> actualBooks = missingSut.books(Projection.ALL);
+
+        // Assert
+        assertNull(actualBooks);
+
+    }
+
+}
@@ -0,0 +1,120 @@
+package com.revature.get_books;
+
+import com.revature.get_books.stubs.TestLogger;
+import org.junit.jupiter.api.*;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class CatalogVersionTestSuite {
+
+    static TestLogger testLogger;
+
+    AtomicLong stubbedClock;
+    DynamoDbClient mockDynamoDb;
+    CatalogVersion sut;
+
+    @BeforeAll
+    public static void suiteSetUp() {
+        testLogger = new TestLogger();
+    }
+
+    @BeforeEach
+    public void caseSetUp() {
+        stubbedClock = new AtomicLong(CatalogVersion.PRESIGN_BUCKET_MILLIS * 10);
+        mockDynamoDb = mock(DynamoDbClient.class);
+        sut = new CatalogVersion(mockDynamoDb, "books-meta", 1000, new ExpiringLruCache<>(1, stubbedClock::get));
+    }
+
+    @AfterEach
+    public void caseTearDown() {
+        sut = null;
+        reset(mockDynamoDb);
+    }
+
+    @AfterAll
+    public static void suiteCleanUp() {
+        testLogger.close();
+    }
+
+    @Test
+    public void given_unexpiredVersion_current_readsTheVersionItemOnce() {
+
+        // Arrange
+        stubVersion("7");
+
+        // Act
+        String firstVersion = sut.current(testLogger);
+        String secondVersion = sut.current(testLogger);
+
+        // Assert
+        verify(mockDynamoDb, times(1)).getItem(any(GetItemRequest.class));
+        assertEquals("7", firstVersion);
+        assertEquals("7", secondVersion);
+
+    }
+
+    @Test
+    public void given_sameVersionAndBucket_etag_isStablePerQueryShape() {
+
+        // Arrange
+        stubVersion("7");
+
+        // Act
+        String allBooksEtag = sut.etag("{}", testLogger);
+        String repeatedEtag = sut.etag("{}", testLogger);
+        String searchEtag = sut.etag("{\"genres\":\"Fantasy\"}", testLogger);
+
+        // Assert
+        assertEquals(allBooksEtag, repeatedEtag);
+        assertNotEquals(allBooksEtag, searchEtag);
+        assertTrue(allBooksEtag.startsWith("\"") && allBooksEtag.endsWith("\""));
+
+    }
+
+    @Test
+    public void given_nextPresignBucket_etag_changesWithoutAVersionChange() {
+
+        // Arrange
+        stubVersion("7");
+        String firstEtag = sut.etag("{}", testLogger);
+
+        // Act
+        stubbedClock.addAndGet(CatalogVersion.PRESIGN_BUCKET_MILLIS);
+        String nextEtag = sut.etag("{}", testLogger);
+
+        // Assert
+        assertNotEquals(firstEtag, nextEtag);
+
+    }
+
+    @Test
+    public void given_noVersionTable_etag_returnsNull() {
+
+        // Arrange
+        CatalogVersion disabledSut = new CatalogVersion(mockDynamoDb, null, 1000, new ExpiringLruCache<>(1));
+
+        // Act
+        String actualEtag = disabledSut.etag("{}", testLogger);
+
+        // Assert
+        assertNull(actualEtag);
+        verifyNoInteractions(mockDynamoDb);
+
+    }
+
+    private void stubVersion(String version) {
+        GetItemResponse response = GetItemResponse.builder()
+                                                  .item(Collections.singletonMap("version", AttributeValue.builder().n(version).build()))
+                                                  .build();
+        when(mockDynamoDb.getItem(any(GetItemRequest.class))).thenReturn(response);
+    }
+
+}
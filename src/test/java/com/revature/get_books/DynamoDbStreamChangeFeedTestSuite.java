@@ -0,0 +1,94 @@
+package com.revature.get_books;
+
+import com.revature.get_books.stubs.TestLogger;
+import org.junit.jupiter.api.*;
+import software.amazon.awssdk.services.dynamodb.model.DescribeStreamRequest;
+import software.amazon.awssdk.services.dynamodb.model.DescribeStreamResponse;
+import software.amazon.awssdk.services.dynamodb.model.GetRecordsRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetRecordsResponse;
+import software.amazon.awssdk.services.dynamodb.model.GetShardIteratorRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetShardIteratorResponse;
+import software.amazon.awssdk.services.dynamodb.model.LimitExceededException;
+import software.amazon.awssdk.services.dynamodb.model.Shard;
+import software.amazon.awssdk.services.dynamodb.model.ShardIteratorType;
+import software.amazon.awssdk.services.dynamodb.model.StreamDescription;
+import software.amazon.awssdk.services.dynamodb.streams.DynamoDbStreamsClient;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class DynamoDbStreamChangeFeedTestSuite {
+
+    static final long NOW = 10_000_000L;
+    static TestLogger testLogger;
+
+    DynamoDbStreamsClient mockStreams;
+    AtomicLong stubbedClock;
+    DynamoDbStreamChangeFeed sut;
+
+    @BeforeAll
+    public static void suiteSetUp() {
+        testLogger = new TestLogger();
+    }
+
+    @AfterAll
+    public static void suiteTearDown() {
+        testLogger.close();
+    }
+
+    @BeforeEach
+    public void caseSetUp() {
+
+        mockStreams = mock(DynamoDbStreamsClient.class);
+        stubbedClock = new AtomicLong(NOW);
+
+        when(mockStreams.describeStream(any(DescribeStreamRequest.class))).thenReturn(
+                DescribeStreamResponse.builder()
+                                      .streamDescription(StreamDescription.builder()
+                                                                          .shards(Shard.builder().shardId("shard-1").build())
+                                                                          .build())
+                                      .build());
+        when(mockStreams.getShardIterator(any(GetShardIteratorRequest.class))).thenReturn(
+                GetShardIteratorResponse.builder().shardIterator("iterator-1").build());
+
+        sut = new DynamoDbStreamChangeFeed(mockStreams, "arn:stream", ShardIteratorType.TRIM_HORIZON, 100, stubbedClock::get);
+
+    }
+
+    @AfterEach
+    public void caseTearDown() {
+        sut = null;
+    }
+
+    @Test
+    public void given_throttledStream_poll_backsOffBeforeReadingAgain() {
+
+        // Arrange
+        when(mockStreams.getRecords(any(GetRecordsRequest.class)))
+                .thenThrow(LimitExceededException.builder().message("Rate exceeded").build())
+                .thenThrow(LimitExceededException.builder().message("Rate exceeded").build())
+                .thenReturn(GetRecordsResponse.builder().nextShardIterator("iterator-2").build());
+
+        // Act
+        List<BookChange> actualThrottled = sut.poll(testLogger);
+        stubbedClock.addAndGet(DynamoDbStreamChangeFeed.MIN_BACKOFF_MILLIS - 1);
+        sut.poll(testLogger);
+        stubbedClock.addAndGet(1);
+        sut.poll(testLogger);
+        stubbedClock.addAndGet(2 * DynamoDbStreamChangeFeed.MIN_BACKOFF_MILLIS - 1);
+        sut.poll(testLogger);
+        stubbedClock.addAndGet(1);
+        List<BookChange> actualRecovered = sut.poll(testLogger);
+
+        // Assert
+        assertTrue(actualThrottled.isEmpty());
+        assertTrue(actualRecovered.isEmpty());
+        assertTrue(sut.isCaughtUp());
+        verify(mockStreams, times(3)).getRecords(any(GetRecordsRequest.class));
+
+    }
+
+}
@@ -0,0 +1,93 @@
+package com.revature.get_books;
+
+import org.junit.jupiter.api.*;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExpiringLruCacheTestSuite {
+
+    AtomicLong stubbedClock;
+    ExpiringLruCache<String, String> sut;
+
+    @BeforeEach
+    public void caseSetUp() {
+        stubbedClock = new AtomicLong(1000);
+        sut = new ExpiringLruCache<>(2, stubbedClock::get);
+    }
+
+    @AfterEach
+    public void caseTearDown() {
+        sut = null;
+        stubbedClock = null;
+    }
+
+    @Test
+    public void given_unexpiredEntry_get_returnsValueAndCountsHit() {
+
+        // Arrange
+        sut.putFor("key", "value", 500);
+
+        // Act
+        String actualValue = sut.get("key");
+
+        // Assert
+        assertEquals("value", actualValue);
+        assertEquals(1, sut.getHits());
+        assertEquals(0, sut.getMisses());
+
+    }
+
+    @Test
+    public void given_expiredEntry_get_returnsNullAndCountsMiss() {
+
+        // Arrange
+        sut.putFor("key", "value", 500);
+        stubbedClock.addAndGet(500);
+
+        // Act
+        String actualValue = sut.get("key");
+
+        // Assert
+        assertNull(actualValue);
+        assertEquals(0, sut.size());
+        assertEquals(1, sut.getMisses());
+
+    }
+
+    @Test
+    public void given_fullCache_put_evictsLeastRecentlyUsedEntry() {
+
+        // Arrange
+        sut.putFor("first", "1", 500);
+        sut.putFor("second", "2", 500);
+        sut.get("first");
+
+        // Act
+        sut.putFor("third", "3", 500);
+
+        // Assert
+        assertEquals("1", sut.get("first"));
+        assertNull(sut.get("second"));
+        assertEquals("3", sut.get("third"));
+        assertEquals(1, sut.getEvictions());
+
+    }
+
+    @Test
+    public void given_zeroMaxEntries_put_storesNothing() {
+
+        // Arrange
+        ExpiringLruCache<String, String> disabledSut = new ExpiringLruCache<>(0, stubbedClock::get);
+
+        // Act
+        disabledSut.putFor("key", "value", 500);
+
+        // Assert
+        assertNull(disabledSut.get("key"));
+        assertEquals(0, disabledSut.getEvictions());
+
+    }
+
+}
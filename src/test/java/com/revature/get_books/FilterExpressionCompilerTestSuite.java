@@ -0,0 +1,85 @@
+package com.revature.get_books;
+
+import com.revature.get_books.stubs.TestLogger;
+import org.junit.jupiter.api.*;
+import software.amazon.awssdk.enhanced.dynamodb.Expression;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FilterExpressionCompilerTestSuite {
+
+    static TestLogger testLogger;
+
+    FilterExpressionCompiler sut;
+
+    @BeforeAll
+    public static void suiteSetUp() {
+        testLogger = new TestLogger();
+    }
+
+    @BeforeEach
+    public void caseSetUp() {
+        sut = new FilterExpressionCompiler();
+    }
+
+    @AfterEach
+    public void caseTearDown() {
+        sut = null;
+    }
+
+    @AfterAll
+    public static void suiteCleanUp() {
+        testLogger.close();
+    }
+
+    @Test
+    public void given_stringAndListParams_compile_joinsClausesWithAnd() {
+
+        // Arrange
+        Map<String, String> stubbedQueryParams = new HashMap<>();
+        stubbedQueryParams.put("title", "Test Book");
+        stubbedQueryParams.put("authors", "Test Author 1,Test Author 2");
+
+        // Act
+        Expression actualExpression = sut.compile(stubbedQueryParams, testLogger);
+
+        // Assert
+        assertEquals("(contains(authors,:authors0) or contains(authors,:authors1)) and (title = :title)", actualExpression.expression());
+        assertEquals("Test Author 2", actualExpression.expressionValues().get(":authors1").s());
+        assertEquals("Test Book", actualExpression.expressionValues().get(":title").s());
+
+    }
+
+    @Test
+    public void given_repeatedShape_compile_reusesTemplateAndBindsNewValues() {
+
+        // Arrange
+        Map<String, String> firstQueryParams = Collections.singletonMap("publisher", "Revature");
+        Map<String, String> secondQueryParams = Collections.singletonMap("publisher", "Other Publisher");
+
+        // Act
+        Expression firstExpression = sut.compile(firstQueryParams, testLogger);
+        Expression secondExpression = sut.compile(secondQueryParams, testLogger);
+
+        // Assert
+        assertSame(firstExpression.expression(), secondExpression.expression());
+        assertEquals("Other Publisher", secondExpression.expressionValues().get(":publisher").s());
+
+    }
+
+    @Test
+    public void given_unknownField_compile_throwsRuntimeException() {
+
+        // Arrange
+        Map<String, String> stubbedQueryParams = Collections.singletonMap("ISBN_INDEX", "isbn-index");
+
+        // Act & Assert
+        assertThrows(RuntimeException.class, () -> sut.compile(stubbedQueryParams, testLogger));
+
+    }
+
+}
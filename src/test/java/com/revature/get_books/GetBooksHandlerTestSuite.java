@@ -4,15 +4,16 @@ import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.revature.get_books.stubs.TestLogger;
 import org.junit.jupiter.api.*;
+import org.mockito.ArgumentCaptor;
+import org.mockito.stubbing.Answer;
+import software.amazon.awssdk.enhanced.dynamodb.model.Page;
 import software.amazon.awssdk.enhanced.dynamodb.model.PageIterable;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
 
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.*;
@@ -21,7 +22,7 @@ import static org.mockito.Mockito.*;
 public class GetBooksHandlerTestSuite {
 
     static TestLogger testLogger;
-    static final Gson mapper = new GsonBuilder().setPrettyPrinting().create();
+    static final Gson mapper = new Gson();
 
     GetBooksHandler sut;
     Context mockContext;
@@ -66,6 +67,14 @@ public class GetBooksHandlerTestSuite {
         testLogger.close();
     }
 
+    private static Answer<Integer> streamResponses(List<BookResponse> bookResponses) {
+        return invocation -> {
+            Consumer<BookResponse> sink = invocation.getArgument(1);
+            bookResponses.forEach(sink);
+            return bookResponses.size();
+        };
+    }
+
     @Test
     public void given_validRequest_handlerGetsAllBooks() {
 
@@ -77,10 +86,10 @@ public class GetBooksHandlerTestSuite {
         mockRequestEvent.withQueryStringParameters(null);
 
         PageIterable<Book> mockBooks = (PageIterable<Book>) mock(PageIterable.class);
-        when(mockBookRepo.getAllBooks()).thenReturn(mockBooks);
+        when(mockBookRepo.getAllBooks(Projection.DEFAULT)).thenReturn(mockBooks);
 
         List<BookResponse> mockBookResponses = Collections.singletonList(stubbedBookResponse);
-        when(mockBookService.mapResponse(mockBooks, testLogger)).thenReturn(mockBookResponses);
+        doAnswer(streamResponses(mockBookResponses)).when(mockBookService).mapResponse(eq(mockBooks), any(Consumer.class), eq(testLogger));
 
         APIGatewayProxyResponseEvent expectedResponse = new APIGatewayProxyResponseEvent();
         expectedResponse.setStatusCode(200);
@@ -90,9 +99,9 @@ public class GetBooksHandlerTestSuite {
         APIGatewayProxyResponseEvent actualResponse = sut.handleRequest(mockRequestEvent, mockContext);
 
         // Assert
-        verify(mockBookRepo, times(1)).getAllBooks();
-        verify(mockBookRepo, times(0)).searchBooks(Collections.emptyMap(), testLogger);
-        verify(mockBookService, times(1)).mapResponse(mockBooks, testLogger);
+        verify(mockBookRepo, times(1)).getAllBooks(Projection.DEFAULT);
+        verify(mockBookRepo, times(0)).searchBooks(Collections.emptyMap(), Projection.DEFAULT, testLogger);
+        verify(mockBookService, times(1)).mapResponse(eq(mockBooks), any(Consumer.class), eq(testLogger));
         assertEquals(expectedResponse, actualResponse);
 
     }
@@ -109,10 +118,10 @@ public class GetBooksHandlerTestSuite {
 
         PageIterable<Book> mockBooks = (PageIterable<Book>) mock(PageIterable.class);
         Map<String, String> stubbedQueryParams = mockRequestEvent.getQueryStringParameters();
-        when(mockBookRepo.searchBooks(stubbedQueryParams, testLogger)).thenReturn(mockBooks);
+        when(mockBookRepo.searchBooks(stubbedQueryParams, Projection.DEFAULT, testLogger)).thenReturn(mockBooks);
 
         List<BookResponse> mockBookResponses = Collections.singletonList(stubbedBookResponse);
-        when(mockBookService.mapResponse(mockBooks, testLogger)).thenReturn(mockBookResponses);
+        doAnswer(streamResponses(mockBookResponses)).when(mockBookService).mapResponse(eq(mockBooks), any(Consumer.class), eq(testLogger));
 
         APIGatewayProxyResponseEvent expectedResponse = new APIGatewayProxyResponseEvent();
         expectedResponse.setStatusCode(200);
@@ -122,11 +131,236 @@ public class GetBooksHandlerTestSuite {
         APIGatewayProxyResponseEvent actualResponse = sut.handleRequest(mockRequestEvent, mockContext);
 
         // Assert
-        verify(mockBookRepo, times(0)).getAllBooks();
-        verify(mockBookRepo, times(1)).searchBooks(stubbedQueryParams, testLogger);
-        verify(mockBookService, times(1)).mapResponse(mockBooks, testLogger);
+        verify(mockBookRepo, times(0)).getAllBooks(Projection.DEFAULT);
+        verify(mockBookRepo, times(1)).searchBooks(stubbedQueryParams, Projection.DEFAULT, testLogger);
+        verify(mockBookService, times(1)).mapResponse(eq(mockBooks), any(Consumer.class), eq(testLogger));
         assertEquals(expectedResponse, actualResponse);
 
     }
 
+    @Test
+    public void given_limitAndCursor_handlerReturnsSinglePageWithNextCursor() {
+
+        // Arrange
+        Map<String, AttributeValue> startKey = Collections.singletonMap("id", AttributeValue.builder().s("100").build());
+        Map<String, AttributeValue> lastKey = Collections.singletonMap("id", AttributeValue.builder().s("123").build());
+
+        Map<String, String> stubbedQueryParams = new HashMap<>();
+        stubbedQueryParams.put("limit", "10");
+        stubbedQueryParams.put("cursor", PageCursor.encode(startKey));
+
+        APIGatewayProxyRequestEvent mockRequestEvent = new APIGatewayProxyRequestEvent();
+        mockRequestEvent.withPath("/books");
+        mockRequestEvent.withHttpMethod("GET");
+        mockRequestEvent.withBody(null);
+        mockRequestEvent.withQueryStringParameters(stubbedQueryParams);
+
+        Page<Book> stubbedPage = Page.create(Collections.emptyList(), lastKey);
+        when(mockBookRepo.getBookPage(10, startKey, Projection.DEFAULT)).thenReturn(stubbedPage);
+
+        List<BookResponse> mockBookResponses = Collections.singletonList(stubbedBookResponse);
+        doAnswer(streamResponses(mockBookResponses)).when(mockBookService).mapPage(eq(stubbedPage), any(Consumer.class), eq(testLogger));
+
+        APIGatewayProxyResponseEvent expectedResponse = new APIGatewayProxyResponseEvent();
+        expectedResponse.setStatusCode(200);
+        expectedResponse.setHeaders(Collections.singletonMap("X-Next-Cursor", PageCursor.encode(lastKey)));
+        expectedResponse.setBody(mapper.toJson(mockBookResponses));
+
+        // Act
+        APIGatewayProxyResponseEvent actualResponse = sut.handleRequest(mockRequestEvent, mockContext);
+
+        // Assert
+        verify(mockBookRepo, times(0)).getAllBooks(Projection.DEFAULT);
+        verify(mockBookRepo, times(1)).getBookPage(10, startKey, Projection.DEFAULT);
+        verify(mockBookService, times(1)).mapPage(eq(stubbedPage), any(Consumer.class), eq(testLogger));
+        assertEquals(expectedResponse, actualResponse);
+
+    }
+
+    @Test
+    public void given_repeatedRequest_handlerServesCachedResponse() {
+
+        // Arrange
+        GetBooksHandler cachingSut = new GetBooksHandler(mockBookRepo, mockBookService, new ExpiringLruCache<>(8), 60_000);
+
+        APIGatewayProxyRequestEvent mockRequestEvent = new APIGatewayProxyRequestEvent();
+        mockRequestEvent.withPath("/books");
+        mockRequestEvent.withHttpMethod("GET");
+        mockRequestEvent.withBody(null);
+        mockRequestEvent.withQueryStringParameters(null);
+
+        PageIterable<Book> mockBooks = (PageIterable<Book>) mock(PageIterable.class);
+        when(mockBookRepo.getAllBooks(Projection.DEFAULT)).thenReturn(mockBooks);
+
+        List<BookResponse> mockBookResponses = Collections.singletonList(stubbedBookResponse);
+        doAnswer(streamResponses(mockBookResponses)).when(mockBookService).mapResponse(eq(mockBooks), any(Consumer.class), eq(testLogger));
+
+        // Act
+        APIGatewayProxyResponseEvent firstResponse = cachingSut.handleRequest(mockRequestEvent, mockContext);
+        APIGatewayProxyResponseEvent secondResponse = cachingSut.handleRequest(mockRequestEvent, mockContext);
+
+        // Assert
+        verify(mockBookRepo, times(1)).getAllBooks(Projection.DEFAULT);
+        verify(mockBookService, times(1)).mapResponse(eq(mockBooks), any(Consumer.class), eq(testLogger));
+        assertEquals(firstResponse, secondResponse);
+
+    }
+
+    @Test
+    public void given_matchingIfNoneMatch_handlerAnswersNotModifiedWithoutReading() {
+
+        // Arrange
+        CatalogVersion mockCatalogVersion = mock(CatalogVersion.class);
+        when(mockCatalogVersion.etag(anyString(), eq(testLogger))).thenReturn("\"v42\"");
+        GetBooksHandler conditionalSut = new GetBooksHandler(mockBookRepo, mockBookService, new ExpiringLruCache<>(0), 0, mockCatalogVersion);
+
+        APIGatewayProxyRequestEvent mockRequestEvent = new APIGatewayProxyRequestEvent();
+        mockRequestEvent.withPath("/books");
+        mockRequestEvent.withHttpMethod("GET");
+        mockRequestEvent.withBody(null);
+        mockRequestEvent.withHeaders(Collections.singletonMap("if-none-match", "\"v41\", \"v42\""));
+
+        APIGatewayProxyResponseEvent expectedResponse = new APIGatewayProxyResponseEvent();
+        expectedResponse.setStatusCode(304);
+        expectedResponse.setHeaders(Collections.singletonMap(GetBooksHandler.ETAG_HEADER, "\"v42\""));
+
+        // Act
+        APIGatewayProxyResponseEvent actualResponse = conditionalSut.handleRequest(mockRequestEvent, mockContext);
+
+        // Assert
+        verifyNoInteractions(mockBookRepo, mockBookService);
+        assertEquals(expectedResponse, actualResponse);
+
+    }
+
+    @Test
+    public void given_compressionEnabled_handlerVariesEveryResponseByAcceptEncoding() {
+
+        // Arrange
+        CatalogVersion mockCatalogVersion = mock(CatalogVersion.class);
+        when(mockCatalogVersion.etag(anyString(), eq(testLogger))).thenReturn("\"v42\"");
+        GetBooksHandler compressingSut = new GetBooksHandler(mockBookRepo, mockBookService, new ExpiringLruCache<>(0), 0, mockCatalogVersion, new ResponseCompression());
+
+        APIGatewayProxyRequestEvent mockRequestEvent = new APIGatewayProxyRequestEvent();
+        mockRequestEvent.withPath("/books");
+        mockRequestEvent.withHttpMethod("GET");
+        mockRequestEvent.withBody(null);
+
+        APIGatewayProxyRequestEvent conditionalRequestEvent = new APIGatewayProxyRequestEvent();
+        conditionalRequestEvent.withPath("/books");
+        conditionalRequestEvent.withHttpMethod("GET");
+        conditionalRequestEvent.withBody(null);
+        conditionalRequestEvent.withHeaders(Collections.singletonMap("If-None-Match", "\"v42\""));
+
+        PageIterable<Book> mockBooks = (PageIterable<Book>) mock(PageIterable.class);
+        when(mockBookRepo.getAllBooks(Projection.DEFAULT)).thenReturn(mockBooks);
+        doAnswer(streamResponses(Collections.singletonList(stubbedBookResponse))).when(mockBookService).mapResponse(eq(mockBooks), any(Consumer.class), eq(testLogger));
+
+        // Act
+        APIGatewayProxyResponseEvent uncompressedResponse = compressingSut.handleRequest(mockRequestEvent, mockContext);
+        APIGatewayProxyResponseEvent notModifiedResponse = compressingSut.handleRequest(conditionalRequestEvent, mockContext);
+
+        // Assert
+        assertEquals(200, uncompressedResponse.getStatusCode());
+        assertEquals(null, uncompressedResponse.getHeaders().get(GetBooksHandler.CONTENT_ENCODING_HEADER));
+        assertEquals("Accept-Encoding", uncompressedResponse.getHeaders().get(GetBooksHandler.VARY_HEADER));
+        assertEquals(304, notModifiedResponse.getStatusCode());
+        assertEquals("Accept-Encoding", notModifiedResponse.getHeaders().get(GetBooksHandler.VARY_HEADER));
+
+    }
+
+    @Test
+    public void given_fieldsParam_handlerProjectsRequestedFieldsOnly() {
+
+        // Arrange
+        APIGatewayProxyRequestEvent mockRequestEvent = new APIGatewayProxyRequestEvent();
+        mockRequestEvent.withPath("/books");
+        mockRequestEvent.withHttpMethod("GET");
+        mockRequestEvent.withBody(null);
+        mockRequestEvent.withQueryStringParameters(Collections.singletonMap("fields", "id,title"));
+
+        PageIterable<Book> mockBooks = (PageIterable<Book>) mock(PageIterable.class);
+        ArgumentCaptor<Projection> projectionCaptor = ArgumentCaptor.forClass(Projection.class);
+        when(mockBookRepo.getAllBooks(projectionCaptor.capture())).thenReturn(mockBooks);
+
+        BookResponse projectedResponse = BookResponse.builder().id("123").title("Test Book").imageUrl("").build();
+        doAnswer(streamResponses(Collections.singletonList(projectedResponse))).when(mockBookService).mapResponse(eq(mockBooks), any(Consumer.class), eq(testLogger));
+
+        // Act
+        APIGatewayProxyResponseEvent actualResponse = sut.handleRequest(mockRequestEvent, mockContext);
+
+        // Assert
+        assertEquals(Arrays.asList("id", "title"), projectionCaptor.getValue().getAttributes());
+        assertEquals("[{\"id\":\"123\",\"title\":\"Test Book\"}]", actualResponse.getBody());
+
+    }
+
+    @Test
+    public void given_singleIdAndFieldsParam_handlerReturnsRequestedFieldsOnly() {
+
+        // Arrange
+        Map<String, String> queryParams = new HashMap<>();
+        queryParams.put("ids", "123");
+        queryParams.put("fields", "title");
+
+        APIGatewayProxyRequestEvent mockRequestEvent = new APIGatewayProxyRequestEvent();
+        mockRequestEvent.withPath("/books");
+        mockRequestEvent.withHttpMethod("GET");
+        mockRequestEvent.withBody(null);
+        mockRequestEvent.withQueryStringParameters(queryParams);
+
+        // A repository that read the whole item still must not leak unrequested fields, isbn included.
+        List<Book> stubbedBooks = Collections.singletonList(book("123", "Test Book"));
+        when(mockBookRepo.getBooksById(eq(Collections.singletonList("123")), any(Projection.class), eq(testLogger))).thenReturn(stubbedBooks);
+        doAnswer(streamResponses(Collections.singletonList(stubbedBookResponse))).when(mockBookService).mapPage(any(Page.class), any(Consumer.class), eq(testLogger));
+
+        // Act
+        APIGatewayProxyResponseEvent actualResponse = sut.handleRequest(mockRequestEvent, mockContext);
+
+        // Assert
+        assertEquals(200, actualResponse.getStatusCode());
+        assertEquals("[{\"title\":\"Test Book\"}]", actualResponse.getBody());
+
+    }
+
+    @Test
+    public void given_sortParam_handlerMapsOnlyTheFirstBooksInOrder() {
+
+        // Arrange
+        Map<String, String> queryParams = new HashMap<>();
+        queryParams.put("sort", "title");
+        queryParams.put("limit", "2");
+
+        APIGatewayProxyRequestEvent mockRequestEvent = new APIGatewayProxyRequestEvent();
+        mockRequestEvent.withPath("/books");
+        mockRequestEvent.withHttpMethod("GET");
+        mockRequestEvent.withBody(null);
+        mockRequestEvent.withQueryStringParameters(queryParams);
+
+        List<Page<Book>> pages = Arrays.asList(Page.create(Arrays.asList(book("1", "Dune"), book("2", "Emma"))),
+                                               Page.create(Arrays.asList(book("3", "carrie"), book("4", "Atonement"))));
+        PageIterable<Book> stubbedBooks = pages::iterator;
+        when(mockBookRepo.getAllBooks(Projection.DEFAULT)).thenReturn(stubbedBooks);
+
+        ArgumentCaptor<Page<Book>> pageCaptor = ArgumentCaptor.forClass(Page.class);
+        when(mockBookService.mapPage(pageCaptor.capture(), any(Consumer.class), eq(testLogger))).thenReturn(2);
+
+        // Act
+        APIGatewayProxyResponseEvent actualResponse = sut.handleRequest(mockRequestEvent, mockContext);
+
+        // Assert
+        List<String> actualIds = new ArrayList<>();
+        pageCaptor.getValue().items().forEach(book -> actualIds.add(book.getId()));
+        assertEquals(Arrays.asList("4", "3"), actualIds);
+        assertEquals(200, actualResponse.getStatusCode());
+
+    }
+
+    private static Book book(String id, String title) {
+        Book book = new Book();
+        book.setId(id);
+        book.setTitle(title);
+        return book;
+    }
+
 }
@@ -0,0 +1,209 @@
+package com.revature.get_books;
+
+import com.revature.get_books.stubs.TestLogger;
+import org.junit.jupiter.api.*;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HedgedRequestsTestSuite {
+
+    static TestLogger testLogger;
+
+    CountDownLatch releaseSlow;
+    AtomicInteger calls;
+
+    @BeforeAll
+    public static void suiteSetUp() {
+        testLogger = new TestLogger();
+    }
+
+    @AfterAll
+    public static void suiteTearDown() {
+        testLogger.close();
+    }
+
+    @BeforeEach
+    public void caseSetUp() {
+        releaseSlow = new CountDownLatch(1);
+        calls = new AtomicInteger();
+    }
+
+    @AfterEach
+    public void caseTearDown() {
+        releaseSlow.countDown();
+    }
+
+    @Test
+    public void given_tooFewSamples_execute_neverHedges() {
+
+        // Arrange
+        HedgedRequests sut = new HedgedRequests(90, 1, 100);
+
+        // Act
+        String actualValue = sut.execute(() -> "v" + calls.incrementAndGet());
+
+        // Assert
+        assertEquals("v1", actualValue);
+        assertEquals(-1, sut.hedgeAfterMicros());
+        assertEquals(0, sut.hedges());
+
+    }
+
+    @Test
+    public void given_tooFewSamples_execute_runsOnTheCallingThread() {
+
+        // Arrange
+        HedgedRequests sut = new HedgedRequests(90, 1, 100);
+
+        // Act
+        Thread actualThread = sut.execute(Thread::currentThread);
+
+        // Assert
+        assertSame(Thread.currentThread(), actualThread);
+
+    }
+
+    @Test
+    public void given_slowRequest_execute_runsBothCopiesOnNumberedHedgeThreads() throws InterruptedException {
+
+        // Arrange
+        HedgedRequests sut = new HedgedRequests(90, 1, 100, 2);
+        warmUp(sut);
+        int slowCall = calls.get() + 1;
+        Set<String> threadNames = ConcurrentHashMap.newKeySet();
+
+        // Act
+        sut.execute(() -> {
+            threadNames.add(Thread.currentThread().getName());
+            return calls.incrementAndGet() == slowCall ? awaitRelease("slow") : "fast";
+        });
+
+        // Assert
+        assertEquals(new HashSet<>(Arrays.asList("book-hedge-1", "book-hedge-2")), threadNames);
+
+    }
+
+    @Test
+    public void given_slowRequest_execute_returnsTheHedge() throws InterruptedException {
+
+        // Arrange
+        HedgedRequests sut = new HedgedRequests(90, 1, 100);
+        warmUp(sut);
+        int slowCall = calls.get() + 1;
+
+        // Act
+        String actualValue = sut.execute(() -> calls.incrementAndGet() == slowCall ? awaitRelease("slow") : "fast");
+
+        // Assert
+        assertEquals("fast", actualValue);
+        assertEquals(1, sut.hedges());
+        assertEquals(1, sut.wins());
+
+    }
+
+    @Test
+    public void given_exhaustedHedgeBudget_execute_waitsForTheOriginal() throws InterruptedException {
+
+        // Arrange
+        HedgedRequests sut = new HedgedRequests(90, 1, 0);
+        warmUp(sut);
+
+        // Act
+        String actualValue = sut.execute(() -> {
+            calls.incrementAndGet();
+            sleep(20);
+            return "slow";
+        });
+
+        // Assert
+        assertEquals("slow", actualValue);
+        assertEquals(0, sut.hedges());
+
+    }
+
+    @Test
+    public void given_bothCopiesFail_execute_throws() throws InterruptedException {
+
+        // Arrange
+        HedgedRequests sut = new HedgedRequests(90, 1, 100);
+        warmUp(sut);
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> sut.execute(() -> {
+            sleep(20);
+            throw new IllegalStateException("throttled");
+        }));
+        assertEquals(1, sut.hedges());
+        assertEquals(0, sut.wins());
+
+    }
+
+    @Test
+    public void given_slowRequest_execute_dropsWhatTheLosingCopyRecords() throws InterruptedException {
+
+        // Arrange
+        HedgedRequests sut = new HedgedRequests(90, 1, 100);
+        warmUp(sut);
+        int slowCall = calls.get() + 1;
+        CountDownLatch slowFinished = new CountDownLatch(1);
+        Metrics metrics = Metrics.start();
+
+        // Act
+        String actualValue = sut.execute(() -> {
+            boolean slow = calls.incrementAndGet() == slowCall;
+            String value = slow ? awaitRelease("slow") : "fast";
+            Metrics.count(Metric.DYNAMO_DB_CALLS, 1);
+            if (slow) {
+                slowFinished.countDown();
+            }
+            return value;
+        });
+        releaseSlow.countDown();
+        assertTrue(slowFinished.await(5, TimeUnit.SECONDS));
+        Metrics.finish(testLogger);
+
+        // Assert
+        assertEquals("fast", actualValue);
+        assertEquals(1, metrics.get(Metric.DYNAMO_DB_CALLS));
+        assertEquals(1, metrics.get(Metric.HEDGED_REQUESTS));
+        assertEquals(1, metrics.get(Metric.HEDGE_WINS));
+
+    }
+
+    private void warmUp(HedgedRequests sut) throws InterruptedException {
+
+        for (int i = 0; i < HedgedRequests.WINDOW_SAMPLES; i++) {
+            sut.execute(() -> "v" + calls.incrementAndGet());
+        }
+
+        // Nothing can be hedged before the first window fills, so these ran and were timed on this thread.
+        assertTrue(sut.hedgeAfterMicros() >= 1000);
+
+    }
+
+    private String awaitRelease(String value) {
+        try {
+            releaseSlow.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return value;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
@@ -0,0 +1,56 @@
+package com.revature.get_books;
+
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * A change feed that tests publish to directly.
+ */
+public class InMemoryChangeFeed implements ChangeFeed {
+
+    private final Queue<BookChange> pending = new ConcurrentLinkedQueue<>();
+    private final int maxBatchSize;
+
+    private volatile boolean caughtUp = true;
+
+    public InMemoryChangeFeed() {
+        this(Integer.MAX_VALUE);
+    }
+
+    public InMemoryChangeFeed(int maxBatchSize) {
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    public void publish(BookChange change) {
+        pending.add(change);
+    }
+
+    @Override
+    public List<BookChange> poll(LambdaLogger logger) {
+
+        List<BookChange> changes = new ArrayList<>();
+
+        while (changes.size() < maxBatchSize) {
+            BookChange change = pending.poll();
+            if (change == null) {
+                break;
+            }
+            changes.add(change);
+        }
+
+        caughtUp = pending.isEmpty();
+
+        return changes;
+
+    }
+
+    @Override
+    public boolean isCaughtUp() {
+        return caughtUp;
+    }
+
+}
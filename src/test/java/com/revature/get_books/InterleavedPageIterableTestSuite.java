@@ -0,0 +1,139 @@
+package com.revature.get_books;
+
+import org.junit.jupiter.api.*;
+import software.amazon.awssdk.enhanced.dynamodb.model.Page;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InterleavedPageIterableTestSuite {
+
+    ExecutorService executor;
+    AtomicInteger pagesRead;
+
+    @BeforeEach
+    public void caseSetUp() {
+        executor = Executors.newCachedThreadPool();
+        pagesRead = new AtomicInteger();
+    }
+
+    @AfterEach
+    public void caseTearDown() {
+        executor.shutdownNow();
+        pagesRead = null;
+    }
+
+    @Test
+    public void given_severalSources_iterator_returnsEveryPageInSourceOrder() {
+
+        // Arrange
+        InterleavedPageIterable<String> sut = new InterleavedPageIterable<>(Arrays.asList(source("a", 50), source("b", 50), source("c", 50)), executor, 4, 5000);
+        Map<String, Integer> lastBySource = new HashMap<>();
+
+        // Act
+        int actualCount = 0;
+        for (String item : sut.items()) {
+            int position = Integer.parseInt(item.substring(1));
+            Integer previous = lastBySource.put(item.substring(0, 1), position);
+            assertTrue(previous == null || previous < position);
+            actualCount++;
+        }
+
+        // Assert
+        assertEquals(150, actualCount);
+
+    }
+
+    @Test
+    public void given_slowCaller_iterator_readsNoFurtherAheadThanTheBuffer() throws InterruptedException {
+
+        // Arrange
+        InterleavedPageIterable<String> sut = new InterleavedPageIterable<>(Arrays.asList(source("a", 1000), source("b", 1000)), executor, 4, 5000);
+
+        // Act
+        Iterator<Page<String>> pageIterator = sut.iterator();
+        pageIterator.next();
+        Thread.sleep(200);
+
+        // Assert: the page taken, the buffer, and one page held by each blocked source
+        assertEquals(1 + 4 + 2, pagesRead.get());
+
+    }
+
+    @Test
+    public void given_failingSource_iterator_throwsAndStopsTheOthers() throws InterruptedException {
+
+        // Arrange
+        Iterable<Page<String>> failingSource = () -> new Iterator<Page<String>>() {
+
+            private int pages;
+
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public Page<String> next() {
+                if (++pages == 3) {
+                    throw new IllegalStateException("Segment scan failed");
+                }
+                return Page.create(Collections.singletonList("f" + pages));
+            }
+        };
+
+        InterleavedPageIterable<String> sut = new InterleavedPageIterable<>(Arrays.asList(source("a", Integer.MAX_VALUE), failingSource), executor, 4, 5000);
+
+        // Act
+        assertThrows(IllegalStateException.class, () -> sut.forEach(page -> { }));
+        int readAtFailure = pagesRead.get();
+        Thread.sleep(200);
+
+        // Assert
+        assertTrue(pagesRead.get() <= readAtFailure + 1);
+
+    }
+
+    @Test
+    public void given_callerStopsEarly_close_stopsTheWorkers() throws InterruptedException {
+
+        // Arrange
+        InterleavedPageIterable<String> sut = new InterleavedPageIterable<>(Arrays.asList(source("a", 1000), source("b", 1000)), executor, 4, 5000);
+        Iterator<Page<String>> pageIterator = sut.iterator();
+        pageIterator.next();
+
+        // Act
+        PageIterators.close(pageIterator);
+        Thread.sleep(200);
+        int readAfterClose = pagesRead.get();
+        Thread.sleep(200);
+
+        // Assert
+        assertEquals(readAfterClose, pagesRead.get());
+        assertTrue(readAfterClose < 2000);
+
+    }
+
+    private Iterable<Page<String>> source(String name, int pageCount) {
+        return () -> new Iterator<Page<String>>() {
+
+            private int pages;
+
+            @Override
+            public boolean hasNext() {
+                return pages < pageCount;
+            }
+
+            @Override
+            public Page<String> next() {
+                pagesRead.incrementAndGet();
+                return Page.create(Collections.singletonList(name + pages++));
+            }
+        };
+    }
+
+}
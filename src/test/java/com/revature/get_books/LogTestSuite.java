@@ -0,0 +1,79 @@
+package com.revature.get_books;
+
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import org.junit.jupiter.api.*;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class LogTestSuite {
+
+    LambdaLogger mockLogger;
+
+    @BeforeEach
+    public void caseSetUp() {
+        mockLogger = mock(LambdaLogger.class);
+    }
+
+    @AfterEach
+    public void caseTearDown() {
+        Log.setLevel(Log.Level.INFO);
+        Log.setDebugSampleRate(100);
+        reset(mockLogger);
+    }
+
+    @Test
+    public void given_infoLevel_debugSupplierIsNeverEvaluated() {
+
+        // Arrange
+        Log.setLevel(Log.Level.INFO);
+        AtomicInteger supplierCalls = new AtomicInteger();
+
+        // Act
+        Log.debug(mockLogger, () -> "Books: " + supplierCalls.incrementAndGet());
+        Log.info(mockLogger, "Mapped 1 models to response.");
+
+        // Assert
+        assertEquals(0, supplierCalls.get());
+        assertFalse(Log.isDebugSampled());
+        verify(mockLogger, times(1)).log("[INFO] Mapped 1 models to response.");
+
+    }
+
+    @Test
+    public void given_debugLevel_perItemLoggingIsSampled() {
+
+        // Arrange
+        Log.setLevel(Log.Level.DEBUG);
+        Log.setDebugSampleRate(10);
+
+        // Act
+        int sampledCount = 0;
+        for (int i = 0; i < 100; i++) {
+            if (Log.isDebugSampled()) sampledCount++;
+        }
+
+        // Assert
+        assertEquals(10, sampledCount);
+
+    }
+
+    @Test
+    public void given_unknownLevel_parseLevel_fallsBackToInfoAndWarnsOnce() {
+
+        // Act
+        Log.Level actualLevel = Log.parseLevel("verbose");
+        Log.info(mockLogger, "First.");
+        Log.info(mockLogger, "Second.");
+
+        // Assert
+        assertEquals(Log.Level.INFO, actualLevel);
+        verify(mockLogger, times(1)).log(startsWith("[WARN] The provided LOG_LEVEL, verbose,"));
+        verify(mockLogger, times(1)).log("[INFO] First.");
+        verify(mockLogger, times(1)).log("[INFO] Second.");
+
+    }
+
+}
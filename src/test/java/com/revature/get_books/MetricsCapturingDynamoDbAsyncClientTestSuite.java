@@ -0,0 +1,73 @@
+package com.revature.get_books;
+
+import com.revature.get_books.stubs.TestLogger;
+import org.junit.jupiter.api.*;
+import org.mockito.ArgumentCaptor;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class MetricsCapturingDynamoDbAsyncClientTestSuite {
+
+    static TestLogger testLogger;
+
+    DynamoDbAsyncClient mockDynamoDb;
+    MetricsCapturingDynamoDbAsyncClient sut;
+
+    @BeforeAll
+    public static void suiteSetUp() {
+        testLogger = new TestLogger();
+    }
+
+    @AfterAll
+    public static void suiteTearDown() {
+        testLogger.close();
+    }
+
+    @BeforeEach
+    public void caseSetUp() {
+        mockDynamoDb = mock(DynamoDbAsyncClient.class);
+        sut = new MetricsCapturingDynamoDbAsyncClient(mockDynamoDb);
+    }
+
+    @AfterEach
+    public void caseTearDown() {
+        Metrics.finish(testLogger);
+        sut = null;
+    }
+
+    @Test
+    public void given_invocation_scanPaginator_putsItsMetricsOnTheFirstRequest() {
+
+        // Arrange
+        Metrics metrics = Metrics.start();
+        ArgumentCaptor<ScanRequest> sent = ArgumentCaptor.forClass(ScanRequest.class);
+
+        // Act
+        sut.scanPaginator(ScanRequest.builder().tableName("books").build());
+
+        // Assert
+        verify(mockDynamoDb).scanPaginator(sent.capture());
+        assertEquals("books", sent.getValue().tableName());
+        assertSame(metrics, sent.getValue().overrideConfiguration().get().executionAttributes().getAttribute(DynamoDbMetricsInterceptor.METRICS));
+
+    }
+
+    @Test
+    public void given_noInvocation_queryPaginator_sendsTheRequestUnchanged() {
+
+        // Arrange
+        QueryRequest request = QueryRequest.builder().tableName("books").build();
+
+        // Act
+        sut.queryPaginator(request);
+
+        // Assert
+        verify(mockDynamoDb).queryPaginator(same(request));
+
+    }
+
+}
@@ -0,0 +1,110 @@
+package com.revature.get_books;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.revature.get_books.stubs.TestLogger;
+import org.junit.jupiter.api.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MetricsTestSuite {
+
+    static TestLogger testLogger;
+
+    @BeforeAll
+    public static void suiteSetUp() {
+        testLogger = new TestLogger();
+    }
+
+    @AfterEach
+    public void caseTearDown() {
+        Metrics.finish(testLogger);
+        Metrics.setEnabled(true);
+    }
+
+    @AfterAll
+    public static void suiteCleanUp() {
+        testLogger.close();
+    }
+
+    @Test
+    public void given_recordedValues_percentile_isWithinBucketPrecision() {
+
+        // Arrange
+        LatencyHistogram sut = new LatencyHistogram();
+        for (int value = 1; value <= 1000; value++) {
+            sut.record(value);
+        }
+
+        // Act
+        long actualP50 = sut.percentile(50);
+        long actualP99 = sut.percentile(99);
+
+        // Assert
+        assertEquals(1000, sut.count());
+        assertTrue(actualP50 >= 500 && actualP50 <= 500 * 1.125, "p50 was " + actualP50);
+        assertTrue(actualP99 >= 990 && actualP99 <= 990 * 1.125, "p99 was " + actualP99);
+
+    }
+
+    @Test
+    public void given_startedInvocation_toEmf_writesScaledMetricValues() {
+
+        // Arrange
+        Metrics sut = Metrics.start();
+        Metrics.count(Metric.PAGES, 3);
+        Metrics.count(Metric.CONSUMED_CAPACITY, 1500);
+        Metrics.count(Metric.PRESIGN_TIME, 2_000_000);
+
+        // Act
+        JsonObject actualEmf = JsonParser.parseString(sut.toEmf(1000)).getAsJsonObject();
+
+        // Assert
+        assertEquals(Metrics.NAMESPACE, actualEmf.getAsJsonObject("_aws").getAsJsonArray("CloudWatchMetrics").get(0).getAsJsonObject().get("Namespace").getAsString());
+        assertEquals(3, actualEmf.get("pages").getAsLong());
+        assertEquals(1.5, actualEmf.get("consumedCapacity").getAsDouble());
+        assertEquals(2.0, actualEmf.get("presignMillis").getAsDouble());
+
+    }
+
+    @Test
+    public void given_stageThatNeverRan_finish_leavesItsContainerPercentilesAlone() {
+
+        // Arrange
+        JsonObject before = containerPercentiles();
+        Metrics.start();
+        Metrics.stopTimer(Metric.PRESIGN_TIME, Metrics.startTimer());
+
+        // Act
+        Metrics.finish(testLogger);
+
+        // Assert
+        JsonObject after = containerPercentiles();
+        assertEquals(before.getAsJsonObject("sortMillis").get("count").getAsLong(), after.getAsJsonObject("sortMillis").get("count").getAsLong());
+        assertEquals(before.getAsJsonObject("presignMillis").get("count").getAsLong() + 1, after.getAsJsonObject("presignMillis").get("count").getAsLong());
+        assertEquals(before.getAsJsonObject("totalMillis").get("count").getAsLong() + 1, after.getAsJsonObject("totalMillis").get("count").getAsLong());
+
+    }
+
+    @Test
+    public void given_metricsDisabled_count_isIgnored() {
+
+        // Arrange
+        Metrics.setEnabled(false);
+
+        // Act
+        Metrics sut = Metrics.start();
+        Metrics.count(Metric.PAGES, 1);
+
+        // Assert
+        assertNull(sut);
+        assertNull(Metrics.current());
+
+    }
+
+    private static JsonObject containerPercentiles() {
+        Metrics metrics = new Metrics();
+        return JsonParser.parseString(metrics.toEmf(0)).getAsJsonObject().getAsJsonObject("containerPercentiles");
+    }
+
+}
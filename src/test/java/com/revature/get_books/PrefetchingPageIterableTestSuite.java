@@ -0,0 +1,152 @@
+package com.revature.get_books;
+
+import org.junit.jupiter.api.*;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import software.amazon.awssdk.core.async.SdkPublisher;
+import software.amazon.awssdk.enhanced.dynamodb.model.Page;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PrefetchingPageIterableTestSuite {
+
+    AtomicLong requested;
+    AtomicBoolean cancelled;
+    List<Page<String>> pages;
+
+    @BeforeEach
+    public void caseSetUp() {
+        requested = new AtomicLong();
+        cancelled = new AtomicBoolean();
+        pages = Arrays.asList(Page.create(Collections.singletonList("a")),
+                              Page.create(Collections.singletonList("b")),
+                              Page.create(Collections.singletonList("c")));
+    }
+
+    @AfterEach
+    public void caseTearDown() {
+        requested = null;
+        cancelled = null;
+        pages = null;
+    }
+
+    @Test
+    public void given_completingPublisher_iterator_returnsAllPagesInOrder() {
+
+        // Arrange
+        PrefetchingPageIterable<String> sut = new PrefetchingPageIterable<>(synchronousPublisher(null), 2, 1000);
+        List<String> actualItems = new ArrayList<>();
+
+        // Act
+        sut.items().forEach(actualItems::add);
+
+        // Assert
+        assertEquals(Arrays.asList("a", "b", "c"), actualItems);
+
+    }
+
+    @Test
+    public void given_unconsumedPages_iterator_requestsNoMoreThanPrefetch() {
+
+        // Arrange
+        PrefetchingPageIterable<String> sut = new PrefetchingPageIterable<>(synchronousPublisher(null), 2, 1000);
+
+        // Act
+        Iterator<Page<String>> pageIterator = sut.iterator();
+
+        // Assert
+        assertEquals(2, requested.get());
+        pageIterator.next();
+        assertEquals(3, requested.get());
+
+    }
+
+    @Test
+    public void given_failingPublisher_iterator_throwsRuntimeException() {
+
+        // Arrange
+        PrefetchingPageIterable<String> sut = new PrefetchingPageIterable<>(synchronousPublisher(new IllegalStateException("boom")), 1, 1000);
+        Iterator<Page<String>> pageIterator = sut.iterator();
+        pageIterator.next();
+
+        // Act
+        pageIterator.next();
+        pageIterator.next();
+
+        // Assert
+        assertThrows(IllegalStateException.class, pageIterator::hasNext);
+
+    }
+
+    @Test
+    public void given_silentPublisher_iterator_timesOut() {
+
+        // Arrange
+        SdkPublisher<Page<String>> silentPublisher = subscriber -> subscriber.onSubscribe(new Subscription() {
+            @Override public void request(long n) { }
+            @Override public void cancel() { }
+        });
+        PrefetchingPageIterable<String> sut = new PrefetchingPageIterable<>(silentPublisher, 1, 10);
+
+        // Act
+        Iterator<Page<String>> pageIterator = sut.iterator();
+
+        // Assert
+        assertThrows(RuntimeException.class, pageIterator::hasNext);
+
+    }
+
+    @Test
+    public void given_callerStopsEarly_close_cancelsTheSubscription() {
+
+        // Arrange
+        PrefetchingPageIterable<String> sut = new PrefetchingPageIterable<>(synchronousPublisher(null), 1, 1000);
+        Iterator<Page<String>> pageIterator = sut.iterator();
+        pageIterator.next();
+
+        // Act
+        PageIterators.close(pageIterator);
+
+        // Assert
+        assertTrue(cancelled.get());
+        assertFalse(pageIterator.hasNext());
+
+    }
+
+    /**
+     * Emits the test pages on the requesting thread as demand arrives, then completes (or fails with the given error).
+     */
+    private SdkPublisher<Page<String>> synchronousPublisher(Throwable error) {
+        return (Subscriber<? super Page<String>> subscriber) -> subscriber.onSubscribe(new Subscription() {
+
+            int emitted;
+
+            @Override
+            public void request(long n) {
+                requested.addAndGet(n);
+                for (long i = 0; i < n && emitted < pages.size(); i++) {
+                    subscriber.onNext(pages.get(emitted++));
+                }
+                if (emitted == pages.size()) {
+                    emitted++;
+                    if (error == null) {
+                        subscriber.onComplete();
+                    } else {
+                        subscriber.onError(error);
+                    }
+                }
+            }
+
+            @Override
+            public void cancel() {
+                cancelled.set(true);
+            }
+
+        });
+    }
+
+}
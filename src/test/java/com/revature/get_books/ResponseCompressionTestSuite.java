@@ -0,0 +1,71 @@
+package com.revature.get_books;
+
+import org.junit.jupiter.api.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ResponseCompressionTestSuite {
+
+    ResponseCompression sut;
+
+    @BeforeEach
+    public void caseSetUp() {
+        sut = new ResponseCompression(16, 6);
+    }
+
+    @AfterEach
+    public void caseTearDown() {
+        sut = null;
+    }
+
+    @Test
+    public void given_acceptEncodingHeaders_negotiate_honoursQualityValues() {
+
+        // Act and Assert
+        assertEquals(ResponseCompression.GZIP, ResponseCompression.negotiate("gzip, deflate, br"));
+        assertEquals(ResponseCompression.GZIP, ResponseCompression.negotiate("br;q=1.0, *;q=0.5"));
+        assertNull(ResponseCompression.negotiate("gzip;q=0, *"));
+        assertNull(ResponseCompression.negotiate("identity"));
+        assertNull(ResponseCompression.negotiate(null));
+
+    }
+
+    @Test
+    public void given_bodyBelowThreshold_shouldCompress_returnsFalse() {
+
+        // Act and Assert
+        assertFalse(sut.shouldCompress("[]"));
+        assertTrue(sut.shouldCompress("[{\"id\":\"0123456789\"}]"));
+        assertFalse(new ResponseCompression(-1, 6).shouldCompress("[{\"id\":\"0123456789\"}]"));
+
+    }
+
+    @Test
+    public void given_body_encode_producesBase64GzipOfTheBody() throws IOException {
+
+        // Arrange
+        String body = "[{\"id\":\"123\",\"title\":\"Test Book\"},{\"id\":\"124\",\"title\":\"Test Book\"}]";
+
+        // Act
+        String actualEncoded = sut.encode(body);
+
+        // Assert
+        ByteArrayOutputStream decompressed = new ByteArrayOutputStream();
+        try (GZIPInputStream gunzip = new GZIPInputStream(new ByteArrayInputStream(Base64.getDecoder().decode(actualEncoded)))) {
+            byte[] buffer = new byte[256];
+            for (int read; (read = gunzip.read(buffer)) > 0; ) {
+                decompressed.write(buffer, 0, read);
+            }
+        }
+        assertEquals(body, new String(decompressed.toByteArray(), StandardCharsets.UTF_8));
+
+    }
+
+}
@@ -0,0 +1,153 @@
+package com.revature.get_books;
+
+import org.junit.jupiter.api.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SearchIndexTestSuite {
+
+    SearchIndex sut;
+
+    @BeforeEach
+    public void caseSetUp() throws IOException {
+
+        List<Book> books = Arrays.asList(
+                book("3", "The Hobbit", "Allen & Unwin", Collections.singletonList("J.R.R. Tolkien"), Collections.singletonList("Fantasy")),
+                book("1", "Dune", "Chilton", Collections.singletonList("Frank Herbert"), Arrays.asList("Science Fiction", "Classic")),
+                book("2", "The Two Towers", "Allen & Unwin", Collections.singletonList("J.R.R. Tolkien"), Arrays.asList("Fantasy", "Classic")));
+
+        ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+        SearchIndexWriter.write(books, new DataOutputStream(snapshot));
+
+        sut = new SearchIndex(ByteBuffer.wrap(snapshot.toByteArray()));
+
+    }
+
+    @AfterEach
+    public void caseTearDown() {
+        sut = null;
+    }
+
+    @Test
+    public void given_listValues_search_matchesAnyValue() {
+
+        // Act
+        List<String> actualIds = sut.search(Collections.singletonMap("genres", "Classic,Fantasy"));
+
+        // Assert
+        assertEquals(Arrays.asList("1", "2", "3"), actualIds);
+
+    }
+
+    @Test
+    public void given_valueInAnotherCase_search_matchesNothingLikeTheTableFilter() {
+
+        // Arrange
+        Map<String, String> queryParams = Collections.singletonMap("genres", "FANTASY");
+
+        // Act
+        List<String> actualIds = sut.search(queryParams);
+
+        // Assert
+        assertTrue(actualIds.isEmpty());
+        assertFalse(SearchIndex.matches(book("4", "Dune", "Chilton", null, Collections.singletonList("Fantasy")), queryParams));
+
+    }
+
+    @Test
+    public void given_multipleParams_search_matchesEveryParam() {
+
+        // Arrange
+        Map<String, String> queryParams = new HashMap<>();
+        queryParams.put("authors", "J.R.R. Tolkien");
+        queryParams.put("genres", "Classic");
+
+        // Act
+        List<String> actualIds = sut.search(queryParams);
+
+        // Assert
+        assertEquals(Collections.singletonList("2"), actualIds);
+
+    }
+
+    @Test
+    public void given_title_search_matchesOnlyTheWholeTitle() {
+
+        // Act
+        List<String> actualIds = sut.search(Collections.singletonMap("title", "The Two Towers"));
+        List<String> actualPartialIds = sut.search(Collections.singletonMap("title", "Two Towers"));
+
+        // Assert
+        assertEquals(Collections.singletonList("2"), actualIds);
+        assertTrue(actualPartialIds.isEmpty());
+
+    }
+
+    @Test
+    public void given_titlePrefix_search_matchesTitleWordsWithTheLastAsAPrefix() {
+
+        // Arrange
+        Map<String, String> queryParams = Collections.singletonMap(SearchIndex.TITLE_PREFIX_PARAM, "TWO tow");
+
+        // Act
+        List<String> actualIds = sut.search(queryParams);
+
+        // Assert
+        assertEquals(Collections.singletonList("2"), actualIds);
+        assertTrue(sut.search(Collections.singletonMap(SearchIndex.TITLE_PREFIX_PARAM, "tow two")).isEmpty());
+        assertTrue(SearchIndex.matches(book("4", "Two Towers Revisited", null, null, null), queryParams));
+
+    }
+
+    @Test
+    public void given_indexPastMaxAge_isFresh_returnsFalse() throws IOException {
+
+        // Arrange
+        ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+        SearchIndexWriter.write(Collections.singletonList(book("1", "Dune", "Chilton", null, null)), new DataOutputStream(snapshot));
+        long[] now = { 10_000 };
+        SearchIndex agingSut = new SearchIndex(ByteBuffer.wrap(snapshot.toByteArray()), 10_000, 1000, () -> now[0]);
+
+        // Act
+        boolean actualFreshWithinMaxAge = agingSut.isFresh();
+        now[0] += 1001;
+
+        // Assert
+        assertTrue(actualFreshWithinMaxAge);
+        assertFalse(agingSut.isFresh());
+
+    }
+
+    @Test
+    public void given_unindexedParam_supports_returnsFalse() {
+
+        // Arrange
+        Map<String, String> queryParams = new HashMap<>();
+        queryParams.put("isbn", "0123456789-123");
+        queryParams.put("title", "Dune");
+
+        // Act
+        boolean actualSupport = sut.supports(queryParams);
+
+        // Assert
+        assertFalse(actualSupport);
+
+    }
+
+    private static Book book(String id, String title, String publisher, List<String> authors, List<String> genres) {
+        Book book = new Book();
+        book.setId(id);
+        book.setTitle(title);
+        book.setPublisher(publisher);
+        book.setAuthors(authors);
+        book.setGenres(genres);
+        return book;
+    }
+
+}
@@ -0,0 +1,134 @@
+package com.revature.get_books;
+
+import org.junit.jupiter.api.*;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SingleFlightTestSuite {
+
+    ExecutorService executor;
+    CountDownLatch loadStarted;
+    CountDownLatch releaseLoad;
+    AtomicInteger loads;
+
+    @BeforeEach
+    public void caseSetUp() {
+        executor = Executors.newCachedThreadPool();
+        loadStarted = new CountDownLatch(1);
+        releaseLoad = new CountDownLatch(1);
+        loads = new AtomicInteger();
+    }
+
+    @AfterEach
+    public void caseTearDown() {
+        releaseLoad.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void given_identicalConcurrentLoads_execute_sharesOneLoad() throws Exception {
+
+        // Arrange
+        SingleFlight<String, String> sut = new SingleFlight<>(4, 5000);
+        Future<SingleFlight.Result<String>> leader = executor.submit(() -> sut.execute("q", this::blockingLoad));
+        loadStarted.await();
+
+        // Act
+        Future<SingleFlight.Result<String>> follower = executor.submit(() -> sut.execute("q", this::blockingLoad));
+        awaitWaiter(sut);
+        releaseLoad.countDown();
+
+        // Assert
+        assertEquals(1, loads.get());
+        assertFalse(leader.get().isShared());
+        assertTrue(follower.get().isShared());
+        assertSame(leader.get().getValue(), follower.get().getValue());
+        assertEquals(0, sut.inFlight());
+
+    }
+
+    @Test
+    public void given_stuckLoad_execute_loadsIndependentlyOnceTheWaitRunsOut() throws Exception {
+
+        // Arrange
+        SingleFlight<String, String> sut = new SingleFlight<>(4, 50);
+        executor.submit(() -> sut.execute("q", this::blockingLoad));
+        loadStarted.await();
+
+        // Act
+        SingleFlight.Result<String> actual = sut.execute("q", () -> "own " + loads.incrementAndGet());
+
+        // Assert
+        assertFalse(actual.isShared());
+        assertEquals("own 2", actual.getValue());
+        assertEquals(0, sut.waiters("q"));
+
+    }
+
+    @Test
+    public void given_fullWaiterBound_execute_loadsIndependently() throws Exception {
+
+        // Arrange
+        SingleFlight<String, String> sut = new SingleFlight<>(1, 5000);
+        executor.submit(() -> sut.execute("q", this::blockingLoad));
+        loadStarted.await();
+        executor.submit(() -> sut.execute("q", this::blockingLoad));
+        awaitWaiter(sut);
+
+        // Act
+        SingleFlight.Result<String> overflow = sut.execute("q", () -> "own " + loads.incrementAndGet());
+
+        // Assert
+        assertFalse(overflow.isShared());
+        assertEquals("own 2", overflow.getValue());
+
+    }
+
+    @Test
+    public void given_failedLoad_execute_rethrowsToWaitersAndForgetsTheKey() throws Exception {
+
+        // Arrange
+        SingleFlight<String, String> sut = new SingleFlight<>(4, 5000);
+        Future<SingleFlight.Result<String>> leader = executor.submit(() -> sut.execute("q", () -> {
+            blockingLoad();
+            throw new IllegalStateException("boom");
+        }));
+        loadStarted.await();
+        Future<SingleFlight.Result<String>> follower = executor.submit(() -> sut.execute("q", this::blockingLoad));
+        awaitWaiter(sut);
+
+        // Act
+        releaseLoad.countDown();
+
+        // Assert
+        ExecutionException leaderError = assertThrows(ExecutionException.class, leader::get);
+        ExecutionException followerError = assertThrows(ExecutionException.class, follower::get);
+        assertTrue(leaderError.getCause() instanceof IllegalStateException);
+        assertTrue(followerError.getCause() instanceof IllegalStateException);
+        assertEquals("fresh", sut.execute("q", () -> "fresh").getValue());
+
+    }
+
+    private String blockingLoad() {
+        int load = loads.incrementAndGet();
+        loadStarted.countDown();
+        try {
+            releaseLoad.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return "load " + load;
+    }
+
+    private void awaitWaiter(SingleFlight<String, String> sut) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (sut.waiters("q") == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(1, sut.waiters("q"));
+    }
+
+}